@@ -0,0 +1,71 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.util.concurrent.TimeUnit;
+import net.offsetleft.tournamentcoordinator.SegmentMultiplayerOption;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures TournamentEvent.addParticipant() during registration, before
+ * regulation play begins. Each invocation adds one participant to an event
+ * that already holds the requested number of participants and removes it 
+ * again afterwards, outside the measurement.
+ * 
+ * <p>The added participants are drawn from a fixed pool, so the event keeps
+ * reusing the same participant ledger slots however long the benchmark runs.
+ * 
+ * @author      agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddParticipantBenchmark {
+    
+    private static final int POOL_SIZE = 1024;
+    
+    @Param({"16", "256", "4096", "50000"})
+    public int players;
+    
+    private BenchmarkEvent event;
+    
+    private final BenchmarkParticipant[] pool = 
+            new BenchmarkParticipant[POOL_SIZE];
+    private int next = 0;
+    
+    @Setup(Level.Trial)
+    public void setupEvent() throws TournamentStateException {
+        event = BenchmarkEvent.createEvent(
+                SegmentMultiplayerOption.HEADSUP, players, 0, EventBenchmark.SEED);
+        
+        for(int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = event.createParticipant();
+        }
+    }
+    
+    @TearDown(Level.Invocation)
+    public void removeParticipant() throws TournamentStateException {
+        event.removeParticipant(pool[next]);
+        
+        next = (next + 1) % POOL_SIZE;
+    }
+    
+    @Benchmark
+    public void addParticipant() throws TournamentStateException {
+        event.addParticipant(pool[next]);
+    }
+}
@@ -0,0 +1,225 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import net.offsetleft.tournamentcoordinator.SegmentEliminationStyle;
+import net.offsetleft.tournamentcoordinator.SegmentMultiplayerOption;
+import net.offsetleft.tournamentcoordinator.SegmentPairingAlgorithm;
+import net.offsetleft.tournamentcoordinator.SegmentPairingSystem;
+import net.offsetleft.tournamentcoordinator.TournamentEvent;
+import net.offsetleft.tournamentcoordinator.TournamentMatch;
+import net.offsetleft.tournamentcoordinator.TournamentRound;
+import net.offsetleft.tournamentcoordinator.TournamentSegment;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * A Swiss event of BenchmarkParticipants along with the methods the 
+ * benchmarks use to fill it with participants and play its rounds.
+ * 
+ * <p>All names and results are drawn from a seeded Random, so two events 
+ * built with the same arguments are the same event.
+ * 
+ * @author      agent
+ */
+public class BenchmarkEvent extends TournamentEvent<
+        TournamentSegment<TournamentRound<TournamentMatch<BenchmarkParticipant>, 
+                BenchmarkParticipant>, 
+            TournamentMatch<BenchmarkParticipant>, BenchmarkParticipant>,
+        TournamentRound<TournamentMatch<BenchmarkParticipant>, 
+                BenchmarkParticipant>,
+        TournamentMatch<BenchmarkParticipant>, BenchmarkParticipant> {
+    
+    //Head-Up Results
+    private static final int[][] HEADSUP_RESULTS = {
+        {2, 0, 0}, {0, 2, 0}, {2, 1, 0}, {1, 2, 0}, {1, 1, 1}
+    };
+    
+    private final Random random;
+    private final long pairingSeed;
+    private int createdParticipants = 0;
+    
+    /**
+     * Constructs a new, empty Swiss event without elimination.
+     * 
+     * @param   multiplayerOption
+     *          the SegmentMultiplayerOption of the event.
+     * 
+     * @param   seed 
+     *          the seed for participant names, match results and pairing.
+     */
+    public BenchmarkEvent(SegmentMultiplayerOption multiplayerOption, 
+            long seed) {
+        this(SegmentEliminationStyle.NONE, SegmentPairingSystem.SWISS, 
+                multiplayerOption, seed);
+        
+        // The greedy head-up pairing can fail to finish on some fields, so 
+        // the rounds leading up to a measurement are paired by matching.
+        if(multiplayerOption == SegmentMultiplayerOption.HEADSUP) {
+            setPairingAlgorithm(SegmentPairingAlgorithm.WEIGHTED_MATCHING);
+        }
+    }
+    
+    /**
+     * Constructs a new, empty event.
+     * 
+     * @param   eliminationStyle
+     *          the SegmentEliminationStyle of the event.
+     * 
+     * @param   pairingSystem
+     *          the SegmentPairingSystem of the event.
+     * 
+     * @param   multiplayerOption
+     *          the SegmentMultiplayerOption of the event.
+     * 
+     * @param   seed 
+     *          the seed for participant names, match results and pairing.
+     */
+    public BenchmarkEvent(SegmentEliminationStyle eliminationStyle, 
+            SegmentPairingSystem pairingSystem,
+            SegmentMultiplayerOption multiplayerOption, 
+            long seed) {
+        super(eliminationStyle, pairingSystem, multiplayerOption);
+        
+        this.random = new Random(seed);
+        this.pairingSeed = random.nextLong();
+        
+        setPairingSeed(pairingSeed);
+    }
+    
+    /**
+     * Creates an event, enrolls participants and plays rounds. Every match of
+     * every round but byes has results. An event with no rounds is left in
+     * registration, before regulation play begins.
+     * 
+     * @param   multiplayerOption
+     *          the SegmentMultiplayerOption of the event.
+     * 
+     * @param   players
+     *          the number of participants to enroll.
+     * 
+     * @param   rounds
+     *          the number of rounds to play.
+     * 
+     * @param   seed
+     *          the seed for participant names and match results.
+     * 
+     * @return  the event.
+     * 
+     * @throws  TournamentStateException 
+     *          If the event cannot be played.
+     */
+    public static BenchmarkEvent createEvent(
+            SegmentMultiplayerOption multiplayerOption, int players, 
+            int rounds, long seed) throws TournamentStateException {
+        BenchmarkEvent event = new BenchmarkEvent(multiplayerOption, seed);
+        
+        for(int i = 0; i < players; i++) {
+            event.addParticipant(event.createParticipant());
+        }
+        
+        if(rounds > 0) {
+            event.createRegulationPlaySegment();
+        }
+        
+        for(int i = 0; i < rounds; i++) {
+            event.playRound();
+        }
+        
+        return event;
+    }
+    
+    /**
+     * Creates a participant enrolled in this event with a random name and a
+     * unique UUID. The participant is not added to the event.
+     * 
+     * @return  the participant.
+     */
+    public BenchmarkParticipant createParticipant() {
+        int index = createdParticipants++;
+        
+        return new BenchmarkParticipant(
+                "First" + random.nextInt(1000), 
+                "Last" + random.nextInt(100000), 
+                "benchmark-" + index, 
+                this);
+    }
+    
+    /**
+     * Creates a new round and enters results for all of its matches.
+     * 
+     * @throws  TournamentStateException 
+     *          If the round cannot be created.
+     */
+    public void playRound() throws TournamentStateException {
+        createNewEventRound();
+        
+        for(TournamentMatch<BenchmarkParticipant> match 
+                : getCurrentEventRound().getRoundMatches()) {
+            if(getIsBye(match)) {
+                continue;
+            }
+            
+            match.setMatchResults(createResults(match));
+        }
+    }
+    
+    /**
+     * Creates random results that are valid for a match.
+     * 
+     * @param   match
+     *          the match to create results for.
+     * 
+     * @return  the results.
+     */
+    public ArrayList<Integer> createResults(
+            TournamentMatch<BenchmarkParticipant> match) {
+        ArrayList<Integer> results = new ArrayList<>();
+        
+        if(match.getMultiplayerOption() == SegmentMultiplayerOption.HEADSUP) {
+            for(int result 
+                    : HEADSUP_RESULTS[random.nextInt(HEADSUP_RESULTS.length)]) {
+                results.add(result);
+            }
+        } else {
+            for(int i = 1; i <= match.getMatchParticipantCount(); i++) {
+                results.add(i);
+            }
+            
+            Collections.shuffle(results, random);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Gets the random number generator of the event.
+     * 
+     * @return  the Random.
+     */
+    public Random getRandom() {
+        return random;
+    }
+    
+    /**
+     * Gets the seed the event's pairing was seeded with when it was built.
+     * 
+     * @return  the seed.
+     */
+    public long getPairingSeed() {
+        return pairingSeed;
+    }
+    
+    /**
+     * Determines if a match is a head-up bye.
+     * 
+     * @param   match
+     *          the match to check.
+     * 
+     * @return  a boolean value.
+     */
+    public static boolean getIsBye(TournamentMatch<BenchmarkParticipant> match) {
+        return match.getMultiplayerOption() == SegmentMultiplayerOption.HEADSUP
+                && match.getMatchParticipantCount() == 1;
+    }
+}
@@ -0,0 +1,38 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import net.offsetleft.tournamentcoordinator.TournamentEvent;
+import net.offsetleft.tournamentcoordinator.TournamentParticipant;
+
+/**
+ * A participant enrolled in a BenchmarkEvent.
+ * 
+ * @author      agent
+ */
+public class BenchmarkParticipant 
+        extends TournamentParticipant<BenchmarkParticipant> {
+    
+    /**
+     * Constructs a new participant enrolled in an event.
+     * 
+     * @param   participantFirstName
+     *          the first name of the participant.
+     * 
+     * @param   participantLastName
+     *          the last name of the participant.
+     * 
+     * @param   participantUUID
+     *          the UUID of the participant.
+     * 
+     * @param   enrolledEvent 
+     *          the event the participant is enrolled in.
+     */
+    public BenchmarkParticipant(
+            String participantFirstName,
+            String participantLastName,
+            String participantUUID,
+            TournamentEvent enrolledEvent) {
+        super(participantFirstName, participantLastName, participantUUID);
+        
+        this.enrolledEvent = enrolledEvent;
+    }
+}
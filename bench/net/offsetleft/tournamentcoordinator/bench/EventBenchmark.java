@@ -0,0 +1,124 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import net.offsetleft.tournamentcoordinator.SegmentMultiplayerOption;
+import net.offsetleft.tournamentcoordinator.TournamentMatch;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The state shared by the benchmarks that run against an event in progress. 
+ * Each trial builds a Swiss event of the requested size and plays the 
+ * requested number of rounds, entering results for every match.
+ * 
+ * @author      agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class EventBenchmark {
+    
+    static final long SEED = 20141110L;
+    
+    @Param({"16", "256", "4096", "50000"})
+    public int players;
+    
+    @Param({"1", "5", "15"})
+    public int rounds;
+    
+    @Param({"HEADSUP", "MULTIPLAYER"})
+    public SegmentMultiplayerOption multiplayerOption;
+    
+    protected BenchmarkEvent event;
+    
+    private final ArrayList<TournamentMatch<BenchmarkParticipant>> 
+            resultMatches = new ArrayList<>();
+    private final ArrayList<ArrayList<Integer>> 
+            firstResults = new ArrayList<>(), 
+            secondResults = new ArrayList<>();
+    private int resultChanges = 0;
+    
+    /**
+     * Builds the event and calls setupBenchmark().
+     * 
+     * @throws  TournamentStateException 
+     *          If the event cannot be played.
+     */
+    @Setup(Level.Trial)
+    public final void setupEvent() throws TournamentStateException {
+        event = BenchmarkEvent.createEvent(multiplayerOption, players, rounds, 
+                SEED);
+        
+        for(TournamentMatch<BenchmarkParticipant> match 
+                : event.getCurrentEventRound().getRoundMatches()) {
+            if(BenchmarkEvent.getIsBye(match)) {
+                continue;
+            }
+            
+            ArrayList<Integer> results = match.getMatchResults();
+            ArrayList<Integer> reversed = new ArrayList<>(results);
+            
+            // Swapping the game wins of a head-up match keeps its draws.
+            if(multiplayerOption == SegmentMultiplayerOption.HEADSUP) {
+                Collections.swap(reversed, 0, 1);
+            } else {
+                Collections.reverse(reversed);
+            }
+            
+            resultMatches.add(match);
+            firstResults.add(new ArrayList<>(results));
+            secondResults.add(reversed);
+        }
+        
+        setupBenchmark();
+    }
+    
+    /**
+     * Prepares anything a benchmark needs beyond the event. Called once the 
+     * event has been built.
+     * 
+     * @throws  TournamentStateException 
+     *          If the event cannot be read.
+     */
+    protected void setupBenchmark() throws TournamentStateException {
+    }
+    
+    /**
+     * Changes the results of the next match of the current round, cycling 
+     * through the matches and alternating each match between its original 
+     * results and the results with the places reversed. Every call therefore
+     * retracts one set of results from the event and records another.
+     * 
+     * @throws  TournamentStateException 
+     *          If the results cannot be set.
+     */
+    protected final void changeNextResult() throws TournamentStateException {
+        if(resultMatches.isEmpty()) {
+            return;
+        }
+        
+        int index = resultChanges % resultMatches.size();
+        boolean reverse = (resultChanges / resultMatches.size()) % 2 == 0;
+        
+        resultChanges++;
+        
+        resultMatches.get(index).setMatchResults(reverse 
+                ? secondResults.get(index) 
+                : firstResults.get(index));
+    }
+}
@@ -0,0 +1,341 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import net.offsetleft.tournamentcoordinator.SegmentEliminationStyle;
+import net.offsetleft.tournamentcoordinator.SegmentMultiplayerOption;
+import net.offsetleft.tournamentcoordinator.SegmentPairingAlgorithm;
+import net.offsetleft.tournamentcoordinator.SegmentPairingSystem;
+import net.offsetleft.tournamentcoordinator.TournamentEventRecorder;
+import net.offsetleft.tournamentcoordinator.TournamentMatch;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Replays an event recorded by TournamentEventRecorder at full speed, timing
+ * every operation and checking that the replay pairs every round and orders
+ * every standings read the way the recorded event did.
+ * 
+ * <p>Usage: EventReplay recording [-repeat n]
+ * 
+ * <p>With a repeat count the recording is replayed that many times and only
+ * the last replay is reported, so the earlier replays warm the JVM up. The
+ * replay stops at the first difference from the recording and exits with a
+ * non-zero status.
+ * 
+ * @author      agent
+ */
+public class EventReplay {
+    
+    private final List<String> lines;
+    
+    private final BenchmarkEvent event = new BenchmarkEvent(
+            SegmentEliminationStyle.NONE, SegmentPairingSystem.SWISS,
+            SegmentMultiplayerOption.HEADSUP, 0);
+    
+    private final LinkedHashMap<String, PhaseRecorder> phases =
+            new LinkedHashMap<>();
+    
+    private ArrayList<BenchmarkParticipant> standings;
+    
+    /**
+     * Constructs a replay of a recording.
+     * 
+     * @param   lines
+     *          the lines of the recording.
+     */
+    public EventReplay(List<String> lines) {
+        this.lines = lines;
+    }
+    
+    /**
+     * Runs the replay.
+     * 
+     * @param   args
+     *          the command line arguments.
+     * 
+     * @throws  IOException
+     *          If the recording cannot be read.
+     * 
+     * @throws  TournamentStateException
+     *          If an operation of the recording fails.
+     */
+    public static void main(String[] args)
+            throws IOException, TournamentStateException {
+        List<String> lines = Files.readAllLines(Paths.get(args[0]),
+                StandardCharsets.UTF_8);
+        
+        int repeat = 1;
+        
+        if(args.length > 2 && args[1].equals("-repeat")) {
+            repeat = Integer.parseInt(args[2]);
+        }
+        
+        EventReplay replay = null;
+        long startNanos = 0;
+        
+        for(int i = 0; i < repeat; i++) {
+            replay = new EventReplay(lines);
+            startNanos = System.nanoTime();
+            
+            String mismatch = replay.replay();
+            
+            if(mismatch != null) {
+                System.out.println(mismatch);
+                System.exit(1);
+            }
+        }
+        
+        long wallNanos = System.nanoTime() - startNanos;
+        
+        System.out.printf("%s: %d operations, replayed %d times%n",
+                args[0], lines.size(), repeat);
+        System.out.println();
+        
+        PhaseRecorder.printTable(System.out, replay.phases.values());
+        
+        System.out.println();
+        System.out.printf("wall time       %.1f ms%n", wallNanos / 1e6);
+        System.out.println("pairings and standings match the recording");
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to the replay.                                        *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Replays every line of the recording.
+     * 
+     * @return  a description of the first difference from the recording, or
+     *          null if there was none.
+     * 
+     * @throws  TournamentStateException
+     *          If an operation of the recording fails.
+     */
+    public String replay() throws TournamentStateException {
+        for(int i = 0; i < lines.size(); i++) {
+            String[] fields = lines.get(i).split(
+                    String.valueOf(TournamentEventRecorder.FIELD_SEPARATOR), -1);
+            
+            String mismatch = replayLine(fields);
+            
+            if(mismatch != null) {
+                return "line " + (i + 1) + ": " + mismatch;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Replays a single line of the recording.
+     * 
+     * @param   fields
+     *          the fields of the line.
+     * 
+     * @return  a description of a difference from the recording, or null.
+     * 
+     * @throws  TournamentStateException
+     *          If the operation fails.
+     */
+    private String replayLine(String[] fields) throws TournamentStateException {
+        switch (fields[0]) {
+            case TournamentEventRecorder.SEED:
+                event.setPairingSeed(Long.parseLong(fields[1]));
+                break;
+            
+            case TournamentEventRecorder.ADD:
+                BenchmarkParticipant participant = new BenchmarkParticipant(
+                        TournamentEventRecorder.decode(fields[2]),
+                        TournamentEventRecorder.decode(fields[3]),
+                        TournamentEventRecorder.decode(fields[1]),
+                        event);
+                
+                getPhase(fields[0]).record(() -> event.addParticipant(participant));
+                break;
+            
+            case TournamentEventRecorder.REMOVE:
+                BenchmarkParticipant removed = getParticipant(fields[1]);
+                
+                getPhase(fields[0]).record(() -> event.removeParticipant(removed));
+                break;
+            
+            case TournamentEventRecorder.DEACTIVATE:
+                BenchmarkParticipant deactivated = getParticipant(fields[1]);
+                
+                getPhase(fields[0]).record(
+                        () -> event.deactivateParticipant(deactivated));
+                break;
+            
+            case TournamentEventRecorder.REACTIVATE:
+                BenchmarkParticipant reactivated = getParticipant(fields[1]);
+                
+                getPhase(fields[0]).record(
+                        () -> event.reactivateParticipant(reactivated));
+                break;
+            
+            case TournamentEventRecorder.REGULATION:
+                event.setEliminationStyle(
+                        SegmentEliminationStyle.valueOf(fields[1]));
+                event.setPairingSystem(SegmentPairingSystem.valueOf(fields[2]));
+                event.setMultiplayerOption(
+                        SegmentMultiplayerOption.valueOf(fields[3]));
+                event.setPairingAlgorithm(
+                        SegmentPairingAlgorithm.valueOf(fields[4]));
+                
+                getPhase(fields[0]).record(
+                        () -> event.createRegulationPlaySegment());
+                break;
+            
+            case TournamentEventRecorder.PLAYOFF:
+                event.setPairingAlgorithm(
+                        SegmentPairingAlgorithm.valueOf(fields[4]));
+                
+                getPhase(fields[0]).record(() -> event.createPlayoffPlaySegment(
+                        Integer.parseInt(fields[1]),
+                        SegmentEliminationStyle.valueOf(fields[2]),
+                        SegmentPairingSystem.valueOf(fields[3])));
+                break;
+            
+            case TournamentEventRecorder.ROUND:
+                getPhase(fields[0]).record(() -> event.createNewEventRound());
+                
+                return checkPairings(fields);
+            
+            case TournamentEventRecorder.REMOVE_ROUND:
+                getPhase(fields[0]).record(() -> event.removeCurrentEventRound());
+                break;
+            
+            case TournamentEventRecorder.RESULTS:
+                TournamentMatch<BenchmarkParticipant> match = event
+                        .getRound(Integer.parseInt(fields[1]))
+                        .getRoundMatches().get(Integer.parseInt(fields[2]));
+                ArrayList<Integer> results = new ArrayList<>();
+                
+                if(!fields[3].isEmpty()) {
+                    for(String result : fields[3].split(String.valueOf(
+                            TournamentEventRecorder.VALUE_SEPARATOR))) {
+                        results.add(Integer.parseInt(result));
+                    }
+                }
+                
+                getPhase(fields[0]).record(() -> match.setMatchResults(results));
+                break;
+            
+            case TournamentEventRecorder.STANDINGS:
+                getPhase(fields[0]).record(
+                        () -> standings = event.getAllParticipantsStandings());
+                
+                return checkStandings(fields);
+            
+            default:
+                return "unknown operation " + fields[0];
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Compares the pairings of the current round with the recording.
+     * 
+     * @param   fields
+     *          the fields of the recorded round.
+     * 
+     * @return  a description of the difference, or null.
+     * 
+     * @throws  TournamentStateException
+     *          If the current round cannot be read.
+     */
+    private String checkPairings(String[] fields) throws TournamentStateException {
+        ArrayList<TournamentMatch<BenchmarkParticipant>> matches =
+                event.getCurrentEventRound().getRoundMatches();
+        
+        if(matches.size() != fields.length - 2) {
+            return "round " + fields[1] + " has " + matches.size()
+                    + " matches, recorded " + (fields.length - 2);
+        }
+        
+        for(int i = 0; i < matches.size(); i++) {
+            StringBuilder pairing = new StringBuilder();
+            
+            for(BenchmarkParticipant participant
+                    : matches.get(i).getMatchParticipants()) {
+                if(pairing.length() > 0) {
+                    pairing.append(TournamentEventRecorder.VALUE_SEPARATOR);
+                }
+                
+                pairing.append(TournamentEventRecorder.encode(
+                        participant.getUUID()));
+            }
+            
+            if(!pairing.toString().equals(fields[i + 2])) {
+                return "round " + fields[1] + " match " + i + " paired "
+                        + pairing + ", recorded " + fields[i + 2];
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Compares a standings read with the recording.
+     * 
+     * @param   fields
+     *          the fields of the recorded standings read.
+     * 
+     * @return  a description of the difference, or null.
+     */
+    private String checkStandings(String[] fields) {
+        String digest = Long.toHexString(
+                TournamentEventRecorder.getDigest(standings));
+        
+        if(standings.size() != Integer.parseInt(fields[1])
+                || !digest.equals(fields[2])) {
+            return "standings differ from the recording";
+        }
+        
+        return null;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the recorder of an operation, creating it on first use.
+     * 
+     * @param   operation
+     *          the name of the operation.
+     * 
+     * @return  the PhaseRecorder of the operation.
+     */
+    private PhaseRecorder getPhase(String operation) {
+        return phases.computeIfAbsent(operation, PhaseRecorder::new);
+    }
+    
+    /**
+     * Gets an enrolled participant by an encoded UUID.
+     * 
+     * @param   field
+     *          the encoded UUID.
+     * 
+     * @return  the participant.
+     * 
+     * @throws  TournamentStateException
+     *          If no such participant is enrolled.
+     */
+    private BenchmarkParticipant getParticipant(String field)
+            throws TournamentStateException {
+        return event.getParticipantByUUID(TournamentEventRecorder.decode(field));
+    }
+}
@@ -0,0 +1,123 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import net.offsetleft.tournamentcoordinator.SegmentMultiplayerOption;
+import net.offsetleft.tournamentcoordinator.TournamentEventJournal;
+import net.offsetleft.tournamentcoordinator.TournamentGroupCommitWriter;
+import net.offsetleft.tournamentcoordinator.TournamentMatch;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures making one result durable in each of several journaled events,
+ * either by forcing every journal in turn or through a
+ * TournamentGroupCommitWriter. The journals are written to a temporary
+ * directory, so the results depend on the storage device behind it.
+ * 
+ * @author      agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupCommitBenchmark {
+    
+    private static final int PLAYERS = 64;
+    
+    @Param({"1", "8", "32"})
+    public int events;
+    
+    private Path directory;
+    private TournamentGroupCommitWriter writer;
+    
+    private final ArrayList<BenchmarkEvent> eventList = new ArrayList<>();
+    private final ArrayList<TournamentEventJournal<?, ?, ?>> journals =
+            new ArrayList<>();
+    private final ArrayList<TournamentMatch<BenchmarkParticipant>> matches =
+            new ArrayList<>();
+    
+    @Setup(Level.Trial)
+    public void setupEvents() throws IOException, TournamentStateException {
+        directory = Files.createTempDirectory("group-commit");
+        writer = new TournamentGroupCommitWriter();
+        
+        for(int i = 0; i < events; i++) {
+            BenchmarkEvent event = BenchmarkEvent.createEvent(
+                    SegmentMultiplayerOption.HEADSUP, PLAYERS, 1,
+                    EventBenchmark.SEED + i);
+            
+            eventList.add(event);
+            journals.add(TournamentEventJournal.create(event,
+                    directory.resolve("event-" + i + ".journal")));
+            matches.add(event.getCurrentEventRound().getRoundMatches().get(0));
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void closeEvents() throws IOException {
+        writer.close();
+        
+        for(int i = 0; i < events; i++) {
+            journals.get(i).close();
+            Files.delete(directory.resolve("event-" + i + ".journal"));
+        }
+        
+        Files.delete(directory);
+    }
+    
+    @Benchmark
+    public void syncEach() throws IOException, TournamentStateException {
+        for(int i = 0; i < events; i++) {
+            enterResult(i);
+            journals.get(i).sync();
+        }
+    }
+    
+    @Benchmark
+    public void groupCommit() throws TournamentStateException {
+        ArrayList<CompletableFuture<Long>> durable = new ArrayList<>(events);
+        
+        for(int i = 0; i < events; i++) {
+            enterResult(i);
+            durable.add(writer.sync(journals.get(i)));
+        }
+        
+        for(CompletableFuture<Long> future : durable) {
+            future.join();
+        }
+    }
+    
+    /**
+     * Enters new results for the benchmarked match of an event.
+     * 
+     * @param   index
+     *          the index of the event.
+     * 
+     * @throws  TournamentStateException
+     *          If the results cannot be set.
+     */
+    private void enterResult(int index) throws TournamentStateException {
+        TournamentMatch<BenchmarkParticipant> match = matches.get(index);
+        
+        match.setMatchResults(eventList.get(index).createResults(match));
+    }
+}
@@ -0,0 +1,65 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+import net.offsetleft.tournamentcoordinator.TournamentMatch;
+import net.offsetleft.tournamentcoordinator.TournamentRound;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures TournamentEvent.getParticipantsHavePlayed() over a fixed set of 
+ * participant pairs, half of which have played each other.
+ * 
+ * @author      agent
+ */
+public class HavePlayedBenchmark extends EventBenchmark {
+    
+    private static final int PAIRS = 1024;
+    
+    private final BenchmarkParticipant[] 
+            firstParticipants = new BenchmarkParticipant[PAIRS],
+            secondParticipants = new BenchmarkParticipant[PAIRS];
+    
+    @Override
+    protected void setupBenchmark() throws TournamentStateException {
+        Random random = event.getRandom();
+        ArrayList<BenchmarkParticipant> participants = event.getAllParticipants();
+        ArrayList<TournamentRound<TournamentMatch<BenchmarkParticipant>, 
+                BenchmarkParticipant>> eventRounds = event.getAllEventRounds();
+        
+        for(int i = 0; i < PAIRS; i++) {
+            ArrayList<BenchmarkParticipant> pair = null;
+            
+            if(i % 2 == 0) {
+                ArrayList<TournamentMatch<BenchmarkParticipant>> matches = 
+                        eventRounds.get(random.nextInt(eventRounds.size()))
+                                .getRoundMatches();
+                
+                pair = matches.get(random.nextInt(matches.size()))
+                        .getMatchParticipants();
+            }
+            
+            if(pair == null || pair.size() < 2) {
+                pair = new ArrayList<>();
+                pair.add(participants.get(random.nextInt(participants.size())));
+                pair.add(participants.get(random.nextInt(participants.size())));
+            }
+            
+            firstParticipants[i] = pair.get(0);
+            secondParticipants[i] = pair.get(1);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void getParticipantsHavePlayed(Blackhole blackhole) 
+            throws TournamentStateException {
+        for(int i = 0; i < PAIRS; i++) {
+            blackhole.consume(event.getParticipantsHavePlayed(
+                    firstParticipants[i], secondParticipants[i]));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures TournamentMatch.setMatchResults() on the matches of the current
+ * round. Each invocation replaces the results of one match, so the event
+ * both retracts the old results and records the new ones.
+ * 
+ * @author      agent
+ */
+public class MatchResultsBenchmark extends EventBenchmark {
+    
+    @Benchmark
+    public void setMatchResults() throws TournamentStateException {
+        changeNextResult();
+    }
+}
@@ -0,0 +1,48 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.util.ArrayList;
+import net.offsetleft.tournamentcoordinator.SegmentEliminationStyle;
+import net.offsetleft.tournamentcoordinator.SegmentPairingAlgorithm;
+import net.offsetleft.tournamentcoordinator.SegmentPairingSystem;
+import net.offsetleft.tournamentcoordinator.TournamentMatch;
+import net.offsetleft.tournamentcoordinator.TournamentRound;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures TournamentRound.createRoundMatches() pairing the round after the
+ * last round played. Each invocation pairs a new round from the same
+ * standings. The pairing algorithm only applies to head-up Swiss rounds.
+ * 
+ * @author      agent
+ */
+public class PairingBenchmark extends EventBenchmark {
+    
+    @Param({"GREEDY", "WEIGHTED_MATCHING", "PARALLEL_SCORE_GROUPS"})
+    public SegmentPairingAlgorithm pairingAlgorithm;
+    
+    private ArrayList<BenchmarkParticipant> standings;
+    
+    @Override
+    protected void setupBenchmark() {
+        standings = new ArrayList<>(event.getAllParticipantsStandings());
+    }
+    
+    @Benchmark
+    public ArrayList<TournamentMatch<BenchmarkParticipant>> createRoundMatches() 
+            throws TournamentStateException {
+        TournamentRound<TournamentMatch<BenchmarkParticipant>, 
+                BenchmarkParticipant> round = new TournamentRound<>(
+                        event.getEventRoundCount() + 1, 
+                        standings, 
+                        SegmentEliminationStyle.NONE, 
+                        SegmentPairingSystem.SWISS, 
+                        multiplayerOption, 
+                        pairingAlgorithm);
+        
+        round.createRoundMatches();
+        
+        return round.getRoundMatches();
+    }
+}
@@ -0,0 +1,252 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Records the latency and allocation of every operation of one phase of a
+ * simulated tournament.
+ * 
+ * <p>Allocation is read from the JVM's per-thread allocation counters and
+ * summed over all live threads, so work done on the fork-join pool is 
+ * counted with the operation that started it. Reading the counters 
+ * allocates a little itself; that overhead is measured once and taken off 
+ * every operation.
+ * 
+ * @author      agent
+ */
+public class PhaseRecorder {
+    
+    private static final com.sun.management.ThreadMXBean THREADS = 
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    
+    private static final long COUNTER_OVERHEAD = measureCounterOverhead();
+    
+    private final String phaseName;
+    
+    private long[] latencies = new long[1024];
+    private int count = 0;
+    private long totalNanos = 0;
+    private long totalBytes = 0;
+    
+    /**
+     * Constructs a new recorder for a phase.
+     * 
+     * @param   phaseName 
+     *          the name of the phase.
+     */
+    public PhaseRecorder(String phaseName) {
+        this.phaseName = phaseName;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to recording.                                         *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Runs and records a single operation.
+     * 
+     * @param   operation
+     *          the operation to run.
+     * 
+     * @throws  TournamentStateException 
+     *          If the operation fails.
+     */
+    public void record(Operation operation) throws TournamentStateException {
+        long startBytes = getAllocatedBytes();
+        long startNanos = System.nanoTime();
+        
+        operation.run();
+        
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = getAllocatedBytes() - startBytes - COUNTER_OVERHEAD;
+        
+        if(count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        
+        latencies[count++] = nanos;
+        totalNanos += nanos;
+        totalBytes += Math.max(bytes, 0);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to reporting.                                         *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the name of the phase.
+     * 
+     * @return  the name as a String.
+     */
+    public String getPhaseName() {
+        return phaseName;
+    }
+    
+    /**
+     * Gets the number of operations recorded.
+     * 
+     * @return  the count as an integer.
+     */
+    public int getCount() {
+        return count;
+    }
+    
+    /**
+     * Gets a latency percentile.
+     * 
+     * @param   percentile
+     *          the percentile, from 0 to 100.
+     * 
+     * @return  the latency in nanoseconds, or zero if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if(count == 0) {
+            return 0;
+        }
+        
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        
+        int rank = (int)Math.ceil(percentile / 100.0 * count);
+        
+        return sorted[Math.min(Math.max(rank, 1), count) - 1];
+    }
+    
+    /**
+     * Gets the time spent in the recorded operations.
+     * 
+     * @return  the time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+    
+    /**
+     * Gets the bytes allocated by the recorded operations.
+     * 
+     * @return  the allocation in bytes.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    /**
+     * Gets the rate the recorded operations allocated at while they ran.
+     * 
+     * @return  the allocation rate in bytes per second.
+     */
+    public double getAllocationRate() {
+        if(totalNanos == 0) {
+            return 0;
+        }
+        
+        return totalBytes * 1e9 / totalNanos;
+    }
+    
+    /**
+     * Prints a table of the latency percentiles and allocation of phases.
+     * Phases without operations are left out.
+     * 
+     * @param   out
+     *          the stream to print to.
+     * 
+     * @param   phases
+     *          the phases to print.
+     */
+    public static void printTable(PrintStream out, 
+            Iterable<PhaseRecorder> phases) {
+        out.printf("%-16s %8s %10s %10s %10s %10s %10s %12s %10s%n",
+                "phase", "ops", "p50 us", "p90 us", "p99 us", "p99.9 us",
+                "max us", "alloc/op B", "alloc MB/s");
+        
+        for(PhaseRecorder phase : phases) {
+            if(phase.getCount() == 0) {
+                continue;
+            }
+            
+            out.printf("%-16s %8d %10.1f %10.1f %10.1f %10.1f %10.1f "
+                    + "%12d %10.1f%n",
+                    phase.getPhaseName(),
+                    phase.getCount(),
+                    phase.getPercentile(50) / 1e3,
+                    phase.getPercentile(90) / 1e3,
+                    phase.getPercentile(99) / 1e3,
+                    phase.getPercentile(99.9) / 1e3,
+                    phase.getPercentile(100) / 1e3,
+                    phase.getTotalBytes() / phase.getCount(),
+                    phase.getAllocationRate() / (1024 * 1024));
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the bytes allocated so far by all live threads.
+     * 
+     * @return  the allocation in bytes.
+     */
+    private static long getAllocatedBytes() {
+        long total = 0;
+        
+        for(long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if(bytes > 0) {
+                total += bytes;
+            }
+        }
+        
+        return total;
+    }
+    
+    /**
+     * Measures the bytes allocated by reading the allocation counters.
+     * 
+     * @return  the smallest allocation seen for one read.
+     */
+    private static long measureCounterOverhead() {
+        long overhead = Long.MAX_VALUE;
+        
+        for(int i = 0; i < 1000; i++) {
+            long start = getAllocatedBytes();
+            
+            overhead = Math.min(overhead, getAllocatedBytes() - start);
+        }
+        
+        return overhead;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Operation interface.                                                  *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * An operation of a phase.
+     */
+    public interface Operation {
+        
+        /**
+         * Runs the operation.
+         * 
+         * @throws  TournamentStateException 
+         *          If the operation fails.
+         */
+        void run() throws TournamentStateException;
+    }
+}
@@ -0,0 +1,56 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import net.offsetleft.tournamentcoordinator.PlayoffBracket;
+import net.offsetleft.tournamentcoordinator.SegmentMultiplayerOption;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building a PlayoffBracket and pairing its first round, for cuts
+ * that are and are not a power of two.
+ * 
+ * @author      agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoffBracketBenchmark {
+    
+    @Param({"8", "1000", "1024"})
+    public int seeds;
+    
+    private final ArrayList<BenchmarkParticipant> participants =
+            new ArrayList<>();
+    
+    @Setup(Level.Trial)
+    public void setupParticipants() {
+        BenchmarkEvent event = new BenchmarkEvent(
+                SegmentMultiplayerOption.HEADSUP, EventBenchmark.SEED);
+        
+        for(int i = 0; i < seeds; i++) {
+            participants.add(event.createParticipant());
+        }
+    }
+    
+    @Benchmark
+    public ArrayList<ArrayList<BenchmarkParticipant>> createBracket()
+            throws TournamentStateException {
+        return new PlayoffBracket<>(participants).getRoundPairings(1);
+    }
+}
@@ -0,0 +1,76 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import net.offsetleft.tournamentcoordinator.TournamentSnapshotReader;
+import net.offsetleft.tournamentcoordinator.TournamentSnapshotWriter;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures saving and loading an event as a binary snapshot against saving
+ * and loading it with default Java serialization. Every benchmark works in
+ * memory, so only the cost of the format is measured.
+ * 
+ * @author      agent
+ */
+public class SnapshotBenchmark extends EventBenchmark {
+    
+    private byte[] snapshot, serialized;
+    
+    @Override
+    protected void setupBenchmark() throws TournamentStateException {
+        try {
+            snapshot = writeSnapshot();
+            serialized = writeSerialized();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    @Benchmark
+    public byte[] writeSnapshot() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        try (TournamentSnapshotWriter writer = new TournamentSnapshotWriter(output)) {
+            writer.write(event);
+        }
+        
+        return output.toByteArray();
+    }
+    
+    @Benchmark
+    public BenchmarkEvent readSnapshot()
+            throws IOException, TournamentStateException {
+        BenchmarkEvent loaded = new BenchmarkEvent(multiplayerOption, SEED);
+        
+        try (TournamentSnapshotReader reader = new TournamentSnapshotReader(
+                new ByteArrayInputStream(snapshot))) {
+            reader.read(loaded, BenchmarkParticipant::new);
+        }
+        
+        return loaded;
+    }
+    
+    @Benchmark
+    public byte[] writeSerialized() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        try (ObjectOutputStream writer = new ObjectOutputStream(output)) {
+            writer.writeObject(event);
+        }
+        
+        return output.toByteArray();
+    }
+    
+    @Benchmark
+    public Object readSerialized() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream reader = new ObjectInputStream(
+                new ByteArrayInputStream(serialized))) {
+            return reader.readObject();
+        }
+    }
+}
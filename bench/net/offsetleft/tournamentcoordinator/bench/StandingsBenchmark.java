@@ -0,0 +1,28 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.util.ArrayList;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures TournamentEvent.getAllParticipantsStandings(), both when nothing
+ * has changed since the last call and right after a single result has been
+ * changed.
+ * 
+ * @author      agent
+ */
+public class StandingsBenchmark extends EventBenchmark {
+    
+    @Benchmark
+    public ArrayList<BenchmarkParticipant> getAllParticipantsStandings() {
+        return event.getAllParticipantsStandings();
+    }
+    
+    @Benchmark
+    public ArrayList<BenchmarkParticipant> getAllParticipantsStandingsAfterResult() 
+            throws TournamentStateException {
+        changeNextResult();
+        
+        return event.getAllParticipantsStandings();
+    }
+}
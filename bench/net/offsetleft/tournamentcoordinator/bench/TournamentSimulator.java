@@ -0,0 +1,472 @@
+package net.offsetleft.tournamentcoordinator.bench;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import net.offsetleft.tournamentcoordinator.SegmentEliminationStyle;
+import net.offsetleft.tournamentcoordinator.SegmentMultiplayerOption;
+import net.offsetleft.tournamentcoordinator.SegmentPairingAlgorithm;
+import net.offsetleft.tournamentcoordinator.SegmentPairingSystem;
+import net.offsetleft.tournamentcoordinator.TournamentEventRecorder;
+import net.offsetleft.tournamentcoordinator.TournamentMatch;
+import net.offsetleft.tournamentcoordinator.TournamentRound;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * A headless driver that runs a whole simulated tournament and reports how
+ * long each phase took, how much it allocated and how large the heap grew.
+ * 
+ * <p>The simulator enrolls the participants, plays the Swiss rounds of
+ * regulation play, refreshing the standings as results come in, then cuts
+ * to the top participants and plays out a single elimination playoff.
+ * Results are either drawn at random or weighted by a hidden skill rating
+ * given to every participant. Everything random is drawn from the seed, so
+ * a run can be repeated exactly; the digest printed at the end is the same
+ * for every run with the same arguments.
+ * 
+ * <p>Usage: TournamentSimulator [-players n] [-rounds n] [-cut n]
+ * [-seed n] [-results random|skill] [-refresh n] [-option HEADSUP|MULTIPLAYER]
+ * [-algorithm GREEDY|WEIGHTED_MATCHING|PARALLEL_SCORE_GROUPS]
+ * [-record file]
+ * 
+ * <p>The number of rounds defaults to the base two logarithm of the number
+ * of participants, rounded up. The cut must be at least two, or zero to
+ * skip the playoff; the top seeds get byes when it is not a power of two.
+ * Playoffs are only played head-up. A run can be recorded for EventReplay;
+ * the time spent recording then counts towards each phase.
+ * 
+ * @author      agent
+ */
+public class TournamentSimulator {
+    
+    //Skill Model
+    private static final double SKILL_MEAN = 1500;
+    private static final double SKILL_DEVIATION = 200;
+    private static final double GAME_DRAW_CHANCE = 0.03;
+    
+    //Simulation Settings
+    private int players = 10000;
+    private int rounds = -1;
+    private int cut = 64;
+    private long seed = 1;
+    private boolean skillResults = true;
+    private int refreshInterval = 250;
+    private SegmentMultiplayerOption multiplayerOption =
+            SegmentMultiplayerOption.HEADSUP;
+    private SegmentPairingAlgorithm pairingAlgorithm = null;
+    private String recordingPath = null;
+    
+    //Simulation State
+    private BenchmarkEvent event;
+    private Random random;
+    private final IdentityHashMap<BenchmarkParticipant, Double> skills =
+            new IdentityHashMap<>();
+    private int resultsSinceRefresh = 0;
+    
+    //Phases
+    private final PhaseRecorder registration = new PhaseRecorder("registration");
+    private final PhaseRecorder pairing = new PhaseRecorder("pairing");
+    private final PhaseRecorder results = new PhaseRecorder("results");
+    private final PhaseRecorder standings = new PhaseRecorder("standings");
+    private final PhaseRecorder playoffPairing = new PhaseRecorder("playoff pairing");
+    private final PhaseRecorder playoffResults = new PhaseRecorder("playoff results");
+    
+    /**
+     * Runs the simulator.
+     * 
+     * @param   args
+     *          the command line arguments.
+     * 
+     * @throws  TournamentStateException
+     *          If the simulated event fails.
+     * 
+     * @throws  IOException
+     *          If the recording cannot be written.
+     */
+    public static void main(String[] args) 
+            throws TournamentStateException, IOException {
+        TournamentSimulator simulator = new TournamentSimulator();
+        
+        simulator.parseArguments(args);
+        simulator.run();
+    }
+    
+    /**
+     * Reads the command line arguments.
+     * 
+     * @param   args
+     *          the command line arguments.
+     */
+    private void parseArguments(String[] args) {
+        for(int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            
+            switch (args[i]) {
+                case "-players":
+                    players = Integer.parseInt(value);
+                    break;
+                case "-rounds":
+                    rounds = Integer.parseInt(value);
+                    break;
+                case "-cut":
+                    cut = Integer.parseInt(value);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "-results":
+                    skillResults = value.equals("skill");
+                    break;
+                case "-refresh":
+                    refreshInterval = Integer.parseInt(value);
+                    break;
+                case "-option":
+                    multiplayerOption = SegmentMultiplayerOption.valueOf(value);
+                    break;
+                case "-algorithm":
+                    pairingAlgorithm = SegmentPairingAlgorithm.valueOf(value);
+                    break;
+                case "-record":
+                    recordingPath = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown argument: " + args[i]);
+            }
+        }
+        
+        if(rounds < 0) {
+            rounds = 32 - Integer.numberOfLeadingZeros(Math.max(players - 1, 1));
+        }
+        
+        if(cut != 0 && (cut < 2 || cut > players)) {
+            throw new IllegalArgumentException(
+                    "The cut must be at least two and no larger than the field.");
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to the simulation.                                    *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Runs the simulated event and prints the report.
+     * 
+     * @throws  TournamentStateException
+     *          If the simulated event fails.
+     * 
+     * @throws  IOException
+     *          If the recording cannot be written.
+     */
+    private void run() throws TournamentStateException, IOException {
+        resetPeakHeap();
+        
+        long startNanos = System.nanoTime();
+        
+        event = new BenchmarkEvent(multiplayerOption, seed);
+        random = new Random(seed);
+        
+        if(pairingAlgorithm != null) {
+            event.setPairingAlgorithm(pairingAlgorithm);
+        }
+        
+        pairingAlgorithm = event.getPairingAlgorithm();
+        
+        TournamentEventRecorder<TournamentRound<TournamentMatch<BenchmarkParticipant>, 
+                BenchmarkParticipant>, TournamentMatch<BenchmarkParticipant>, 
+                BenchmarkParticipant> recorder = null;
+        
+        if(recordingPath != null) {
+            recorder = new TournamentEventRecorder<>(event, 
+                    new BufferedWriter(new FileWriter(recordingPath)), 
+                    event.getPairingSeed());
+        }
+        
+        for(int i = 0; i < players; i++) {
+            BenchmarkParticipant participant = event.createParticipant();
+            
+            skills.put(participant,
+                    SKILL_MEAN + SKILL_DEVIATION * random.nextGaussian());
+            
+            registration.record(() -> event.addParticipant(participant));
+        }
+        
+        event.createRegulationPlaySegment();
+        
+        for(int i = 0; i < rounds; i++) {
+            pairing.record(() -> event.createNewEventRound());
+            
+            enterResults(results, false);
+            
+            standings.record(() -> event.getAllParticipantsStandings());
+            resultsSinceRefresh = 0;
+        }
+        
+        BenchmarkParticipant champion = null;
+        
+        if(cut > 0 && multiplayerOption == SegmentMultiplayerOption.HEADSUP) {
+            champion = playPlayoff();
+        }
+        
+        long wallNanos = System.nanoTime() - startNanos;
+        
+        if(recorder != null) {
+            recorder.close();
+        }
+        
+        printReport(wallNanos, champion);
+    }
+    
+    /**
+     * Cuts to the top participants and plays a single elimination playoff
+     * until one participant is left.
+     * 
+     * @return  the winner of the playoff.
+     * 
+     * @throws  TournamentStateException
+     *          If the playoff fails.
+     */
+    private BenchmarkParticipant playPlayoff()
+            throws TournamentStateException {
+        // The playoff bracket is seeded, so it is paired in seed order rather
+        // than by match points.
+        event.setPairingAlgorithm(SegmentPairingAlgorithm.GREEDY);
+        event.createPlayoffPlaySegment(cut,
+                SegmentEliminationStyle.SINGLE, SegmentPairingSystem.SWISS);
+        
+        int playoffRounds = event.getPlayoffPlaySegment()
+                .getPlayoffBracket().getRoundCount();
+        
+        for(int round = 0; round < playoffRounds; round++) {
+            playoffPairing.record(() -> event.createNewEventRound());
+            
+            enterResults(playoffResults, true);
+        }
+        
+        for(TournamentMatch<BenchmarkParticipant> match
+                : event.getCurrentEventRound().getRoundMatches()) {
+            for(BenchmarkParticipant participant : match.getMatchParticipants()) {
+                if(match.getParticipantMatchPoints(participant) > 0) {
+                    return participant;
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Enters results for every match of the current round, refreshing the
+     * standings every refreshInterval results.
+     * 
+     * @param   recorder
+     *          the recorder of the results phase.
+     * 
+     * @param   decisive
+     *          if every match must have a winner.
+     * 
+     * @throws  TournamentStateException
+     *          If the results cannot be entered.
+     */
+    private void enterResults(PhaseRecorder recorder, boolean decisive)
+            throws TournamentStateException {
+        for(TournamentMatch<BenchmarkParticipant> match
+                : event.getCurrentEventRound().getRoundMatches()) {
+            if(BenchmarkEvent.getIsBye(match)) {
+                continue;
+            }
+            
+            ArrayList<Integer> matchResults = createResults(match, decisive);
+            
+            recorder.record(() -> match.setMatchResults(matchResults));
+            
+            if(!decisive && refreshInterval > 0
+                    && ++resultsSinceRefresh >= refreshInterval) {
+                standings.record(() -> event.getAllParticipantsStandings());
+                resultsSinceRefresh = 0;
+            }
+        }
+    }
+    
+    /**
+     * Creates results for a match.
+     * 
+     * @param   match
+     *          the match to create results for.
+     * 
+     * @param   decisive
+     *          if the match must have a winner.
+     * 
+     * @return  the results.
+     */
+    private ArrayList<Integer> createResults(
+            TournamentMatch<BenchmarkParticipant> match, boolean decisive) {
+        ArrayList<BenchmarkParticipant> participants = match.getMatchParticipants();
+        
+        if(match.getMultiplayerOption() == SegmentMultiplayerOption.MULTIPLAYER) {
+            return createMultiplayerResults(participants);
+        }
+        
+        double skillA = skillResults ? skills.get(participants.get(0)) : 0;
+        double skillB = skillResults ? skills.get(participants.get(1)) : 0;
+        double winChance = 1 / (1 + Math.pow(10, (skillB - skillA) / 400));
+        
+        int winsA = 0, winsB = 0, draws = 0;
+        
+        // Best of three games, played past three until someone wins two
+        // when the match must have a winner.
+        while(winsA < 2 && winsB < 2
+                && (winsA + winsB + draws < 3 || (decisive && winsA == winsB))) {
+            if(!decisive && random.nextDouble() < GAME_DRAW_CHANCE) {
+                draws++;
+            } else if(random.nextDouble() < winChance) {
+                winsA++;
+            } else {
+                winsB++;
+            }
+        }
+        
+        ArrayList<Integer> matchResults = new ArrayList<>();
+        
+        matchResults.add(winsA);
+        matchResults.add(winsB);
+        matchResults.add(draws);
+        
+        return matchResults;
+    }
+    
+    /**
+     * Creates the places of a multi-player match. Each participant performs
+     * at their skill plus noise, and the best performance takes first place.
+     * 
+     * @param   participants
+     *          the participants of the match.
+     * 
+     * @return  the place of each participant.
+     */
+    private ArrayList<Integer> createMultiplayerResults(
+            ArrayList<BenchmarkParticipant> participants) {
+        int size = participants.size();
+        double[] performance = new double[size];
+        ArrayList<Integer> order = new ArrayList<>();
+        
+        for(int i = 0; i < size; i++) {
+            double skill = skillResults ? skills.get(participants.get(i)) : 0;
+            
+            performance[i] = skill + SKILL_DEVIATION * random.nextGaussian();
+            order.add(i);
+        }
+        
+        order.sort(Comparator.comparingDouble((Integer i) -> -performance[i]));
+        
+        ArrayList<Integer> matchResults = new ArrayList<>();
+        
+        for(int i = 0; i < size; i++) {
+            matchResults.add(order.indexOf(i) + 1);
+        }
+        
+        return matchResults;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to reporting.                                         *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Prints the report of the run.
+     * 
+     * @param   wallNanos
+     *          the time the whole run took.
+     * 
+     * @param   champion
+     *          the winner of the playoff, or null.
+     */
+    private void printReport(long wallNanos, BenchmarkParticipant champion) {
+        System.out.printf("players=%d rounds=%d cut=%d seed=%d results=%s "
+                + "option=%s algorithm=%s%n",
+                players, rounds, cut, seed,
+                skillResults ? "skill" : "random",
+                multiplayerOption.name(), pairingAlgorithm.name());
+        System.out.println();
+        
+        PhaseRecorder.printTable(System.out, Arrays.asList(registration, 
+                pairing, results, standings, playoffPairing, playoffResults));
+        
+        System.out.println();
+        System.out.printf("wall time       %.1f s%n", wallNanos / 1e9);
+        System.out.printf("peak heap       %.1f MB%n",
+                getPeakHeap() / (1024.0 * 1024.0));
+        
+        if(champion != null) {
+            System.out.printf("champion        %s%n", champion.getUUID());
+        }
+        
+        System.out.printf("digest          %016x%n", getDigest());
+    }
+    
+    /**
+     * Gets a digest of the final standings and the pairings of every round.
+     * Two runs with the same digest paired and finished the same way.
+     * 
+     * @return  the digest.
+     */
+    private long getDigest() {
+        long digest = 17;
+        
+        for(BenchmarkParticipant participant : event.getAllParticipantsStandings()) {
+            digest = digest * 31 + participant.getUUID().hashCode();
+        }
+        
+        for(TournamentMatch<BenchmarkParticipant> match
+                : event.getAllEventMatches()) {
+            for(BenchmarkParticipant participant : match.getMatchParticipants()) {
+                digest = digest * 31 + participant.getUUID().hashCode();
+            }
+        }
+        
+        return digest;
+    }
+    
+    /**
+     * Resets the peak usage of the heap memory pools.
+     */
+    private static void resetPeakHeap() {
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+    
+    /**
+     * Gets the peak heap usage since the last reset, summed over the heap
+     * memory pools.
+     * 
+     * @return  the peak heap usage in bytes.
+     */
+    private static long getPeakHeap() {
+        long peak = 0;
+        
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if(pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        
+        return peak;
+    }
+}
@@ -0,0 +1,429 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.offsetleft.tournamentcoordinator.exceptions.EventStateException;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Runs many events in one process, giving each event a mailbox of tasks
+ * that are run one at a time, in the order they were submitted. The
+ * mailboxes share one pool of threads, so independent events make progress
+ * in parallel while every operation on a single event happens on one thread
+ * at a time and never waits for the locks of the event.
+ * 
+ * <p>A mailbox holds no thread of its own. When a task arrives at an idle
+ * mailbox, the mailbox is scheduled on the pool and runs its tasks until it
+ * is empty, handing its thread back after a batch of tasks so that a busy
+ * event cannot hold a thread away from the others.
+ * 
+ * <p>The standings snapshot of a hosted event is republished through its
+ * mailbox, so display screens can read TournamentEvent.getStandingsSnapshot()
+ * directly while the event is only ever changed through submit().
+ * 
+ * @author      agent
+ */
+public final class EventHost implements Closeable {
+    
+    private static final int BATCH_SIZE = 64;
+    
+    private final ForkJoinPool pool;
+    private final ConcurrentHashMap<String, HostedEvent<?>> hostedEvents =
+            new ConcurrentHashMap<>();
+    private volatile boolean closed;
+    
+    /**
+     * Constructs a host with one thread for each available processor.
+     */
+    public EventHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructs a host.
+     * 
+     * @param   parallelism
+     *          the number of events that may run tasks at the same time.
+     */
+    public EventHost(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to hosted events.                                     *
+     *   - Getters                                                            *
+     *   - Setters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Starts hosting an event. From then on the event should only be changed
+     * through the returned handle.
+     * 
+     * @param   <E>
+     *          the class of the event.
+     * 
+     * @param   eventId
+     *          the identifier to host the event under.
+     * 
+     * @param   event
+     *          the event to host.
+     * 
+     * @return  the handle of the hosted event.
+     * 
+     * @throws  TournamentStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the host is closed.</li>
+     *              <li>an event is already hosted under the identifier.</li>
+     *          </ul>
+     */
+    public <E extends TournamentEvent<?, ?, ?, ?>> HostedEvent<E> host(
+            String eventId, E event) throws TournamentStateException {
+        if(closed) {
+            throw new EventStateException("Host is closed.");
+        }
+        
+        HostedEvent<E> hostedEvent = new HostedEvent<>(this, eventId, event);
+        
+        if(hostedEvents.putIfAbsent(eventId, hostedEvent) != null) {
+            throw new EventStateException("An event is already hosted as "
+                    + eventId + ".");
+        }
+        
+        event.setStandingsExecutor(hostedEvent::enqueue);
+        
+        return hostedEvent;
+    }
+    
+    /**
+     * Gets a hosted event.
+     * 
+     * @param   eventId
+     *          the identifier of the event.
+     * 
+     * @return  the handle of the hosted event.
+     * 
+     * @throws  TournamentStateException
+     *          If no event is hosted under the identifier.
+     */
+    public HostedEvent<?> getHostedEvent(String eventId)
+            throws TournamentStateException {
+        HostedEvent<?> hostedEvent = hostedEvents.get(eventId);
+        
+        if(hostedEvent == null) {
+            throw new EventStateException("No event is hosted as "
+                    + eventId + ".");
+        }
+        
+        return hostedEvent;
+    }
+    
+    /**
+     * Gets every hosted event.
+     * 
+     * @return  an unmodifiable collection of the hosted events.
+     */
+    public Collection<HostedEvent<?>> getHostedEvents() {
+        return Collections.unmodifiableCollection(
+                new ArrayList<>(hostedEvents.values()));
+    }
+    
+    /**
+     * Stops hosting an event. Tasks already submitted still run, while tasks
+     * submitted afterwards fail.
+     * 
+     * @param   eventId
+     *          the identifier of the event.
+     * 
+     * @throws  TournamentStateException
+     *          If no event is hosted under the identifier.
+     */
+    public void remove(String eventId) throws TournamentStateException {
+        HostedEvent<?> hostedEvent = hostedEvents.remove(eventId);
+        
+        if(hostedEvent == null) {
+            throw new EventStateException("No event is hosted as "
+                    + eventId + ".");
+        }
+        
+        hostedEvent.closed = true;
+        hostedEvent.event.setStandingsExecutor(null);
+    }
+    
+    /**
+     * Stops accepting tasks, waits for every task already submitted to run
+     * and stops the threads of the host.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        
+        for(HostedEvent<?> hostedEvent : hostedEvents.values()) {
+            hostedEvent.closed = true;
+        }
+        
+        for(HostedEvent<?> hostedEvent : hostedEvents.values()) {
+            while(hostedEvent.getQueueDepth() > 0) {
+                pool.awaitQuiescence(10, TimeUnit.MILLISECONDS);
+            }
+            
+            hostedEvent.event.setStandingsExecutor(null);
+        }
+        
+        hostedEvents.clear();
+        pool.shutdown();
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Nested classes.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * A task run against a hosted event.
+     * 
+     * @param   <E>
+     *          the class of the event.
+     * 
+     * @param   <T>
+     *          the class of the result of the task.
+     */
+    @FunctionalInterface
+    public interface EventTask<E, T> {
+        
+        /**
+         * Runs the task.
+         * 
+         * @param   event
+         *          the event to run against.
+         * 
+         * @return  the result of the task.
+         * 
+         * @throws  TournamentStateException
+         *          If the task cannot be performed on the event.
+         */
+        T run(E event) throws TournamentStateException;
+    }
+    
+    /**
+     * An event run by an EventHost, with the mailbox its tasks wait in and
+     * the statistics of its tasks.
+     * 
+     * @param   <E>
+     *          the class of the event.
+     */
+    public static final class HostedEvent<E extends TournamentEvent<?, ?, ?, ?>> {
+        
+        private final EventHost host;
+        private final String eventId;
+        private final E event;
+        
+        private final ConcurrentLinkedQueue<Runnable> mailbox =
+                new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        
+        //Task Statistics, written only by the task running the mailbox
+        private volatile long completedTaskCount;
+        private volatile long totalLatency;
+        private volatile long maxLatency;
+        
+        /**
+         * Constructs a hosted event.
+         * 
+         * @param   host
+         *          the host running the event.
+         * 
+         * @param   eventId
+         *          the identifier of the event.
+         * 
+         * @param   event
+         *          the event.
+         */
+        private HostedEvent(EventHost host, String eventId, E event) {
+            this.host = host;
+            this.eventId = eventId;
+            this.event = event;
+        }
+        
+        /**
+         * Gets the identifier the event is hosted under.
+         * 
+         * @return  the identifier.
+         */
+        public String getEventId() {
+            return this.eventId;
+        }
+        
+        /**
+         * Gets the event. Only methods that are safe to call from any thread,
+         * such as getStandingsSnapshot(), should be called on it directly.
+         * 
+         * @return  the event.
+         */
+        public E getEvent() {
+            return this.event;
+        }
+        
+        /**
+         * Submits a task to run against the event after every task submitted
+         * before it.
+         * 
+         * @param   <T>
+         *          the class of the result of the task.
+         * 
+         * @param   task
+         *          the task to run.
+         * 
+         * @return  a future completed with the result of the task, or with
+         *          the exception it threw.
+         */
+        public <T> CompletableFuture<T> submit(EventTask<? super E, T> task) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            
+            if(closed) {
+                future.completeExceptionally(new EventStateException(
+                        "Event " + eventId + " is no longer hosted."));
+                return future;
+            }
+            
+            long submitted = System.nanoTime();
+            
+            enqueue(() -> {
+                try {
+                    future.complete(task.run(event));
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+                
+                recordLatency(System.nanoTime() - submitted);
+            });
+            
+            return future;
+        }
+        
+        /**
+         * Gets the number of tasks waiting in the mailbox or running.
+         * 
+         * @return  the queue depth.
+         */
+        public int getQueueDepth() {
+            return this.queueDepth.get();
+        }
+        
+        /**
+         * Gets the number of submitted tasks that have run.
+         * 
+         * @return  the completed task count.
+         */
+        public long getCompletedTaskCount() {
+            return this.completedTaskCount;
+        }
+        
+        /**
+         * Gets the average time from submitting a task to its completion.
+         * 
+         * @return  the average latency in nanoseconds, or zero if no task has
+         *          run.
+         */
+        public long getAverageLatencyNanos() {
+            long count = this.completedTaskCount;
+            
+            return (count == 0) ? 0 : this.totalLatency / count;
+        }
+        
+        /**
+         * Gets the longest time from submitting a task to its completion.
+         * 
+         * @return  the longest latency in nanoseconds.
+         */
+        public long getMaxLatencyNanos() {
+            return this.maxLatency;
+        }
+        
+        /**
+         * Adds a task to the mailbox and schedules the mailbox if it is idle.
+         * 
+         * @param   task
+         *          the task to add.
+         */
+        private void enqueue(Runnable task) {
+            queueDepth.incrementAndGet();
+            mailbox.add(task);
+            schedule();
+        }
+        
+        /**
+         * Schedules the mailbox on the pool of the host unless it is already
+         * scheduled.
+         */
+        private void schedule() {
+            if(!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+                host.pool.execute(this::runTasks);
+            }
+        }
+        
+        /**
+         * Runs a batch of tasks from the mailbox, then schedules the mailbox
+         * again if tasks are left. A task that throws, such as a standings 
+         * republication, which is not wrapped like a submitted task, is 
+         * logged and the mailbox goes on with the next one.
+         */
+        private void runTasks() {
+            try {
+                for(int i = 0; i < BATCH_SIZE; i++) {
+                    Runnable task = mailbox.poll();
+                    
+                    if(task == null) {
+                        break;
+                    }
+                    
+                    try {
+                        task.run();
+                    } catch (Throwable ex) {
+                        Logger.getLogger(EventHost.class.getName())
+                                .log(Level.SEVERE, null, ex);
+                    } finally {
+                        queueDepth.decrementAndGet();
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                schedule();
+            }
+        }
+        
+        /**
+         * Records the latency of a submitted task.
+         * 
+         * @param   latency
+         *          the latency in nanoseconds.
+         */
+        private void recordLatency(long latency) {
+            totalLatency += latency;
+            completedTaskCount++;
+            
+            if(latency > maxLatency) {
+                maxLatency = latency;
+            }
+        }
+    }
+}
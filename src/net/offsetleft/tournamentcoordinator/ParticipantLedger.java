@@ -0,0 +1,609 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Keeps running totals for every participant that has played in an event so
+ * that point, game and loss lookups do not have to rescan every event match.
+ * 
+ * <p>The ledger is updated once when a round is added to or removed from the
+ * event and once each time a match's results change. Alongside the totals the
+ * ledger keeps each participant's match history in round order and opponent
+ * history, and counts how many times every pair of participants has been
+ * matched, so that a rematch check during pairing is a single lookup.
+ * 
+ * <p>Each participant is given a dense integer slot the first time the ledger
+ * sees it, either when it is added to the event or when it first appears in a
+ * match. Totals and opponent histories are stored in primitive arrays indexed
+ * by slot, which keeps full-field scans such as the standings calculation to
+ * a walk over a few contiguous arrays.
+ * 
+ * <p>Each slot also keeps running sums of its match points along its match
+ * history, so the points a participant had after any number of matches are
+ * read in constant time. A result change only has to adjust the sums from
+ * that match onwards, which is usually just the last entry.
+ * 
+ * @param       <M>
+ *              a class that extends TournamentMatch.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+final class ParticipantLedger <M extends TournamentMatch<P>,
+        P extends TournamentParticipant<P>> implements Serializable {
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    //Participant Slots
+    private final HashMap<P, Integer> participantSlots = new HashMap<>();
+    private final ArrayList<P> slotParticipants = new ArrayList<>();
+    
+    //Slot Match Histories
+    private final ArrayList<ArrayList<M>> slotMatches = new ArrayList<>();
+    private final ArrayList<List<M>> slotMatchViews = new ArrayList<>();
+    
+    //Slot Opponent Histories
+    private int[][] opponentSlots = new int[INITIAL_CAPACITY][];
+    private int[] opponentCounts = new int[INITIAL_CAPACITY];
+    
+    //Slot Pair Match Counts, keyed by the lower slot in the high 32 bits and
+    //the higher slot in the low 32 bits
+    private final HashMap<Long, Integer> pairCounts = new HashMap<>();
+    
+    //Slot Totals
+    private int[] matchPoints = new int[INITIAL_CAPACITY];
+    private int[] gamePoints = new int[INITIAL_CAPACITY];
+    private int[] gamesPlayed = new int[INITIAL_CAPACITY];
+    private int[] lossCounts = new int[INITIAL_CAPACITY];
+    private int[] byeCounts = new int[INITIAL_CAPACITY];
+    
+    //Slot Match Point Sums, where entry k holds the points of the first k
+    //matches of the slot's history
+    private int[][] pointSums = new int[INITIAL_CAPACITY][];
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to participant slots.                                 *
+     *   - Getters                                                            *
+     *   - Creators                                                           *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the slot of a participant, assigning the next free slot if the
+     * participant has not been seen before.
+     * 
+     * @param   participant
+     *          the participant to get a slot for.
+     * 
+     * @return  the participant's slot.
+     */
+    int getOrCreateSlot(P participant) {
+        Integer slot = participantSlots.get(participant);
+        
+        if(slot != null) {
+            return slot;
+        }
+        
+        int newSlot = slotParticipants.size();
+        
+        if(newSlot == matchPoints.length) {
+            int capacity = newSlot * 2;
+            
+            opponentSlots = Arrays.copyOf(opponentSlots, capacity);
+            opponentCounts = Arrays.copyOf(opponentCounts, capacity);
+            matchPoints = Arrays.copyOf(matchPoints, capacity);
+            gamePoints = Arrays.copyOf(gamePoints, capacity);
+            gamesPlayed = Arrays.copyOf(gamesPlayed, capacity);
+            lossCounts = Arrays.copyOf(lossCounts, capacity);
+            byeCounts = Arrays.copyOf(byeCounts, capacity);
+            pointSums = Arrays.copyOf(pointSums, capacity);
+        }
+        
+        ArrayList<M> matches = new ArrayList<>();
+        
+        participantSlots.put(participant, newSlot);
+        slotParticipants.add(participant);
+        slotMatches.add(matches);
+        slotMatchViews.add(Collections.unmodifiableList(matches));
+        opponentSlots[newSlot] = new int[4];
+        pointSums[newSlot] = new int[5];
+        
+        return newSlot;
+    }
+    
+    /**
+     * Gets the slot of a participant.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the participant's slot, or -1 if the ledger has not seen it.
+     */
+    int getSlot(P participant) {
+        Integer slot = participantSlots.get(participant);
+        
+        return slot == null ? -1 : slot;
+    }
+    
+    /**
+     * Gets the number of slots that have been assigned.
+     * 
+     * @return  the slot count as an integer.
+     */
+    int getSlotCount() {
+        return slotParticipants.size();
+    }
+    
+    /**
+     * Gets the participant assigned to a slot.
+     * 
+     * @param   slot
+     *          the slot to check.
+     * 
+     * @return  the participant in the slot.
+     */
+    P getSlotParticipant(int slot) {
+        return slotParticipants.get(slot);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to ledger rounds and matches.                         *
+     *   - Mutators                                                           *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Adds every match of the round to the ledger.
+     * 
+     * @param   round
+     *          the round that was added to the event.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of a match cannot be read.
+     */
+    void addRound(TournamentRound<M, P> round) throws TournamentStateException {
+        for(M match : round.getRoundMatches()) {
+            addMatch(match);
+        }
+    }
+    
+    /**
+     * Removes every match of the round from the ledger.
+     * 
+     * @param   round
+     *          the round that was removed from the event.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of a match cannot be read.
+     */
+    void removeRound(TournamentRound<M, P> round) throws TournamentStateException {
+        for(M match : round.getRoundMatches()) {
+            removeMatch(match);
+        }
+    }
+    
+    /**
+     * Adds a match, and its results if it has any, to the ledger.
+     * 
+     * @param   match
+     *          the match to add.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the match cannot be read.
+     */
+    void addMatch(M match) throws TournamentStateException {
+        ArrayList<P> participants = match.getMatchParticipants();
+        boolean bye = participants.size() == 1;
+        
+        for(P participant : participants) {
+            int slot = getOrCreateSlot(participant);
+            ArrayList<M> matches = slotMatches.get(slot);
+            
+            matches.add(match);
+            byeCounts[slot] += bye ? 1 : 0;
+            
+            int count = matches.size();
+            
+            if(count == pointSums[slot].length) {
+                pointSums[slot] = Arrays.copyOf(pointSums[slot], count * 2);
+            }
+            
+            pointSums[slot][count] = pointSums[slot][count - 1];
+            
+            for(P opponent : participants) {
+                if(opponent != participant) {
+                    addOpponent(slot, getOrCreateSlot(opponent));
+                }
+            }
+        }
+        
+        addMatchResults(match);
+    }
+    
+    /**
+     * Removes a match, and its results if it has any, from the ledger.
+     * 
+     * @param   match
+     *          the match to remove.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the match cannot be read.
+     */
+    void removeMatch(M match) throws TournamentStateException {
+        removeMatchResults(match);
+        
+        ArrayList<P> participants = match.getMatchParticipants();
+        boolean bye = participants.size() == 1;
+        
+        for(P participant : participants) {
+            int slot = getOrCreateSlot(participant);
+            ArrayList<M> matches = slotMatches.get(slot);
+            int index = matches.lastIndexOf(match);
+            int count = matches.size();
+            
+            // The match no longer adds points, so the sums after it only 
+            // have to move down one entry.
+            System.arraycopy(pointSums[slot], index + 2, 
+                    pointSums[slot], index + 1, count - index - 1);
+            
+            matches.remove(index);
+            byeCounts[slot] -= bye ? 1 : 0;
+            
+            for(P opponent : participants) {
+                if(opponent != participant) {
+                    removeOpponent(slot, getOrCreateSlot(opponent));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Adds the current results of a match to the running totals.
+     * 
+     * @param   match
+     *          the match whose results were set.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the match cannot be read.
+     */
+    void addMatchResults(M match) throws TournamentStateException {
+        applyMatchResults(match, 1);
+    }
+    
+    /**
+     * Removes the current results of a match from the running totals.
+     * 
+     * @param   match
+     *          the match whose results are about to change.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the match cannot be read.
+     */
+    void removeMatchResults(M match) throws TournamentStateException {
+        applyMatchResults(match, -1);
+    }
+    
+    /**
+     * Subroutine reducing code redundancy in addMatchResults() and
+     * removeMatchResults().
+     * 
+     * @param   match
+     *          the match to apply.
+     * 
+     * @param   sign
+     *          1 to add the results, -1 to remove them.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the match cannot be read.
+     */
+    private void applyMatchResults(M match, int sign) throws TournamentStateException {
+        if(!match.getMatchHasResults()) {
+            return;
+        }
+        
+        boolean countsLosses = match.getCountsLosses();
+        int matchGamesPlayed = match.getGamesPlayedTotal();
+        
+        for(P participant : match.getMatchParticipants()) {
+            int slot = getOrCreateSlot(participant);
+            int participantMatchPoints = match.getParticipantMatchPoints(participant);
+            
+            matchPoints[slot] += sign * participantMatchPoints;
+            gamePoints[slot] += sign * match.getParticipantGamePoints(participant);
+            addPointSums(slot, match, sign * participantMatchPoints);
+            gamesPlayed[slot] += sign * matchGamesPlayed;
+            
+            if(countsLosses && participantMatchPoints == 0) {
+                lossCounts[slot] += sign;
+            }
+        }
+    }
+    
+    /**
+     * Adds match points to the sums of a slot from a match onwards.
+     * 
+     * @param   slot
+     *          the slot whose sums to adjust.
+     * 
+     * @param   match
+     *          the match in the slot's history that the points came from.
+     * 
+     * @param   points
+     *          the points to add, which may be negative.
+     */
+    private void addPointSums(int slot, M match, int points) {
+        ArrayList<M> matches = slotMatches.get(slot);
+        int[] sums = pointSums[slot];
+        
+        for(int i = matches.lastIndexOf(match) + 1; i <= matches.size(); i++) {
+            sums[i] += points;
+        }
+    }
+    
+    /**
+     * Appends an opponent to the opponent history of a slot.
+     * 
+     * @param   slot
+     *          the slot whose history to extend.
+     * 
+     * @param   opponentSlot
+     *          the slot of the opponent.
+     */
+    private void addOpponent(int slot, int opponentSlot) {
+        int count = opponentCounts[slot];
+        
+        if(count == opponentSlots[slot].length) {
+            opponentSlots[slot] = Arrays.copyOf(opponentSlots[slot], count * 2);
+        }
+        
+        opponentSlots[slot][count] = opponentSlot;
+        opponentCounts[slot] = count + 1;
+        pairCounts.merge(getPairKey(slot, opponentSlot), 1, Integer::sum);
+    }
+    
+    /**
+     * Removes the most recent occurrence of an opponent from the opponent
+     * history of a slot.
+     * 
+     * @param   slot
+     *          the slot whose history to shorten.
+     * 
+     * @param   opponentSlot
+     *          the slot of the opponent.
+     */
+    private void removeOpponent(int slot, int opponentSlot) {
+        int[] opponents = opponentSlots[slot];
+        int count = opponentCounts[slot];
+        
+        for(int i = count - 1; i >= 0; i--) {
+            if(opponents[i] == opponentSlot) {
+                System.arraycopy(opponents, i + 1, opponents, i, count - i - 1);
+                opponentCounts[slot] = count - 1;
+                pairCounts.computeIfPresent(getPairKey(slot, opponentSlot), 
+                        (key, pairCount) -> (pairCount > 1) ? pairCount - 1 : null);
+                
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Gets the key of a pair of slots in the pair match counts. The key is
+     * the same whichever order the slots are given in.
+     * 
+     * @param   slotA
+     *          the first slot.
+     * 
+     * @param   slotB
+     *          the second slot.
+     * 
+     * @return  the key.
+     */
+    private static long getPairKey(int slotA, int slotB) {
+        return ((long)Math.min(slotA, slotB) << 32) | Math.max(slotA, slotB);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to ledger totals.                                     *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the number of event matches the participant was involved in.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the match count as an integer.
+     */
+    int getMatchCount(P participant) {
+        int slot = getSlot(participant);
+        
+        return slot < 0 ? 0 : slotMatches.get(slot).size();
+    }
+    
+    /**
+     * Gets the number of event matches the participant in a slot was
+     * involved in.
+     * 
+     * @param   slot
+     *          the slot to check.
+     * 
+     * @return  the match count as an integer.
+     */
+    int getSlotMatchCount(int slot) {
+        return slotMatches.get(slot).size();
+    }
+    
+    /**
+     * Gets a read-only view of the matches the participant was involved in,
+     * ordered by round.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  an unmodifiable list of matches.
+     */
+    List<M> getMatches(P participant) {
+        int slot = getSlot(participant);
+        
+        if(slot < 0) {
+            return Collections.emptyList();
+        }
+        
+        return slotMatchViews.get(slot);
+    }
+    
+    /**
+     * Gets the match points the participant has accrued across all matches.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the match point total as an integer.
+     */
+    int getMatchPoints(P participant) {
+        int slot = getSlot(participant);
+        
+        return slot < 0 ? 0 : matchPoints[slot];
+    }
+    
+    /**
+     * Gets the match points the participant had accrued after its first 
+     * matches.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @param   matchCount
+     *          the number of matches to count, from 0 to getMatchCount().
+     * 
+     * @return  the match point total as an integer.
+     */
+    int getMatchPointsAfter(P participant, int matchCount) {
+        int slot = getSlot(participant);
+        
+        return slot < 0 ? 0 : pointSums[slot][matchCount];
+    }
+    
+    /**
+     * Gets the game points the participant has accrued across all matches.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the game point total as an integer.
+     */
+    int getGamePoints(P participant) {
+        int slot = getSlot(participant);
+        
+        return slot < 0 ? 0 : gamePoints[slot];
+    }
+    
+    /**
+     * Gets the number of games played in matches the participant was in.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the games played total as an integer.
+     */
+    int getGamesPlayed(P participant) {
+        int slot = getSlot(participant);
+        
+        return slot < 0 ? 0 : gamesPlayed[slot];
+    }
+    
+    /**
+     * Gets the number of losses the participant has in elimination rounds.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the loss count as an integer.
+     */
+    int getLossCount(P participant) {
+        int slot = getSlot(participant);
+        
+        return slot < 0 ? 0 : lossCounts[slot];
+    }
+    
+    /**
+     * Gets the number of byes the participant has received.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the bye count as an integer.
+     */
+    int getByeCount(P participant) {
+        int slot = getSlot(participant);
+        
+        return slot < 0 ? 0 : byeCounts[slot];
+    }
+    
+    /**
+     * Gets the number of opponents in the opponent history of a slot.
+     * Opponents faced more than once are counted each time.
+     * 
+     * @param   slot
+     *          the slot to check.
+     * 
+     * @return  the opponent count as an integer.
+     */
+    int getSlotOpponentCount(int slot) {
+        return opponentCounts[slot];
+    }
+    
+    /**
+     * Gets the opponent history of a slot in the order the matches were
+     * played. Only the first getSlotOpponentCount() entries are valid, and
+     * the array must not be modified.
+     * 
+     * @param   slot
+     *          the slot to check.
+     * 
+     * @return  the backing array of opponent slots.
+     */
+    int[] getSlotOpponents(int slot) {
+        return opponentSlots[slot];
+    }
+    
+    /**
+     * Determines if the two participants have been matched against each
+     * other in any event round.
+     * 
+     * @param   participantA
+     *          the first participant.
+     * 
+     * @param   participantB
+     *          the second participant.
+     * 
+     * @return  a boolean value.
+     */
+    boolean getHavePlayed(P participantA, P participantB) {
+        int slotA = getSlot(participantA);
+        int slotB = getSlot(participantB);
+        
+        if(slotA < 0 || slotB < 0) {
+            return false;
+        }
+        
+        return pairCounts.containsKey(getPairKey(slotA, slotB));
+    }
+}
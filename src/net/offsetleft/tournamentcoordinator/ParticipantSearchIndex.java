@@ -0,0 +1,201 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Finds the participants of an event whose first or last name contains a
+ * search value, ignoring case, without testing every participant.
+ * 
+ * <p>Every substring of up to three characters of each lowercased name is
+ * an index key, mapped to the participants whose names contain it. A search
+ * value of up to three characters is answered by a single lookup. A longer
+ * value is answered by taking the smallest set among its three character
+ * substrings and checking only those participants, so a search costs time in
+ * proportion to the participants that could match rather than to the size
+ * of the event.
+ * 
+ * <p>The index keeps the names it indexed for each participant so that a
+ * renamed participant can be taken out under its old names.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+final class ParticipantSearchIndex <P extends TournamentParticipant<P>>
+        implements Serializable {
+    
+    private static final int GRAM_LENGTH = 3;
+    
+    private final HashMap<String, HashSet<P>> gramParticipants = new HashMap<>();
+    private final HashMap<P, String[]> indexedNames = new HashMap<>();
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to indexed participants.                              *
+     *   - Mutators                                                           *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Adds a participant under its current names.
+     * 
+     * @param   participant
+     *          the participant to add.
+     */
+    void add(P participant) {
+        String[] names = {
+            normalize(participant.getFirstName()),
+            normalize(participant.getLastName())
+        };
+        
+        indexedNames.put(participant, names);
+        
+        for(String gram : getGrams(names)) {
+            HashSet<P> participants = gramParticipants.get(gram);
+            
+            if(participants == null) {
+                participants = new HashSet<>();
+                gramParticipants.put(gram, participants);
+            }
+            
+            participants.add(participant);
+        }
+    }
+    
+    /**
+     * Removes a participant under the names it was indexed with.
+     * 
+     * @param   participant
+     *          the participant to remove.
+     */
+    void remove(P participant) {
+        String[] names = indexedNames.remove(participant);
+        
+        if(names == null) {
+            return;
+        }
+        
+        for(String gram : getGrams(names)) {
+            HashSet<P> participants = gramParticipants.get(gram);
+            
+            participants.remove(participant);
+            
+            if(participants.isEmpty()) {
+                gramParticipants.remove(gram);
+            }
+        }
+    }
+    
+    /**
+     * Re-indexes a participant after a change to its names.
+     * 
+     * @param   participant
+     *          the renamed participant.
+     */
+    void update(P participant) {
+        remove(participant);
+        add(participant);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to searching.                                         *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Finds the participants whose first or last name contains a value,
+     * ignoring case.
+     * 
+     * @param   value
+     *          the value to search for.
+     * 
+     * @return  the matching participants, in no particular order.
+     */
+    ArrayList<P> search(String value) {
+        String query = normalize(value);
+        
+        if(query.isEmpty()) {
+            return new ArrayList<>(indexedNames.keySet());
+        }
+        
+        if(query.length() <= GRAM_LENGTH) {
+            HashSet<P> participants = gramParticipants.get(query);
+            
+            return (participants == null)
+                    ? new ArrayList<>() : new ArrayList<>(participants);
+        }
+        
+        HashSet<P> candidates = null;
+        
+        for(int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            HashSet<P> participants =
+                    gramParticipants.get(query.substring(i, i + GRAM_LENGTH));
+            
+            if(participants == null) {
+                return new ArrayList<>();
+            }
+            
+            if(candidates == null || participants.size() < candidates.size()) {
+                candidates = participants;
+            }
+        }
+        
+        ArrayList<P> found = new ArrayList<>();
+        
+        for(P candidate : candidates) {
+            String[] names = indexedNames.get(candidate);
+            
+            if(names[0].contains(query) || names[1].contains(query)) {
+                found.add(candidate);
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Gets every distinct substring of up to GRAM_LENGTH characters of the
+     * passed names.
+     * 
+     * @param   names
+     *          the normalized names.
+     * 
+     * @return  the substrings.
+     */
+    private static HashSet<String> getGrams(String[] names) {
+        HashSet<String> grams = new HashSet<>();
+        
+        for(String name : names) {
+            for(int start = 0; start < name.length(); start++) {
+                int last = Math.min(start + GRAM_LENGTH, name.length());
+                
+                for(int end = start + 1; end <= last; end++) {
+                    grams.add(name.substring(start, end));
+                }
+            }
+        }
+        
+        return grams;
+    }
+    
+    /**
+     * Lowercases a name or search value, so that both the indexed names and
+     * the search value are compared ignoring case.
+     * 
+     * @param   value
+     *          the value to normalize, which may be null.
+     * 
+     * @return  the normalized value.
+     */
+    private static String normalize(String value) {
+        return (value == null) ? "" : value.toLowerCase();
+    }
+}
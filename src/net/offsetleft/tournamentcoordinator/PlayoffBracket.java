@@ -0,0 +1,610 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import net.offsetleft.tournamentcoordinator.exceptions.SegementStateException;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * A seeded single elimination bracket, built once for the whole playoff.
+ * 
+ * <p>The bracket is a complete binary tree stored in an array, the way a
+ * binary heap is. Node 1 is the final, the children of node n are nodes 2n
+ * and 2n + 1, and the leaves are the bracket positions, filled with the seeds
+ * in the standard order so that the top two seeds can only meet in the final.
+ * The matches of round r are the nodes of the r-th level above the leaves,
+ * and each node holds the seed that won its match. Recording a winner writes
+ * one node, and a participant's match in any round is found by shifting the
+ * index of its leaf, so neither walks the bracket. The matches of the round
+ * in play are kept at their nodes, so its winners, and the champion once the
+ * final has results, are read from results until the round is decided.
+ * 
+ * <p>A bracket whose size is not a power of two is padded with empty
+ * positions up to the next one. The standard order places the empty
+ * positions against the top seeds, which then get byes in the first round.
+ * A side of a match whose participant did not advance is empty as well, so
+ * the other side gets a bye.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+public final class PlayoffBracket <P extends TournamentParticipant<P>>
+        implements Serializable {
+    
+    // Node values other than a seed index.
+    private static final int UNDECIDED = -1;
+    private static final int EMPTY = -2;
+    
+    private final ArrayList<P> seeds = new ArrayList<>();
+    private final HashMap<P, Integer> seedIndexes = new HashMap<>();
+    
+    private final int bracketSize;
+    private final int roundCount;
+    private final int[] nodes;
+    private final int[] seedLeaves;
+    
+    private final ArrayList<TournamentMatch<P>> nodeMatches;
+    
+    private int decidedRoundCount = 0;
+    private int matchedRoundCount = 0;
+    
+    /**
+     * Constructs a bracket.
+     * 
+     * @param   seeds
+     *          the participants of the bracket, best seed first.
+     */
+    public PlayoffBracket(List<P> seeds) {
+        this.seeds.addAll(seeds);
+        
+        int seedCount = this.seeds.size();
+        
+        this.bracketSize = (seedCount <= 1)
+                ? 1 : Integer.highestOneBit(seedCount - 1) << 1;
+        this.roundCount = Integer.numberOfTrailingZeros(bracketSize);
+        this.nodes = new int[bracketSize * 2];
+        this.seedLeaves = new int[seedCount];
+        this.nodeMatches = new ArrayList<>(
+                Collections.<TournamentMatch<P>>nCopies(bracketSize, null));
+        
+        int[] seedOrder = getSeedOrder(bracketSize);
+        
+        for(int position = 0; position < bracketSize; position++) {
+            int seed = seedOrder[position];
+            int leaf = bracketSize + position;
+            
+            if(seed < seedCount) {
+                nodes[leaf] = seed;
+                seedLeaves[seed] = leaf;
+                seedIndexes.put(this.seeds.get(seed), seed);
+            } else {
+                nodes[leaf] = EMPTY;
+            }
+        }
+        
+        for(int node = 1; node < bracketSize; node++) {
+            nodes[node] = UNDECIDED;
+        }
+    }
+    
+    /**
+     * Gets the standard order of the seeds in a bracket, in which seed s
+     * meets seed size - 1 - s in the first round and the seeds of each match
+     * add up the same way in every later round, assuming the better seed
+     * always wins.
+     * 
+     * @param   bracketSize
+     *          the size of the bracket, a power of two.
+     * 
+     * @return  the zero based seed at each bracket position.
+     */
+    public static int[] getSeedOrder(int bracketSize) {
+        int[] order = new int[bracketSize];
+        
+        // Each pass doubles the bracket, putting seed s and its new first
+        // round opponent 2 * length - 1 - s where seed s was. The array is
+        // filled from the back so that each position is read before it is
+        // written.
+        for(int length = 1; length < bracketSize; length *= 2) {
+            for(int i = length - 1; i >= 0; i--) {
+                int seed = order[i];
+                
+                order[2 * i] = seed;
+                order[2 * i + 1] = 2 * length - 1 - seed;
+            }
+        }
+        
+        return order;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to bracket properties.                                *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the participants of the bracket.
+     * 
+     * @return  the participants, best seed first.
+     */
+    public ArrayList<P> getSeeds() {
+        return new ArrayList<>(this.seeds);
+    }
+    
+    /**
+     * Gets the number of positions in the bracket, the number of seeds
+     * rounded up to a power of two.
+     * 
+     * @return  the bracket size.
+     */
+    public int getBracketSize() {
+        return this.bracketSize;
+    }
+    
+    /**
+     * Gets the number of byes in the first round.
+     * 
+     * @return  the bye count.
+     */
+    public int getByeCount() {
+        return this.bracketSize - this.seeds.size();
+    }
+    
+    /**
+     * Gets the number of rounds needed to play the bracket out.
+     * 
+     * @return  the round count.
+     */
+    public int getRoundCount() {
+        return this.roundCount;
+    }
+    
+    /**
+     * Gets the number of rounds whose winners have been decided.
+     * 
+     * @return  the decided round count.
+     */
+    public int getDecidedRoundCount() {
+        return this.decidedRoundCount;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to bracket matches.                                   *
+     *   - Getters                                                            *
+     *   - Mutators                                                           *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the pairings of a round, in bracket order. A pairing with a single
+     * participant is a bye, and matches with no participants are left out.
+     * 
+     * @param   round
+     *          the round, starting from one.
+     * 
+     * @return  the pairings of the round.
+     * 
+     * @throws  SegementStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the bracket does not have the round.</li>
+     *              <li>the winners of the previous round are not decided.</li>
+     *          </ul>
+     */
+    public ArrayList<ArrayList<P>> getRoundPairings(int round)
+            throws SegementStateException {
+        checkRound(round);
+        
+        if(round > decidedRoundCount + 1) {
+            throw new SegementStateException("Playoff round " + (round - 1)
+                    + " has not been decided.");
+        }
+        
+        ArrayList<ArrayList<P>> pairings = new ArrayList<>();
+        int first = bracketSize >>> round;
+        
+        for(int node = first; node < first * 2; node++) {
+            ArrayList<P> pairing = new ArrayList<>(2);
+            
+            addSide(pairing, nodes[node * 2]);
+            addSide(pairing, nodes[node * 2 + 1]);
+            
+            if(!pairing.isEmpty()) {
+                pairings.add(pairing);
+            }
+        }
+        
+        return pairings;
+    }
+    
+    /**
+     * Gets the winner of the match a participant played in a round. The 
+     * winner of a round that has not been decided is read from the results 
+     * of its match.
+     * 
+     * @param   round
+     *          the round, starting from one.
+     * 
+     * @param   participant
+     *          a participant of the match.
+     * 
+     * @return  the winner, or null if the match has no winner yet.
+     * 
+     * @throws  TournamentStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the bracket does not have the round.</li>
+     *              <li>the participant is not in the bracket.</li>
+     *          </ul>
+     */
+    public P getWinner(int round, P participant) 
+            throws TournamentStateException {
+        checkRound(round);
+        
+        return getNodeWinner(getSeedLeaf(participant) >>> round);
+    }
+    
+    /**
+     * Gets the winner of the bracket, which is known as soon as the results 
+     * of the final are.
+     * 
+     * @return  the champion, or null if the final has no winner yet.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the final cannot be read.
+     */
+    public P getChampion() throws TournamentStateException {
+        return getNodeWinner(1);
+    }
+    
+    /**
+     * Sets the matches of the next round, once they have been created from 
+     * getRoundPairings(). Until the round is decided its winners are read 
+     * from the results of these matches.
+     * 
+     * @param   round
+     *          the round, starting from one.
+     * 
+     * @param   matches
+     *          the matches of the round.
+     * 
+     * @throws  SegementStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the round is not the round after the last decided 
+     *              round.</li>
+     *              <li>a match is not a match of the round.</li>
+     *          </ul>
+     */
+    public void setRoundMatches(int round, 
+            List<? extends TournamentMatch<P>> matches) 
+            throws SegementStateException {
+        checkRound(round);
+        
+        if(round != decidedRoundCount + 1) {
+            throw new SegementStateException("Playoff round " + (round - 1)
+                    + " has not been decided.");
+        }
+        
+        int[] matchNodes = new int[matches.size()];
+        int first = bracketSize >>> round;
+        boolean[] taken = new boolean[first];
+        
+        // Every match is checked before any node is written, so matches that 
+        // do not fit leave the bracket as it was.
+        for(int i = 0; i < matches.size(); i++) {
+            int node = getMatchNode(round, matches.get(i).getMatchParticipants());
+            
+            if(taken[node - first]) {
+                throw new SegementStateException(
+                        "Match is not a match of playoff round " + round + ".");
+            }
+            
+            taken[node - first] = true;
+            matchNodes[i] = node;
+        }
+        
+        clearRoundMatches(round);
+        
+        for(int i = 0; i < matchNodes.length; i++) {
+            nodeMatches.set(matchNodes[i], matches.get(i));
+        }
+        
+        matchedRoundCount = round;
+    }
+    
+    /**
+     * Decides the winners of the next undecided round from the results of 
+     * its matches. A match of the round that was not played, because neither 
+     * of its participants took part, advances no one.
+     * 
+     * @throws  TournamentStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>every round has been decided.</li>
+     *              <li>the matches of the round have not been set.</li>
+     *              <li>a match does not have a winner.</li>
+     *          </ul>
+     */
+    public void decideRound() throws TournamentStateException {
+        int round = decidedRoundCount + 1;
+        
+        checkRound(round);
+        
+        if(matchedRoundCount < round) {
+            throw new SegementStateException(
+                    "Playoff round " + round + " has no matches.");
+        }
+        
+        int first = bracketSize >>> round;
+        int[] winners = new int[first];
+        
+        // Every match is checked before any node is written, so a round
+        // that cannot be decided leaves the bracket as it was.
+        for(int node = first; node < first * 2; node++) {
+            TournamentMatch<P> match = nodeMatches.get(node);
+            int winner = EMPTY;
+            
+            if(match != null) {
+                winner = getMatchWinner(match);
+                
+                if(winner == EMPTY) {
+                    throw new SegementStateException(
+                            "Playoff match does not have a winner.");
+                }
+            }
+            
+            winners[node - first] = winner;
+        }
+        
+        System.arraycopy(winners, 0, nodes, first, first);
+        
+        decidedRoundCount = round;
+    }
+    
+    /**
+     * Restores a round that was paired earlier, such as one read from a 
+     * snapshot or a journal. The winners of the round before it are taken 
+     * from the participants of its matches rather than from results, since 
+     * those may have been changed after the round was paired.
+     * 
+     * @param   round
+     *          the round, starting from one.
+     * 
+     * @param   matches
+     *          the matches of the round.
+     * 
+     * @throws  SegementStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the round is not the round after the last round 
+     *              with matches.</li>
+     *              <li>a match is not a match of the round.</li>
+     *          </ul>
+     */
+    public void restoreRound(int round, 
+            List<? extends TournamentMatch<P>> matches) 
+            throws SegementStateException {
+        checkRound(round);
+        
+        if(round != matchedRoundCount + 1) {
+            throw new SegementStateException("Playoff round " + (round - 1)
+                    + " has not been restored.");
+        }
+        
+        if(round > 1 && decidedRoundCount == round - 2) {
+            int previous = round - 1;
+            int first = bracketSize >>> previous;
+            int[] winners = new int[first];
+            
+            Arrays.fill(winners, EMPTY);
+            
+            for(TournamentMatch<P> match : matches) {
+                for(P participant : match.getMatchParticipants()) {
+                    int leaf = getSeedLeaf(participant);
+                    int seed = nodes[leaf];
+                    
+                    if(nodes[leaf >>> (previous - 1)] != seed) {
+                        throw new SegementStateException("Match is not a "
+                                + "match of playoff round " + round + ".");
+                    }
+                    
+                    winners[(leaf >>> previous) - first] = seed;
+                }
+            }
+            
+            System.arraycopy(winners, 0, nodes, first, first);
+            
+            decidedRoundCount = previous;
+        }
+        
+        setRoundMatches(round, matches);
+    }
+    
+    /**
+     * Takes back every round after the first roundCount rounds. The matches 
+     * of the later rounds are forgotten, and the last round kept is no 
+     * longer decided, so its winners are read from its results again and 
+     * decided anew by the next call to decideRound().
+     * 
+     * @param   roundCount
+     *          the number of rounds to keep.
+     */
+    public void truncateRounds(int roundCount) {
+        roundCount = Math.max(roundCount, 0);
+        
+        while(matchedRoundCount > roundCount) {
+            clearRoundMatches(matchedRoundCount);
+            matchedRoundCount--;
+        }
+        
+        while(decidedRoundCount > Math.max(roundCount - 1, 0)) {
+            int first = bracketSize >>> decidedRoundCount;
+            
+            Arrays.fill(nodes, first, first * 2, UNDECIDED);
+            
+            decidedRoundCount--;
+        }
+    }
+    
+    /**
+     * Gets the participant who won, or is winning, the match at a node.
+     * 
+     * @param   node
+     *          the index of the node.
+     * 
+     * @return  the winner, or null if the match has no winner yet.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the match cannot be read.
+     */
+    private P getNodeWinner(int node) throws TournamentStateException {
+        int seed = nodes[node];
+        
+        if(seed == UNDECIDED && nodeMatches.get(node) != null) {
+            seed = getMatchWinner(nodeMatches.get(node));
+        }
+        
+        return (seed >= 0) ? seeds.get(seed) : null;
+    }
+    
+    /**
+     * Gets the seed that won a match.
+     * 
+     * @param   match
+     *          the match.
+     * 
+     * @return  the seed index of the winner, or EMPTY if the match has no 
+     *          winner.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of the match cannot be read.
+     */
+    private int getMatchWinner(TournamentMatch<P> match) 
+            throws TournamentStateException {
+        for(P participant : match.getMatchParticipants()) {
+            if(match.getParticipantMatchPoints(participant) == 3) {
+                return seedIndexes.get(participant);
+            }
+        }
+        
+        return EMPTY;
+    }
+    
+    /**
+     * Gets the node of the match a pairing was made for in a round, checking 
+     * that every participant of the pairing advanced to that match.
+     * 
+     * @param   round
+     *          the round, starting from one.
+     * 
+     * @param   participants
+     *          the participants of the match.
+     * 
+     * @return  the index of the node.
+     * 
+     * @throws  SegementStateException
+     *          If the participants do not make up a match of the round.
+     */
+    private int getMatchNode(int round, ArrayList<P> participants) 
+            throws SegementStateException {
+        int node = 0;
+        
+        for(P participant : participants) {
+            int leaf = getSeedLeaf(participant);
+            
+            if(nodes[leaf >>> (round - 1)] != nodes[leaf]
+                    || (node != 0 && node != leaf >>> round)) {
+                throw new SegementStateException(
+                        "Match is not a match of playoff round " + round + ".");
+            }
+            
+            node = leaf >>> round;
+        }
+        
+        if(node == 0) {
+            throw new SegementStateException(
+                    "Match is not a match of playoff round " + round + ".");
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Forgets the matches set for a round.
+     * 
+     * @param   round
+     *          the round, starting from one.
+     */
+    private void clearRoundMatches(int round) {
+        int first = bracketSize >>> round;
+        
+        for(int node = first; node < first * 2; node++) {
+            nodeMatches.set(node, null);
+        }
+    }
+    
+    /**
+     * Adds the participant at a node to a pairing, unless the node is empty.
+     * 
+     * @param   pairing
+     *          the pairing.
+     * 
+     * @param   seed
+     *          the value of the node.
+     */
+    private void addSide(ArrayList<P> pairing, int seed) {
+        if(seed >= 0) {
+            pairing.add(seeds.get(seed));
+        }
+    }
+    
+    /**
+     * Gets the leaf a participant was placed at.
+     * 
+     * @param   participant
+     *          the participant.
+     * 
+     * @return  the index of the leaf.
+     * 
+     * @throws  SegementStateException
+     *          If the participant is not in the bracket.
+     */
+    private int getSeedLeaf(P participant) throws SegementStateException {
+        Integer seed = seedIndexes.get(participant);
+        
+        if(seed == null) {
+            throw new SegementStateException(
+                    "Participant is not in the playoff bracket.");
+        }
+        
+        return seedLeaves[seed];
+    }
+    
+    /**
+     * Checks that the bracket has a round.
+     * 
+     * @param   round
+     *          the round, starting from one.
+     * 
+     * @throws  SegementStateException
+     *          If the bracket does not have the round.
+     */
+    private void checkRound(int round) throws SegementStateException {
+        if(round < 1 || round > roundCount) {
+            throw new SegementStateException(
+                    "Playoff bracket does not have round " + round + ".");
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Pairs a head-up Swiss round score group by score group, pairing the groups
+ * in parallel on the common fork-join pool.
+ * 
+ * <p>The participants are split into groups of equal match points. Working
+ * down the standings, an odd group floats its lowest ranked participant into
+ * the group below, so every group but the last is even and only the last can
+ * hold the bye. Large groups are split further into even chunks of about a
+ * pairing window each. The chunks are then paired independently, each as a
+ * maximum weight matching, and may run on any thread in any order.
+ * 
+ * <p>A pair that a chunk could only make as a rematch is held back. Once
+ * every chunk is paired, the held back participants are paired together in
+ * standings order on the calling thread. Since neither step depends on
+ * which thread paired which chunk, the pairings are the same however many
+ * threads the pool has.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+final class ScoreGroupPairing <P extends TournamentParticipant<P>> {
+    
+    private static final int CHUNK_SIZE = WeightedSwissPairing.WINDOW_SIZE;
+    
+    private final WeightedSwissPairing<P> weightedPairing;
+    
+    /**
+     * Constructs a new pairing for a list of participants.
+     * 
+     * @param   participants
+     *          the participants to pair, in standings order.
+     */
+    ScoreGroupPairing(List<P> participants) {
+        this.weightedPairing = new WeightedSwissPairing<>(participants);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to pairing.                                           *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Pairs the participants.
+     * 
+     * @return  a list of pairings in standings order, each holding two
+     *          participants or, for the bye, a single participant.
+     */
+    ArrayList<ArrayList<P>> createPairings() {
+        ArrayList<ArrayList<Integer>> chunks = createChunks();
+        ChunkPairing[] chunkPairings = new ChunkPairing[chunks.size()];
+        
+        if(!chunks.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(
+                    new ChunkTask(chunks, chunkPairings, 0, chunks.size()));
+        }
+        
+        ArrayList<int[]> pairings = new ArrayList<>();
+        ArrayList<Integer> heldBack = new ArrayList<>();
+        
+        for(ChunkPairing chunkPairing : chunkPairings) {
+            pairings.addAll(chunkPairing.pairings);
+            heldBack.addAll(chunkPairing.heldBack);
+        }
+        
+        heldBack.sort(null);
+        weightedPairing.pairWindows(heldBack, pairings);
+        
+        return weightedPairing.getPairedParticipants(pairings);
+    }
+    
+    /**
+     * Splits the participants into score groups, floats the lowest ranked
+     * participant of each odd group into the next group and splits each
+     * group into even chunks.
+     * 
+     * @return  the chunks of participant indices, in standings order.
+     */
+    private ArrayList<ArrayList<Integer>> createChunks() {
+        ArrayList<ArrayList<Integer>> chunks = new ArrayList<>();
+        int participantCount = weightedPairing.getParticipantCount();
+        
+        Integer floater = null;
+        int groupStart = 0;
+        
+        while(groupStart < participantCount) {
+            int groupPoints = weightedPairing.getMatchPoints(groupStart);
+            int groupEnd = groupStart;
+            
+            ArrayList<Integer> group = new ArrayList<>();
+            
+            if(floater != null) {
+                group.add(floater);
+                floater = null;
+            }
+            
+            while(groupEnd < participantCount
+                    && weightedPairing.getMatchPoints(groupEnd) == groupPoints) {
+                group.add(groupEnd++);
+            }
+            
+            if(groupEnd < participantCount && group.size() % 2 != 0) {
+                floater = group.remove(group.size() - 1);
+            }
+            
+            addChunks(group, chunks);
+            
+            groupStart = groupEnd;
+        }
+        
+        return chunks;
+    }
+    
+    /**
+     * Subroutine reducing code redundancy in createChunks(). Splits a score
+     * group into chunks of at most CHUNK_SIZE participants, halving the last
+     * two chunks rather than leaving a small remainder.
+     * 
+     * @param   group
+     *          the participant indices of the score group.
+     * 
+     * @param   chunks
+     *          the list to add the chunks to.
+     */
+    private void addChunks(ArrayList<Integer> group,
+            ArrayList<ArrayList<Integer>> chunks) {
+        int start = 0;
+        
+        while(start < group.size()) {
+            int remaining = group.size() - start;
+            int chunkSize = remaining;
+            
+            if(remaining > 2 * CHUNK_SIZE) {
+                chunkSize = CHUNK_SIZE;
+            } else if(remaining > CHUNK_SIZE) {
+                chunkSize = remaining / 2;
+                chunkSize += chunkSize % 2;
+            }
+            
+            chunks.add(new ArrayList<>(group.subList(start, start + chunkSize)));
+            
+            start += chunkSize;
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  ChunkPairing helper class.                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * The result of pairing a single chunk.
+     */
+    private static final class ChunkPairing {
+        private final ArrayList<int[]> pairings = new ArrayList<>();
+        private ArrayList<Integer> heldBack;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  ChunkTask helper class.                                               *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Pairs a range of chunks, splitting the range in half until a single
+     * chunk remains.
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private final ArrayList<ArrayList<Integer>> chunks;
+        private final ChunkPairing[] chunkPairings;
+        private final int from, to;
+        
+        /**
+         * Constructs a new task for a range of chunks.
+         * 
+         * @param   chunks
+         *          all the chunks of the round.
+         * 
+         * @param   chunkPairings
+         *          the array to store each chunk's result in.
+         * 
+         * @param   from
+         *          the first chunk of the range.
+         * 
+         * @param   to
+         *          the chunk after the last chunk of the range.
+         */
+        private ChunkTask(ArrayList<ArrayList<Integer>> chunks,
+                ChunkPairing[] chunkPairings, int from, int to) {
+            this.chunks = chunks;
+            this.chunkPairings = chunkPairings;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                
+                invokeAll(new ChunkTask(chunks, chunkPairings, from, middle),
+                        new ChunkTask(chunks, chunkPairings, middle, to));
+                return;
+            }
+            
+            ChunkPairing chunkPairing = new ChunkPairing();
+            
+            chunkPairing.heldBack = weightedPairing.pairWindow(
+                    chunks.get(from), false, chunkPairing.pairings);
+            
+            chunkPairings[from] = chunkPairing;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.offsetleft.tournamentcoordinator;
+
+/**
+ * Defines the algorithm used to pair a Swiss round.
+ * <ul>
+ * <li>{@link #GREEDY}</li>
+ * <li>{@link #WEIGHTED_MATCHING}</li>
+ * <li>{@link #PARALLEL_SCORE_GROUPS}</li>
+ * </ul>
+ * 
+ * @author      agent
+ */
+public enum SegmentPairingAlgorithm {
+    /**
+     * Greedy - Participants are paired down the standings, repairing rematches
+     * and byes afterwards.
+     */
+    GREEDY,
+    
+    /**
+     * Weighted Matching - The round is paired as a maximum weight matching
+     * that penalises score differences, rematches and repeated byes. Only 
+     * head-up Swiss rounds use this algorithm; other rounds are paired 
+     * greedily.
+     */
+    WEIGHTED_MATCHING,
+    
+    /**
+     * Parallel Score Groups - Each score group is paired as a maximum weight 
+     * matching, with the groups paired in parallel and odd groups floating 
+     * their lowest ranked participant down. Only head-up Swiss rounds use 
+     * this algorithm; other rounds are paired greedily.
+     */
+    PARALLEL_SCORE_GROUPS;
+    
+    
+    /**************************************************************************
+     *  Overridden methods.                                                   *
+     **************************************************************************/
+    
+    /**
+     * Returns a string representation of the pairing algorithm.
+     * 
+     * @return  a string
+     */
+    @Override
+    public final String toString() {
+        switch (this) {
+            case GREEDY:
+                return "Greedy";
+            case WEIGHTED_MATCHING:
+                return "Weighted Matching";
+            case PARALLEL_SCORE_GROUPS:
+                return "Parallel Score Groups";
+            default:
+                return "Error - Invalid pairing algorithm.";
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Orders participants the same way as TournamentParticipant.StandingsComparator
+ * but computes every tiebreaker once for the whole field instead of once per
+ * comparison.
+ * 
+ * <p>The tiebreakers are calculated in two phases the first time two
+ * participants are compared. The first phase computes each participant's own
+ * match points and match and game win percentages. The second phase averages
+ * those percentages over each participant's opponents. Both phases walk the
+ * slot-indexed arrays of the event's participant ledger and store their
+ * results in arrays indexed the same way. Comparisons afterwards only read the
+ * stored values, so a calculator should be discarded once match results
+ * change.
+ * 
+ * <p>selectTop() finds the best few participants without ranking the whole
+ * field. Every participant who can make the cut has at least as many match
+ * points as the participant in the last place of the cut, so a histogram of
+ * match points gives that threshold, and the tiebreakers are only calculated
+ * for participants at or above it and for their opponents.
+ * 
+ * @param       <M>
+ *              a class that extends TournamentMatch.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+final class StandingsCalculator <M extends TournamentMatch<P>,
+        P extends TournamentParticipant<P>> implements Comparator<P> {
+    
+    private final TournamentEvent<?, ?, M, P> event;
+    private final ParticipantLedger<M, P> ledger;
+    
+    private int slotCount = -1;
+    
+    private int[] matchPoints;
+    private double[] matchWinPercentages, gameWinPercentages;
+    private double[] opponentsMatchWinPercentages, opponentsGameWinPercentages;
+    private boolean[] ownRecordKnown;
+    
+    /**
+     * Constructs a new calculator for the current state of the event.
+     * 
+     * @param   event
+     *          the event whose participants will be compared.
+     */
+    StandingsCalculator(TournamentEvent<?, ?, M, P> event) {
+        this.event = event;
+        this.ledger = event.getParticipantLedger();
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to tiebreaker calculation.                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Calculates the tiebreakers for every participant in the ledger. Called
+     * lazily so that a calculator which is never used to compare participants
+     * costs nothing.
+     */
+    private void calculateStandingsKeys() {
+        allocateStandingsKeys();
+        
+        // Phase one: each participant's own record.
+        for(int slot = 0; slot < slotCount; slot++) {
+            calculateOwnRecord(slot);
+        }
+        
+        // Phase two: averages over each participant's opponents.
+        for(int slot = 0; slot < slotCount; slot++) {
+            calculateOpponentsRecord(slot);
+        }
+    }
+    
+    /**
+     * Allocates the tiebreaker arrays for the slots currently in the ledger.
+     */
+    private void allocateStandingsKeys() {
+        slotCount = ledger.getSlotCount();
+        
+        matchPoints = new int[slotCount];
+        matchWinPercentages = new double[slotCount];
+        gameWinPercentages = new double[slotCount];
+        opponentsMatchWinPercentages = new double[slotCount];
+        opponentsGameWinPercentages = new double[slotCount];
+        ownRecordKnown = new boolean[slotCount];
+    }
+    
+    /**
+     * Calculates the match points and match and game win percentages of a 
+     * slot, unless they are already known.
+     * 
+     * @param   slot
+     *          the slot to calculate.
+     */
+    private void calculateOwnRecord(int slot) {
+        if(ownRecordKnown[slot]) {
+            return;
+        }
+        
+        P participant = ledger.getSlotParticipant(slot);
+        
+        matchPoints[slot] = calculateMatchPoints(participant);
+        gameWinPercentages[slot] = calculateGameWinPercentage(participant);
+        
+        double winPct = matchPoints[slot]
+                / (ledger.getSlotMatchCount(slot) * 3.0);
+        
+        matchWinPercentages[slot] = (winPct > .33) ? winPct : .33;
+        ownRecordKnown[slot] = true;
+    }
+    
+    /**
+     * Calculates the opponents' match and game win percentages of a slot,
+     * calculating the own record of each opponent as needed.
+     * 
+     * @param   slot
+     *          the slot to calculate.
+     */
+    private void calculateOpponentsRecord(int slot) {
+        int opponentCount = ledger.getSlotOpponentCount(slot);
+        
+        if(opponentCount < 1) {
+            return;
+        }
+        
+        int[] opponents = ledger.getSlotOpponents(slot);
+        double matchTotal = 0;
+        double gameTotal = 0;
+        
+        for(int i = 0; i < opponentCount; i++) {
+            int opponent = opponents[i];
+            
+            calculateOwnRecord(opponent);
+            
+            matchTotal += matchWinPercentages[opponent];
+            gameTotal += (gameWinPercentages[opponent] < .33)
+                    ? .33 : gameWinPercentages[opponent];
+        }
+        
+        opponentsMatchWinPercentages[slot] = matchTotal / opponentCount;
+        opponentsGameWinPercentages[slot] = gameTotal / opponentCount;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to top selection.                                     *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Selects the best participants of a list, in the order a stable sort of
+     * the whole list with this calculator would put them.
+     * 
+     * <p>The calculator must not have been used to compare participants 
+     * before, as it only calculates the tiebreakers of the participants that
+     * can make the cut.
+     * 
+     * @param   participants
+     *          the participants to select from.
+     * 
+     * @param   count
+     *          the number of participants to select.
+     * 
+     * @return  the selected participants, best standing first.
+     */
+    ArrayList<P> selectTop(List<P> participants, int count) {
+        int size = participants.size();
+        int cut = Math.min(Math.max(count, 0), size);
+        ArrayList<P> top = new ArrayList<>(cut);
+        
+        if(cut == 0) {
+            return top;
+        }
+        
+        int[] points = new int[size];
+        int maxPoints = 0;
+        
+        for(int i = 0; i < size; i++) {
+            points[i] = Math.max(calculateMatchPoints(participants.get(i)), 0);
+            maxPoints = Math.max(maxPoints, points[i]);
+        }
+        
+        int[] pointCounts = new int[maxPoints + 1];
+        
+        for(int i = 0; i < size; i++) {
+            pointCounts[points[i]]++;
+        }
+        
+        int threshold = maxPoints;
+        int atOrAbove = pointCounts[maxPoints];
+        
+        while(atOrAbove < cut) {
+            threshold--;
+            atOrAbove += pointCounts[threshold];
+        }
+        
+        allocateStandingsKeys();
+        
+        // Ties keep their order in the list, as they would in a stable sort.
+        Comparator<Integer> order = (i1, i2) -> {
+            int result = compare(participants.get(i1), participants.get(i2));
+            
+            return (result != 0) ? result : Integer.compare(i1, i2);
+        };
+        
+        PriorityQueue<Integer> worstFirst = 
+                new PriorityQueue<>(cut + 1, order.reversed());
+        
+        for(int i = 0; i < size; i++) {
+            if(points[i] < threshold) {
+                continue;
+            }
+            
+            int slot = ledger.getSlot(participants.get(i));
+            
+            if(slot >= 0 && slot < slotCount) {
+                calculateOwnRecord(slot);
+                calculateOpponentsRecord(slot);
+            }
+            
+            worstFirst.add(i);
+            
+            if(worstFirst.size() > cut) {
+                worstFirst.poll();
+            }
+        }
+        
+        ArrayList<Integer> selected = new ArrayList<>(worstFirst);
+        
+        selected.sort(order);
+        
+        for(int index : selected) {
+            top.add(participants.get(index));
+        }
+        
+        return top;
+    }
+    
+    /**
+     * Gets the participant's match points, or zero if the participant is not
+     * enrolled in the event.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the match points as an integer.
+     */
+    private int calculateMatchPoints(P participant) {
+        try {
+            return event.getParticipantMatchPoints(participant);
+        } catch (TournamentStateException ex) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Gets the participant's game win percentage, or zero if the participant
+     * has not played a game or is not enrolled in the event.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the game win percentage as a double.
+     */
+    private double calculateGameWinPercentage(P participant) {
+        try {
+            double gamesPlayed = event.getParticipantGamesPlayed(participant);
+            
+            if(gamesPlayed < 1) {
+                return 0;
+            }
+            
+            double gamePoints = event.getParticipantGamePoints(participant);
+            
+            return gamePoints / (gamesPlayed * 3);
+        } catch (TournamentStateException ex) {
+            return 0;
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Overridden methods.                                                   *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Compares two participants by match points, opponents' match win
+     * percentage, game win percentage and opponents' game win percentage.
+     * 
+     * @param   p1
+     *          the first participant.
+     * 
+     * @param   p2
+     *          the second participant.
+     * 
+     * @return  a negative integer if p1 ranks above p2, a positive integer if
+     *          it ranks below and zero if they are tied.
+     */
+    @Override
+    public int compare(P p1, P p2) {
+        if(slotCount < 0) {
+            calculateStandingsKeys();
+        }
+        
+        int s1 = ledger.getSlot(p1);
+        int s2 = ledger.getSlot(p2);
+        
+        // A participant the ledger had not seen has no matches, so only its
+        // match points can differ from zero.
+        boolean known1 = s1 >= 0 && s1 < slotCount;
+        boolean known2 = s2 >= 0 && s2 < slotCount;
+        
+        int mp1 = known1 ? matchPoints[s1] : calculateMatchPoints(p1);
+        int mp2 = known2 ? matchPoints[s2] : calculateMatchPoints(p2);
+        
+        if(mp1 > mp2) {
+            return -1;
+        } else if(mp1 < mp2) {
+            return 1;
+        }
+        
+        double omw1 = known1 ? opponentsMatchWinPercentages[s1] : 0;
+        double omw2 = known2 ? opponentsMatchWinPercentages[s2] : 0;
+        
+        if(omw1 > omw2) {
+            return -1;
+        } else if(omw1 < omw2) {
+            return 1;
+        }
+        
+        double gw1 = known1 ? gameWinPercentages[s1] : 0;
+        double gw2 = known2 ? gameWinPercentages[s2] : 0;
+        
+        if(gw1 > gw2) {
+            return -1;
+        } else if(gw1 < gw2) {
+            return 1;
+        }
+        
+        double ogw1 = known1 ? opponentsGameWinPercentages[s1] : 0;
+        double ogw2 = known2 ? opponentsGameWinPercentages[s2] : 0;
+        
+        if(ogw1 > ogw2) {
+            return -1;
+        } else if(ogw1 < ogw2) {
+            return 1;
+        }
+        
+        return 0;
+    }
+}
@@ -0,0 +1,148 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An immutable ranking of the participants of an event, as published by
+ * TournamentEvent.getStandingsSnapshot(). A snapshot never changes once it is
+ * published, so any number of threads can read it without locking while the
+ * event moves on.
+ * 
+ * <p>Participants are ranked exactly as getAllParticipantsStandings() would
+ * rank them at the moment the snapshot was taken. The match and game points
+ * shown next to each participant were read at that same moment.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+public final class StandingsSnapshot <P extends TournamentParticipant<P>> {
+    
+    private final long version;
+    private final int roundCount;
+    
+    private final List<P> participants;
+    private final HashMap<P, Integer> standings;
+    private final int[] matchPoints, gamePoints;
+    
+    /**
+     * Constructs a snapshot. Called by TournamentEvent, which hands over its
+     * arrays.
+     * 
+     * @param   version
+     *          the version of the snapshot.
+     * 
+     * @param   roundCount
+     *          the number of rounds in the event.
+     * 
+     * @param   participants
+     *          the participants, best standing first.
+     * 
+     * @param   matchPoints
+     *          the match points of each participant.
+     * 
+     * @param   gamePoints
+     *          the game points of each participant.
+     */
+    StandingsSnapshot(long version, int roundCount, 
+            ArrayList<P> participants, int[] matchPoints, int[] gamePoints) {
+        this.version = version;
+        this.roundCount = roundCount;
+        this.participants = Collections.unmodifiableList(participants);
+        this.matchPoints = matchPoints;
+        this.gamePoints = gamePoints;
+        this.standings = new HashMap<>(participants.size() * 2);
+        
+        for(int i = 0; i < participants.size(); i++) {
+            standings.put(participants.get(i), i + 1);
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to the snapshot.                                      *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the version of the snapshot. Every snapshot an event publishes
+     * has a higher version than the one before.
+     * 
+     * @return  the version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+    
+    /**
+     * Gets the number of rounds the event had when the snapshot was taken.
+     * 
+     * @return  the round count.
+     */
+    public int getRoundCount() {
+        return this.roundCount;
+    }
+    
+    /**
+     * Gets the participants, best standing first.
+     * 
+     * @return  an unmodifiable list of the participants.
+     */
+    public List<P> getParticipants() {
+        return this.participants;
+    }
+    
+    /**
+     * Gets the number of participants in the snapshot.
+     * 
+     * @return  the participant count.
+     */
+    public int getParticipantCount() {
+        return this.participants.size();
+    }
+    
+    /**
+     * Gets the standing of a participant.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  the standing, starting at 1, or 0 if the participant is not in
+     *          the snapshot.
+     */
+    public int getParticipantStandings(P participant) {
+        Integer standing = standings.get(participant);
+        
+        return (standing == null) ? 0 : standing;
+    }
+    
+    /**
+     * Gets the match points of the participant at a position.
+     * 
+     * @param   index
+     *          the position in getParticipants().
+     * 
+     * @return  the match points.
+     */
+    public int getMatchPoints(int index) {
+        return this.matchPoints[index];
+    }
+    
+    /**
+     * Gets the game points of the participant at a position.
+     * 
+     * @param   index
+     *          the position in getParticipants().
+     * 
+     * @return  the game points.
+     */
+    public int getGamePoints(int index) {
+        return this.gamePoints[index];
+    }
+}
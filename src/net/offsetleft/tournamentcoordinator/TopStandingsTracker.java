@@ -0,0 +1,193 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows the best participants of an event, such as the players who would
+ * make a top 8 cut, as results come in.
+ * 
+ * <p>The tracker listens to the event and counts every change that could
+ * move a participant in or out of the cut. The cut is selected again with
+ * TournamentEvent.getTopParticipants() the first time it is read after a
+ * change, which ranks only the participants with enough match points to
+ * make it, and is kept until the next change. Reading an unchanged cut takes
+ * no locks.
+ * 
+ * <p>Tied participants keep the order they were enrolled in, which reading
+ * the standings does not change, so only adding or removing a participant
+ * can change the order of a tie.
+ * 
+ * <p>getTopParticipants() takes the lock of the event, so it must not be
+ * called from a listener of the same event.
+ * 
+ * @param       <R>
+ *              a class that extends TournamentRound.
+ * 
+ * @param       <M>
+ *              a class that extends TournamentMatch.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+public final class TopStandingsTracker <R extends TournamentRound<M, P>,
+        M extends TournamentMatch<P>, P extends TournamentParticipant<P>>
+        implements TournamentEventListener<R, M, P>, Closeable {
+    
+    private final TournamentEvent<?, R, M, P> event;
+    private final int count;
+    
+    private final AtomicLong changeCount = new AtomicLong();
+    private volatile TopParticipants<P> topParticipants;
+    
+    /**
+     * Constructs a tracker and starts listening to the event.
+     * 
+     * @param   event
+     *          the event to follow.
+     * 
+     * @param   count
+     *          the number of participants in the cut.
+     */
+    public TopStandingsTracker(TournamentEvent<?, R, M, P> event, int count) {
+        this.event = event;
+        this.count = count;
+        
+        event.addEventListener(this);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to the tracked participants.                          *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the number of participants in the cut.
+     * 
+     * @return  the count.
+     */
+    public int getCount() {
+        return this.count;
+    }
+    
+    /**
+     * Gets the best participants of the event.
+     * 
+     * @return  an unmodifiable list of the participants, best standing first.
+     */
+    public List<P> getTopParticipants() {
+        long changes = changeCount.get();
+        TopParticipants<P> top = topParticipants;
+        
+        if(top == null || top.changeCount != changes) {
+            top = new TopParticipants<>(changes, event.getTopParticipants(count));
+            topParticipants = top;
+        }
+        
+        return top.participants;
+    }
+    
+    /**
+     * Gets the number of changes to the event the tracker has seen.
+     * 
+     * @return  the change count.
+     */
+    public long getChangeCount() {
+        return this.changeCount.get();
+    }
+    
+    /**
+     * Records a change to the event that may change the cut.
+     */
+    private void changed() {
+        changeCount.incrementAndGet();
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Overridden methods.                                                   *
+     *                                                                        *
+     **************************************************************************/
+    
+    @Override
+    public void close() {
+        event.removeEventListener(this);
+    }
+    
+    @Override
+    public void participantAdded(P participant) {
+        changed();
+    }
+    
+    @Override
+    public void participantRemoved(P participant) {
+        changed();
+    }
+    
+    @Override
+    public void participantDeactivated(P participant) {
+        changed();
+    }
+    
+    @Override
+    public void participantReactivated(P participant) {
+        changed();
+    }
+    
+    @Override
+    public void eventRoundCreated(R round) {
+        changed();
+    }
+    
+    @Override
+    public void eventRoundRemoved(R round) {
+        changed();
+    }
+    
+    @Override
+    public void matchResultsChanged(M match) {
+        changed();
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Nested classes.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * A selected cut and the change count it was selected at.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     */
+    private static final class TopParticipants <P> {
+        
+        private final long changeCount;
+        private final List<P> participants;
+        
+        /**
+         * Constructs a selected cut.
+         * 
+         * @param   changeCount
+         *          the change count the cut was selected at.
+         * 
+         * @param   participants
+         *          the participants, best standing first.
+         */
+        private TopParticipants(long changeCount, ArrayList<P> participants) {
+            this.changeCount = changeCount;
+            this.participants = Collections.unmodifiableList(participants);
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package net.offsetleft.tournamentcoordinator;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import net.offsetleft.tournamentcoordinator.exceptions.EventStateException;
+import net.offsetleft.tournamentcoordinator.exceptions.MatchStateException;
 import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
 
 /**
@@ -26,6 +37,18 @@ import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
  * TournamentSegment, TournamentRound, TournamentMatch and TournamentParticipant
  * classes included in this library.
  * 
+ * <p>Match results may be submitted from several threads at once through
+ * TournamentMatch.setMatchResults(). Operations that change the structure of
+ * the event, such as adding participants, creating or removing rounds and
+ * sorting the standings, hold the event exclusively and should be called 
+ * from one thread at a time.
+ * 
+ * <p>An event serialized with Java serialization can only be read back by 
+ * the same version of this library; events saved by earlier versions, 
+ * which kept match results as lists, cannot be read. Events that must 
+ * outlive an upgrade should be saved with TournamentSnapshotWriter, whose 
+ * format is versioned.
+ * 
  * @param       <S> 
  *              a class that extends TournamentSegement.
  * 
@@ -49,12 +72,41 @@ public class TournamentEvent
     protected SegmentEliminationStyle eliminationStyle;
     protected SegmentPairingSystem pairingSystem;
     protected SegmentMultiplayerOption multiplayerOption;
+    protected SegmentPairingAlgorithm pairingAlgorithm = 
+            SegmentPairingAlgorithm.GREEDY;
+    
+    private final Random pairingRandom = new Random();
     
     protected final ArrayList<S> tournamentSegments       = new ArrayList<>();
     
+    private final ArrayList<R> eventRounds              = new ArrayList<>();
+    
     private final ArrayList<P> allParticipants          = new ArrayList<>();
     private final ArrayList<P> standingsParticipants    = new ArrayList<>();
     
+    private final HashMap<String, P> participantsByUUID = new HashMap<>();
+    
+    private final ParticipantLedger<M, P> participantLedger = new ParticipantLedger<>();
+    private final ParticipantSearchIndex<P> searchIndex = new ParticipantSearchIndex<>();
+    
+    //Concurrency Control
+    private static final int LEDGER_LOCK_COUNT = 64;
+    
+    private final ReentrantReadWriteLock eventLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] ledgerLocks = new ReentrantLock[LEDGER_LOCK_COUNT];
+    private final ReentrantLock listenerLock = new ReentrantLock();
+    
+    //Standings Publication
+    private transient volatile StandingsSnapshot<P> standingsSnapshot;
+    private transient volatile Executor standingsExecutor;
+    private final AtomicBoolean standingsPublishPending = new AtomicBoolean();
+    private long standingsVersion;
+    
+    private transient boolean standingsStale;
+    
+    private transient CopyOnWriteArrayList<TournamentEventListener<R, M, P>> eventListeners = 
+            new CopyOnWriteArrayList<>();
+    
 
     /**
      * Constructs a new TournamentEvent object with the default elimination 
@@ -76,6 +128,34 @@ public class TournamentEvent
         this.eliminationStyle   = eliminationStyle;
         this.pairingSystem      = pairingSystem;
         this.multiplayerOption  = multiplayerOption;
+        
+        for(int i = 0; i < LEDGER_LOCK_COUNT; i++) {
+            ledgerLocks[i] = new ReentrantLock();
+        }
+        
+        publishStandings(new ArrayList<>());
+    }
+    
+    /**
+     * Reads the event, creates its list of listeners and publishes its 
+     * standings snapshot, which are not serialized.
+     * 
+     * @param   input
+     *          the stream to read the event from.
+     * 
+     * @throws  IOException
+     *          If the event cannot be read.
+     * 
+     * @throws  ClassNotFoundException
+     *          If a class of the event cannot be found.
+     */
+    private void readObject(ObjectInputStream input) 
+            throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+        
+        eventListeners = new CopyOnWriteArrayList<>();
+        standingsPublishPending.set(false);
+        publishStandingsSnapshot();
     }
     
     
@@ -114,6 +194,15 @@ public class TournamentEvent
         return this.multiplayerOption;
     }
     
+    /**
+     * Gets the pairing algorithm given to new segments of the event.
+     * 
+     * @return  the SegmentPairingAlgorithm of the event.
+     */
+    public final SegmentPairingAlgorithm getPairingAlgorithm() {
+        return this.pairingAlgorithm;
+    }
+    
     public final boolean getEventHasStarted() {
         try {
             getRegulationPlaySegment();
@@ -194,7 +283,7 @@ public class TournamentEvent
     public final int getCompletedRoundCount() {
         int roundCount = 0;
         
-        for(R round : getAllEventRounds()) {
+        for(R round : eventRounds) {
             roundCount += ((round.getOutstandingRoundResultsCount() == 0) ? 1 : 0);
         }
         
@@ -269,6 +358,32 @@ public class TournamentEvent
         
         this.multiplayerOption = multiplayerOption;
     }
+    
+    /**
+     * Sets the pairing algorithm of the event. Only segments created after 
+     * this call use it; the algorithm of an existing segment is changed 
+     * through the segment itself.
+     * 
+     * @param   pairingAlgorithm  
+     *          The SegmentPairingAlgorithm to be used
+     */
+    public final void setPairingAlgorithm(
+            SegmentPairingAlgorithm pairingAlgorithm) {
+        this.pairingAlgorithm = pairingAlgorithm;
+    }
+    
+    /**
+     * Seeds the random choices made while pairing, such as the order of the
+     * first round. All segments of the event draw from the same generator,
+     * so an event that is seeded before its first round and then run the 
+     * same way is paired the same way every time.
+     * 
+     * @param   seed
+     *          the seed of the pairing generator.
+     */
+    public final void setPairingSeed(long seed) {
+        this.pairingRandom.setSeed(seed);
+    }
 
     
     /**************************************************************************
@@ -352,15 +467,27 @@ public class TournamentEvent
      *          If the event has already begun.
      */
     public void createRegulationPlaySegment() throws TournamentStateException {
-        if(tournamentSegments.size() > 0) {
-            throw new
-                TournamentStateException("Event has begun. Cannot start regular play a second time.");
-        }
+        eventLock.writeLock().lock();
         
-        createNewSegment(this.eliminationStyle, 
-                this.pairingSystem, 
-                this.allParticipants,
-                false);
+        try {
+            if(tournamentSegments.size() > 0) {
+                throw new
+                    TournamentStateException("Event has begun. Cannot start regular play a second time.");
+            }
+            
+            createNewSegment(this.eliminationStyle, 
+                    this.pairingSystem, 
+                    this.allParticipants,
+                    false);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.regulationPlaySegmentCreated();
+            }
+        } finally {
+            unlockEvent();
+        }
     }
     
     /**
@@ -369,6 +496,15 @@ public class TournamentEvent
      * This method will throw a TournamentStateException if regulation play has
      * not started or if playoff play has already begun.
      * 
+     * The players kept are the best by the current standings, as selected by
+     * getTopParticipants(), so the standings do not have to be read first.
+     * 
+     * A single elimination heads-up playoff is paired from a PlayoffBracket 
+     * of the players kept, built once when the segment is created, and the 
+     * cut may be any number of two or more; the top seeds get byes when it 
+     * is not a power of two. Other playoffs need a cut that is a power of 
+     * two.
+     * 
      * @param   cut               
      *          The number of players to keep
      * 
@@ -383,96 +519,95 @@ public class TournamentEvent
      *          <ul>
      *              <li>The event has not begun.</li>
      *              <li>Playoff play has already begun.</li>
+     *              <li>The cut keeps fewer than two players.</li>
+     *              <li>The cut is not a power of two and the playoff is not 
+     *              single elimination heads-up.</li>
      *          </ul>
      */
     public void createPlayoffPlaySegment(
             int cut,
             SegmentEliminationStyle eliminationStyle, 
             SegmentPairingSystem pairingSystem) throws TournamentStateException {
-        if(tournamentSegments.size() < 1) {
-            throw new
-                TournamentStateException("Event has not begun. "
-                        + "Cannot start playoffs.");
-        }
-        
-        if(tournamentSegments.size() > 1) {
-            throw new
-                TournamentStateException("Playoff play has begun. "
-                        + "Cannot start playoff play a second time.");
-        }
+        eventLock.writeLock().lock();
         
-        if(cut >= 0) {
-            ArrayList<P> topX = new ArrayList<>(standingsParticipants.subList(0, cut));
+        try {
+            if(tournamentSegments.size() < 1) {
+                throw new
+                    TournamentStateException("Event has not begun. "
+                            + "Cannot start playoffs.");
+            }
             
-            int playerCount = topX.size();
+            if(tournamentSegments.size() > 1) {
+                throw new
+                    TournamentStateException("Playoff play has begun. "
+                            + "Cannot start playoff play a second time.");
+            }
             
-            if(Integer.bitCount(playerCount) == 1) {
-                ArrayList<P> seededList = generateSeededList(topX);
+            if(cut >= 0) {
+                ArrayList<P> topX = new StandingsCalculator<>(this)
+                        .selectTop(standingsParticipants, cut);
                 
+                if(eliminationStyle == SegmentEliminationStyle.SINGLE
+                        && multiplayerOption == SegmentMultiplayerOption.HEADSUP) {
+                    if(topX.size() < 2) {
+                        throw new EventStateException("A playoff cut needs "
+                                + "at least two participants.");
+                    }
+                    
+                    // The segment pairs from a PlayoffBracket of the cut, 
+                    // which gives the top seeds byes when the cut is not a 
+                    // power of two.
+                    createNewSegment(eliminationStyle, 
+                            pairingSystem, 
+                            topX, true);
+                } else {
+                    if(Integer.bitCount(topX.size()) != 1) {
+                        throw new EventStateException("Only a single "
+                                + "elimination heads-up playoff can be cut "
+                                + "to a number of participants that is not "
+                                + "a power of two.");
+                    }
+                    
+                    ArrayList<P> seededList = generateSeededList(topX);
+                    
+                    createNewSegment(eliminationStyle, 
+                            pairingSystem, 
+                            seededList, true);
+                }
+            } else {
                 createNewSegment(eliminationStyle, 
                         pairingSystem, 
-                        seededList, true);
+                        getActiveEventParticipants(), false);
             }
-        } else {
-            createNewSegment(eliminationStyle, 
-                    pairingSystem, 
-                    getActiveEventParticipants(), false);
-        }
-    }
-    
-    /**
-     * TODO: Comment
-     * 
-     * @param toSeed
-     * @return 
-     */
-    private ArrayList<P> generateSeededList(ArrayList<P> toSeed) {
-        int [] seedGreed = getSeedGrid(toSeed.size());
-        ArrayList<P> toReturn = new ArrayList<>();
-        
-        for(int i : seedGreed) {
-            toReturn.add(toSeed.get(i - 1));
+            
+            eventChanged();
+            
+            if(getPlayoffHasBegun()) {
+                for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                    listener.playoffPlaySegmentCreated(cut);
+                }
+            }
+        } finally {
+            unlockEvent();
         }
-        
-        return toReturn;
     }
     
     /**
-     * TODO: Comment
+     * Orders the participants of a playoff cut the way they are placed in a 
+     * bracket, so that the best seeds meet as late as possible.
      * 
-     * @param partSize
-     * @return 
-     */
-    private int[] getSeedGrid(int partSize) {
-        double rounds = Math.log(partSize) / Math.log(2)-1;
-        int[] pls = {1, 2};
-        
-        for(int i = 0; i < rounds; i++) {
-            pls = nextLayer(pls);
-        }
-        
-        return pls;
-    }
-    
-    /**
-     * TODO: Comment
+     * @param   toSeed
+     *          the participants of the cut, best seed first. The count must 
+     *          be a power of two.
      * 
-     * @param pls
-     * @return 
+     * @return  the participants in bracket order.
      */
-    private int[] nextLayer(int[] pls) {
-        ArrayList<Integer> out = new ArrayList<>();
-        int length = pls.length * 2 + 1;
-        
-        for(int i : pls) {
-            out.add(i);
-            out.add(length - i);
-        }
-        
-        int[] toReturn = new int[out.size()];
+    private ArrayList<P> generateSeededList(ArrayList<P> toSeed) {
+        int[] seedOrder = PlayoffBracket.getSeedOrder(toSeed.size());
+        ArrayList<P> toReturn = new ArrayList<>(seedOrder.length);
         
-        for(int i = 0; i < out.size(); i++) {
-            toReturn[i] = out.get(i);
+        for(int i : seedOrder) {
+            toReturn.add(toSeed.get(i));
         }
         
         return toReturn;
@@ -508,7 +643,67 @@ public class TournamentEvent
                         multiplayerOption, 
                         participants,
                         seeded));
+        newSegment.setPairingAlgorithm(pairingAlgorithm);
+        newSegment.setPairingRandom(pairingRandom);
         tournamentSegments.add(newSegment);
+        
+        refreshEventRounds();
+    }
+    
+    /**
+     * Restores the participants and segments of an empty event from a
+     * snapshot, enrolling every match and rebuilding the participant ledger.
+     * 
+     * Called by TournamentSnapshotReader once the whole snapshot is read.
+     * 
+     * @param   participants
+     *          the enrolled participants, in standings order.
+     * 
+     * @param   alphabeticalParticipants
+     *          the enrolled participants, in alphabetical order.
+     * 
+     * @param   segments
+     *          the segments of the event.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of a match cannot be read.
+     */
+    final void restoreSnapshot(
+            ArrayList<P> participants,
+            ArrayList<P> alphabeticalParticipants,
+            ArrayList<S> segments) throws TournamentStateException {
+        eventLock.writeLock().lock();
+        
+        try {
+            for(P participant : participants) {
+                participantsByUUID.put(participant.getUUID(), participant);
+                participantLedger.getOrCreateSlot(participant);
+                searchIndex.add(participant);
+            }
+            
+            allParticipants.addAll(alphabeticalParticipants);
+            standingsParticipants.addAll(participants);
+            
+            for(S segment : segments) {
+                segment.setPairingRandom(pairingRandom);
+                segment.restorePlayoffBracket();
+                tournamentSegments.add(segment);
+            }
+            
+            refreshEventRounds();
+            
+            for(R round : eventRounds) {
+                for(M match : round.getRoundMatches()) {
+                    match.setEnrollment(this, round);
+                }
+                
+                participantLedger.addRound(round);
+            }
+            
+            eventChanged();
+        } finally {
+            unlockEvent();
+        }
     }
     
     
@@ -526,13 +721,21 @@ public class TournamentEvent
      * @return  a list of all event rounds.
      */
     public final ArrayList<R> getAllEventRounds() {
-        ArrayList<R> eventRounds = new ArrayList<>();
+        return new ArrayList<>(eventRounds);
+    }
+    
+    /**
+     * Rebuilds the cached list of event rounds from the event segments.
+     * 
+     * Must be called whenever a segment or a segment round is added or 
+     * removed; every other round lookup reads the cached list.
+     */
+    private void refreshEventRounds() {
+        eventRounds.clear();
         
-        tournamentSegments.stream().forEach((segment) -> {
+        for(S segment : tournamentSegments) {
             eventRounds.addAll(segment.getSegmentRounds());
-        });
-        
-        return eventRounds;
+        }
     }
     
     /**
@@ -547,14 +750,12 @@ public class TournamentEvent
      *          If the requested round is outside acceptable range.
      */
     public final R getRound(int round) throws TournamentStateException {
-        ArrayList<R> allRounds = getAllEventRounds();
-        
-        if(round <= 0 || allRounds.size() < round) {
+        if(round <= 0 || eventRounds.size() < round) {
             throw new TournamentStateException("Requested round is outside "
                     + "acceptable range.");
         }
         
-        return getAllEventRounds().get(round - 1);
+        return eventRounds.get(round - 1);
     }
     
     /**
@@ -563,7 +764,7 @@ public class TournamentEvent
      * @return  an integer representing the count of event rounds.
      */
     public final int getEventRoundCount() {
-        return getAllEventRounds().size();
+        return eventRounds.size();
     }
     
     /**
@@ -599,11 +800,13 @@ public class TournamentEvent
      *          If the event does not include the requested round.
      */
     public final int getRoundNumberForRound(R round) throws EventStateException {
-        if(!getAllEventRounds().contains(round)) {
+        int index = eventRounds.indexOf(round);
+        
+        if(index < 0) {
             throw new EventStateException("Event does not contain round.");
         }
         
-        return getAllEventRounds().indexOf(round);
+        return index;
     }
     
     /**
@@ -617,13 +820,134 @@ public class TournamentEvent
      *          </ul>
      */
     public void createNewEventRound() throws TournamentStateException {
-        if(tournamentSegments.isEmpty()) {
-            throw new TournamentStateException("Event has not begun yet. Cannot create new round.");
+        eventLock.writeLock().lock();
+        
+        try {
+            if(tournamentSegments.isEmpty()) {
+                throw new TournamentStateException("Event has not begun yet. Cannot create new round.");
+            }
+            
+            int roundNumber = getEventRoundCount() + 1;
+            
+            getCurrentSegment().createNewSegmentRound(roundNumber, 
+                    new StandingsCalculator<>(this));
+            
+            refreshEventRounds();
+            
+            R round = getCurrentEventRound();
+            
+            for(M match : round.getRoundMatches()) {
+                match.setEnrollment(this, round);
+            }
+            
+            participantLedger.addRound(round);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.eventRoundCreated(round);
+            }
+        } finally {
+            unlockEvent();
         }
+    }
+    
+    /**
+     * Begins playoff play with participants that were cut earlier, such as 
+     * ones read from a journal, without selecting them from the standings 
+     * again.
+     * 
+     * @param   cut
+     *          the cut the playoff segment was created with.
+     * 
+     * @param   eliminationStyle  
+     *          The SegmentEliminationStyle to be used
+     * 
+     * @param   pairingSystem     
+     *          the SegmentPairingSystem to be used
+     * 
+     * @param   participants
+     *          the participants of the segment, in the order the segment was 
+     *          created with.
+     * 
+     * @throws  TournamentStateException
+     *          If regulation play has not begun or playoff play has already 
+     *          begun.
+     */
+    final void restorePlayoffPlaySegment(
+            int cut,
+            SegmentEliminationStyle eliminationStyle, 
+            SegmentPairingSystem pairingSystem,
+            ArrayList<P> participants) throws TournamentStateException {
+        eventLock.writeLock().lock();
         
-        int roundNumber = getEventRoundCount() + 1;
+        try {
+            if(tournamentSegments.size() != 1) {
+                throw new EventStateException("Regulation play is not under "
+                        + "way. Cannot restore playoff play.");
+            }
+            
+            createNewSegment(eliminationStyle, 
+                    pairingSystem, 
+                    participants, cut >= 0);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.playoffPlaySegmentCreated(cut);
+            }
+        } finally {
+            unlockEvent();
+        }
+    }
+    
+    /**
+     * Adds a round that was paired earlier, such as one read from a journal,
+     * to the current segment without pairing it again. The active
+     * participants of the segment become the participants of the round, as
+     * they would have after pairing it.
+     * 
+     * @param   round
+     *          the round to add.
+     * 
+     * @throws  TournamentStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the event has not begun.</li>
+     *              <li>the results of a match cannot be read.</li>
+     *          </ul>
+     */
+    final void restoreEventRound(R round) throws TournamentStateException {
+        eventLock.writeLock().lock();
         
-        getCurrentSegment().createNewSegmentRound(roundNumber);
+        try {
+            if(tournamentSegments.isEmpty()) {
+                throw new EventStateException("Event has not begun yet. Cannot restore round.");
+            }
+            
+            S segment = getCurrentSegment();
+            
+            segment.getActiveParticipants().clear();
+            segment.getActiveParticipants().addAll(round.getRoundParticipants());
+            segment.getSegmentRounds().add(round);
+            segment.restorePlayoffBracket();
+            
+            refreshEventRounds();
+            
+            for(M match : round.getRoundMatches()) {
+                match.setEnrollment(this, round);
+            }
+            
+            participantLedger.addRound(round);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.eventRoundCreated(round);
+            }
+        } finally {
+            unlockEvent();
+        }
     }
     
     /**
@@ -633,15 +957,37 @@ public class TournamentEvent
      *          If the event has not begun.
      */
     public final void removeCurrentEventRound() throws TournamentStateException {
-        if(tournamentSegments.isEmpty()) {
-            throw new TournamentStateException("Event has not begun yet. Cannot create new round.");
-        }
+        eventLock.writeLock().lock();
         
-        getCurrentSegment().removeCurrentSegmentRound();
-        
-        if(getCurrentSegment().getSegmentRoundCount() == 0) {
-            int size = tournamentSegments.size();
-            tournamentSegments.remove(size - 1);
+        try {
+            if(tournamentSegments.isEmpty()) {
+                throw new TournamentStateException("Event has not begun yet. Cannot create new round.");
+            }
+            
+            R round = getCurrentEventRound();
+            
+            getCurrentSegment().removeCurrentSegmentRound();
+            
+            participantLedger.removeRound(round);
+            
+            for(M match : round.getRoundMatches()) {
+                match.setEnrollment(null, null);
+            }
+            
+            if(getCurrentSegment().getSegmentRoundCount() == 0) {
+                int size = tournamentSegments.size();
+                tournamentSegments.remove(size - 1);
+            }
+            
+            refreshEventRounds();
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.eventRoundRemoved(round);
+            }
+        } finally {
+            unlockEvent();
         }
     }
     
@@ -670,15 +1016,15 @@ public class TournamentEvent
      */
     public final ArrayList<M> getRoundMatchesForRound(
             int roundNumber) throws TournamentStateException {
-        if(roundNumber < 1 || getAllEventRounds().size() < roundNumber) {
+        if(roundNumber < 1 || eventRounds.size() < roundNumber) {
             throw new TournamentStateException("Round index out of bounds. No such round.");
         }
         
-        if(!getAllEventRounds().get(roundNumber - 1).getRoundHasMatches()) {
+        if(!eventRounds.get(roundNumber - 1).getRoundHasMatches()) {
             throw new TournamentStateException("Round does not have matches available.");
         }
         
-        return getAllEventRounds().get(roundNumber - 1).getRoundMatches();
+        return eventRounds.get(roundNumber - 1).getRoundMatches();
     }
     
     /**
@@ -687,13 +1033,9 @@ public class TournamentEvent
      * @return  ArrayList of matches
      */
     public final ArrayList<M> getAllEventMatches() {
-        if(getAllEventRounds().size() <= 0) {
-            return new ArrayList<>();
-        }
-        
         ArrayList<M> allMatches = new ArrayList<>();
         
-        for(R round : getAllEventRounds()) {
+        for(R round : eventRounds) {
             allMatches.addAll(round.getRoundMatches());
         }
         
@@ -728,16 +1070,21 @@ public class TournamentEvent
      * @return  The list of matches the participant was involved in.
      */
     public final ArrayList<M> getAllParticipantMatches(P participant) {
-        ArrayList<M> allMatches = getAllEventMatches();
-        ArrayList<M> pariticpantMatches = new ArrayList<>();
-        
-        for(M match : allMatches) {
-            if(match.getWasParticipant(participant)) {
-                pariticpantMatches.add(match);
-            }
-        }
-        
-        return pariticpantMatches;
+        return new ArrayList<>(getParticipantMatchHistory(participant));
+    }
+    
+    /**
+     * Returns a read-only view of the matches the requested participant was 
+     * involved in, ordered by round. The view reflects later rounds as they 
+     * are created and removed.
+     * 
+     * @param   participant
+     *          The participant to get matches for.
+     * 
+     * @return  An unmodifiable list of the participant's matches.
+     */
+    public final List<M> getParticipantMatchHistory(P participant) {
+        return participantLedger.getMatches(participant);
     }
     
     
@@ -758,40 +1105,311 @@ public class TournamentEvent
         return this.allParticipants;
     }
     
+    /**
+     * Gets all participants in the event ordered by their current standing,
+     * as ranked in the latest standings snapshot.
+     * 
+     * @return  a new list of all participants, best standing first.
+     */
     public final ArrayList<P> getAllParticipantsStandings() {
-        Collections.sort(standingsParticipants, new P.StandingsComparator());
+        ArrayList<P> standings = 
+                new ArrayList<>(getStandingsSnapshot().getParticipants());
         
-        return this.standingsParticipants;
+        if(getEventListeners().isEmpty()) {
+            return standings;
+        }
+        
+        eventLock.readLock().lock();
+        
+        try {
+            listenerLock.lock();
+            
+            try {
+                for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                    listener.standingsRead(standings);
+                }
+            } finally {
+                listenerLock.unlock();
+            }
+        } finally {
+            eventLock.readLock().unlock();
+        }
+        
+        return standings;
     }
     
     /**
-     * Gets if the requested participant is participating in this event.
+     * Gets the best participants of the event without ranking the whole 
+     * field. The participants are the ones getAllParticipantsStandings() 
+     * would put first, in the same order.
      * 
-     * @param   participant
-     *          the participant to check.
+     * @param   count
+     *          the number of participants to get.
      * 
-     * @return  a boolean value
+     * @return  the participants, best standing first.
      */
-    public final boolean getIsParticipant(P participant) {
-        return allParticipants.stream().anyMatch((toCheck) ->
-                (toCheck.getUUID().equals(participant.getUUID())));
+    public final ArrayList<P> getTopParticipants(int count) {
+        eventLock.writeLock().lock();
+        
+        try {
+            return new StandingsCalculator<>(this)
+                    .selectTop(standingsParticipants, count);
+        } finally {
+            eventLock.writeLock().unlock();
+        }
     }
     
     /**
-     * Gets the total participant count.
+     * Gets the latest standings snapshot of the event. The snapshot is 
+     * published again after every change to the event, by the thread that 
+     * made the change or on the standings executor once one is set, so 
+     * reading it takes no locks and ranks nothing.
      * 
-     * @return  the total participant count
+     * @return  the standings snapshot.
      */
-    public final int getAllParticipantCount() {
-        return this.allParticipants.size();
+    public final StandingsSnapshot<P> getStandingsSnapshot() {
+        return this.standingsSnapshot;
     }
     
     /**
-     * Gets all active participants in the event.
+     * Ranks the participants and publishes the ranking as the latest 
+     * standings snapshot.
      * 
-     * @return  all active participants
+     * @return  the published snapshot.
      */
-    public final ArrayList<P> getActiveEventParticipants() {
+    public final StandingsSnapshot<P> publishStandingsSnapshot() {
+        standingsPublishPending.set(false);
+        eventLock.writeLock().lock();
+        
+        try {
+            standingsStale = false;
+            
+            ArrayList<P> ranking = new ArrayList<>(standingsParticipants);
+            
+            ranking.sort(new StandingsCalculator<>(this));
+            
+            return publishStandings(ranking);
+        } finally {
+            eventLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Sets the executor that republishes the standings snapshot after the
+     * event changes. Changes that happen while a republication is waiting to
+     * run are folded into it, so a burst of results is ranked once. The 
+     * executor should run tasks on a thread other than the one submitting 
+     * them. Without an executor every change ranks the participants again 
+     * before it returns, which large events entering many results should 
+     * avoid.
+     * 
+     * @param   executor
+     *          the executor, or null to republish on the thread that 
+     *          changed the event.
+     */
+    public final void setStandingsExecutor(Executor executor) {
+        this.standingsExecutor = executor;
+        
+        standingsChanged();
+    }
+    
+    /**
+     * Publishes a ranking as the latest standings snapshot. Called with the
+     * event locked exclusively.
+     * 
+     * @param   ranking
+     *          the participants, best standing first.
+     * 
+     * @return  the published snapshot.
+     */
+    private StandingsSnapshot<P> publishStandings(ArrayList<P> ranking) {
+        int[] matchPoints = new int[ranking.size()];
+        int[] gamePoints = new int[ranking.size()];
+        
+        for(int i = 0; i < ranking.size(); i++) {
+            try {
+                matchPoints[i] = getParticipantMatchPoints(ranking.get(i));
+                gamePoints[i] = getParticipantGamePoints(ranking.get(i));
+            } catch (TournamentStateException ex) { }
+        }
+        
+        StandingsSnapshot<P> snapshot = new StandingsSnapshot<>(
+                ++standingsVersion, getEventRoundCount(), 
+                ranking, matchPoints, gamePoints);
+        
+        standingsSnapshot = snapshot;
+        
+        return snapshot;
+    }
+    
+    /**
+     * Publishes the standings snapshot again after a change to the event, or
+     * schedules the republication on the standings executor unless one is 
+     * already waiting to run. Called with the event unlocked or locked 
+     * exclusively.
+     */
+    private void standingsChanged() {
+        Executor executor = standingsExecutor;
+        
+        if(executor == null) {
+            publishStandingsSnapshot();
+        } else if(standingsPublishPending.compareAndSet(false, true)) {
+            executor.execute(this::publishStandingsSnapshot);
+        }
+    }
+    
+    /**
+     * Gets the participants in the order they were added in, which is the 
+     * order participants tied in the standings are ranked in.
+     * 
+     * @return  the participants.
+     */
+    final ArrayList<P> getStandingsParticipants() {
+        return this.standingsParticipants;
+    }
+    
+    /**
+     * Gets if the requested participant is participating in this event.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  a boolean value
+     */
+    public final boolean getIsParticipant(P participant) {
+        return participantsByUUID.containsKey(participant.getUUID());
+    }
+    
+    /**
+     * Gets the participant enrolled in this event with the requested UUID.
+     * 
+     * @param   participantUUID
+     *          the UUID to look up.
+     * 
+     * @return  the participant
+     * 
+     * @throws  TournamentStateException
+     *          If there is no such participant enrolled in the event.
+     */
+    public final P getParticipantByUUID(String participantUUID) throws TournamentStateException {
+        P participant = participantsByUUID.get(participantUUID);
+        
+        if(participant == null) {
+            throw new TournamentStateException("No such participant.");
+        }
+        
+        return participant;
+    }
+    
+    /**
+     * Finds the participants whose first or last name contains a search 
+     * value, ignoring case, through an index of the participant names rather
+     * than by filtering every participant.
+     * 
+     * @param   filterValue
+     *          the value to search for.
+     * 
+     * @return  the matching participants, in alphabetical order.
+     */
+    public final ArrayList<P> searchParticipants(String filterValue) {
+        ArrayList<P> found;
+        
+        eventLock.readLock().lock();
+        
+        try {
+            found = searchIndex.search(filterValue);
+        } finally {
+            eventLock.readLock().unlock();
+        }
+        
+        found.sort(new P.AlphabeticalComparator());
+        
+        return found;
+    }
+    
+    /**
+     * Finds the matches of the current round with a participant whose first
+     * or last name contains a search value, ignoring case.
+     * 
+     * @param   filterValue
+     *          the value to search for.
+     * 
+     * @return  the matching matches, in the alphabetical order of the first
+     *          participant found in each.
+     */
+    public final ArrayList<M> searchCurrentRoundMatches(String filterValue) {
+        ArrayList<M> found = new ArrayList<>();
+        HashSet<M> foundMatches = new HashSet<>();
+        
+        eventLock.readLock().lock();
+        
+        try {
+            R currentRound = eventRounds.isEmpty() 
+                    ? null : eventRounds.get(eventRounds.size() - 1);
+            
+            if(currentRound == null) {
+                return found;
+            }
+            
+            ArrayList<P> participants = searchIndex.search(filterValue);
+            
+            participants.sort(new P.AlphabeticalComparator());
+            
+            for(P participant : participants) {
+                List<M> history = participantLedger.getMatches(participant);
+                
+                if(history.isEmpty()) {
+                    continue;
+                }
+                
+                M match = history.get(history.size() - 1);
+                
+                if(match.getEnrolledRound() == currentRound 
+                        && foundMatches.add(match)) {
+                    found.add(match);
+                }
+            }
+        } finally {
+            eventLock.readLock().unlock();
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Gets if the requested participant object is the one enrolled in this 
+     * event under its UUID.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @return  a boolean value
+     */
+    private boolean getIsEnrolled(P participant) {
+        if(participant == null) {
+            return false;
+        }
+        
+        P enrolled = participantsByUUID.get(participant.getUUID());
+        
+        return enrolled != null && enrolled.equals(participant);
+    }
+    
+    /**
+     * Gets the total participant count.
+     * 
+     * @return  the total participant count
+     */
+    public final int getAllParticipantCount() {
+        return this.allParticipants.size();
+    }
+    
+    /**
+     * Gets all active participants in the event.
+     * 
+     * @return  all active participants
+     */
+    public final ArrayList<P> getActiveEventParticipants() {
         if(getCurrentSegment() == null) {
             return this.allParticipants;
         }
@@ -820,11 +1438,15 @@ public class TournamentEvent
     public final ArrayList<P> getInactiveParticipants() {
         ArrayList<P> inactiveParticipants = new ArrayList<>();
         
-        if(getCurrentSegment() != null)
+        if(getCurrentSegment() != null) {
+            HashSet<P> activeParticipants = 
+                    new HashSet<>(getCurrentSegment().getActiveParticipants());
+            
             for(P participant : allParticipants) {
-                if(!getCurrentSegment().getActiveParticipants().contains(participant))
+                if(!activeParticipants.contains(participant))
                     inactiveParticipants.add(participant);
             }
+        }
         
         return inactiveParticipants;
     }
@@ -849,7 +1471,7 @@ public class TournamentEvent
      *          If there is no such participant enrolled in the event.
      */
     public final ParticipantStatus getParticipantStatus(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
@@ -872,11 +1494,11 @@ public class TournamentEvent
      *          If there is no such participant enrolled in the event.
      */
     public final int getParticipantStandings(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        return standingsParticipants.indexOf(participant) + 1;
+        return getStandingsSnapshot().getParticipantStandings(participant);
     }
     
     /**
@@ -891,13 +1513,17 @@ public class TournamentEvent
      *          If there is no such participant enrolled in the event.
      */
     public final int getParticipantMatchPoints(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        int currentRound = getAllEventRounds().size();
+        // A participant who missed a round reports no points, the same as
+        // getParticipantMatchPointsAtRound() does for the current round.
+        if(participantLedger.getMatchCount(participant) < getEventRoundCount()) {
+            return 0;
+        }
         
-        return getParticipantMatchPointsAtRound(participant, currentRound);
+        return participantLedger.getMatchPoints(participant);
     }
     
     /**
@@ -915,24 +1541,50 @@ public class TournamentEvent
      *          If there is no such participant enrolled in the event.
      */
     public final int getParticipantMatchPointsAtRound(P participant, int round) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        ArrayList<M> participantMatches = getAllParticipantMatches(participant);
-        
-        if(round <= 0 || participantMatches.size() < round) {
+        if(round <= 0 || participantLedger.getMatchCount(participant) < round) {
             return 0;
         }
         
-        int pointTotal = 0;
+        return participantLedger.getMatchPointsAfter(participant, round);
+    }
+    
+    /**
+     * Gets the points the requested participant gained after one round up to
+     * and including a later round.
+     * 
+     * @param   participant
+     *          the participant to check.
+     * 
+     * @param   fromRound
+     *          the round to count from, exclusive.
+     * 
+     * @param   toRound
+     *          the round to count to, inclusive.
+     * 
+     * @return  the points gained between the rounds, or 0 if the participant
+     *          has no points at the later round.
+     * 
+     * @throws  TournamentStateException
+     *          If there is no such participant enrolled in the event.
+     */
+    public final int getParticipantMatchPointsBetweenRounds(P participant, 
+            int fromRound, int toRound) throws TournamentStateException {
+        if(!getIsEnrolled(participant)) {
+            throw new TournamentStateException("No such participant.");
+        }
         
-        if(participantMatches.size() > 0)
-            for(int i = 0; i < round; i++) {
-                pointTotal += participantMatches.get(i).getParticipantMatchPoints(participant);
-            }
+        if(toRound <= 0 || participantLedger.getMatchCount(participant) < toRound) {
+            return 0;
+        }
         
-        return pointTotal;
+        int from = Math.min(Math.max(fromRound, 0), toRound);
+        
+        return participantLedger.getMatchPointsAfter(participant, toRound)
+                - participantLedger.getMatchPointsAfter(participant, from);
     }
     
     /**
@@ -943,19 +1595,11 @@ public class TournamentEvent
      * @throws  TournamentStateException 
      */
     public final int getParticipantGamePoints(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        int pointTotal = 0;
-        
-        ArrayList<M> participantMatches = getAllParticipantMatches(participant);
-        
-        for(M match : participantMatches) {
-            pointTotal += match.getParticipantGamePoints(participant);
-        }
-        
-        return pointTotal;
+        return participantLedger.getGamePoints(participant);
     }
     
     /**
@@ -966,19 +1610,11 @@ public class TournamentEvent
      * @throws TournamentStateException 
      */
     public final int getParticipantGamesPlayed(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        int gamesPlayed = 0;
-        
-        ArrayList<M> participantMatches = getAllParticipantMatches(participant);
-        
-        for(M match : participantMatches) {
-            gamesPlayed += match.getGamesPlayedTotal();
-        }
-        
-        return gamesPlayed;
+        return participantLedger.getGamesPlayed(participant);
     }
     
     /**
@@ -994,26 +1630,11 @@ public class TournamentEvent
      *          If there is no such participant enrolled in the event.
      */
     public final int getParticipantLossCount(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        int lossCount = 0;
-        
-        for(R round : getAllEventRounds()) {
-            if(round.getEliminationStyle() == SegmentEliminationStyle.SINGLE
-                    || round.getEliminationStyle() == SegmentEliminationStyle.DOUBLE) {
-                for(M match : round.getRoundMatches()) {
-                    if(match.getWasParticipant(participant) 
-                            && match.getMatchHasResults()
-                            && match.getParticipantMatchPoints(participant) == 0) {
-                        lossCount++;
-                    }
-                }
-            }
-        }
-        
-        return lossCount;
+        return participantLedger.getLossCount(participant);
     }
     
     /**
@@ -1033,20 +1654,11 @@ public class TournamentEvent
     public final boolean getParticipantsHavePlayed(
             P participantA, 
             P participantB) throws TournamentStateException {
-        if(!allParticipants.contains(participantA) || !allParticipants.contains(participantB)) {
+        if(!getIsEnrolled(participantA) || !getIsEnrolled(participantB)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        for(R round : getAllEventRounds()) {
-            for(M match : round.getRoundMatches()) {
-                if(match.getWasParticipant(participantA) 
-                        && match.getWasParticipant(participantB)) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
+        return participantLedger.getHavePlayed(participantA, participantB);
     }
     
     /**
@@ -1061,19 +1673,11 @@ public class TournamentEvent
      *          If the participant is not enrolled in the event.
      */
     public final boolean getParticipantHasHadBye(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
+        if(!getIsEnrolled(participant)) {
             throw new TournamentStateException("No such participant.");
         }
         
-        for(R round : getAllEventRounds()) {
-            for(M match : round.getRoundMatches()) {
-                if(match.getWasParticipant(participant) 
-                        && match.getMatchParticipantCount() == 1) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return participantLedger.getByeCount(participant) > 0;
     }
     
     /**
@@ -1084,16 +1688,202 @@ public class TournamentEvent
      * @throws  TournamentStateException 
      */
     public final ArrayList<P> getAllOpponentsForParticipant(P participant) throws TournamentStateException {
-        ArrayList<M> participantMatches = getAllParticipantMatches(participant);
+        List<M> participantMatches = getParticipantMatchHistory(participant);
         ArrayList<P> participantOpponents = new ArrayList<>();
         
         for(M match : participantMatches) {
-            participantOpponents.addAll(match.getOpponents(participant));
+            for(int i = 0; i < match.getMatchParticipantCount(); i++) {
+                P opponent = match.getMatchParticipant(i);
+                
+                if(opponent != participant) {
+                    participantOpponents.add(opponent);
+                }
+            }
         }
         
         return participantOpponents;
     }
     
+    /**
+     * Gets the ledger of running participant totals.
+     * 
+     * @return  the participant ledger.
+     */
+    final ParticipantLedger<M, P> getParticipantLedger() {
+        return this.participantLedger;
+    }
+    
+    /**
+     * Replaces the results of an enrolled match and adds them to the 
+     * participant ledger.
+     * 
+     * <p>Submissions for different matches run in parallel. They share the
+     * read lock of the event, so changes to its structure wait for them, and
+     * each locks its match, so submissions for the same match are applied 
+     * one at a time. The ledger totals of the match participants are 
+     * guarded by striped locks, taken in stripe order so that two 
+     * submissions can never wait for each other. Listeners are told about 
+     * one submission at a time.
+     * 
+     * @param   submitted
+     *          the match whose results to set.
+     * 
+     * @param   results
+     *          the new results.
+     * 
+     * @param   expectedVersion
+     *          the version the results must be at, or 
+     *          TournamentMatch.ANY_VERSION.
+     * 
+     * @return  the new result version.
+     * 
+     * @throws  TournamentStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the results are not at the expected version.</li>
+     *              <li>the match was withdrawn from the event.</li>
+     *              <li>the results of the match cannot be read.</li>
+     *          </ul>
+     */
+    final long submitMatchResults(TournamentMatch<P> submitted, int[] results, 
+            long expectedVersion) throws TournamentStateException {
+        // Only the matches of the rounds of this event enroll in it, and 
+        // those are created as M.
+        @SuppressWarnings("unchecked")
+        M match = (M)submitted;
+        long version;
+        
+        eventLock.readLock().lock();
+        
+        try {
+            synchronized(match) {
+                if(!match.getIsEnrolledIn(this)) {
+                    throw new MatchStateException("Match was withdrawn from the event.");
+                }
+                
+                match.checkResultVersion(expectedVersion);
+                
+                int[] stripes = lockLedgerStripes(match);
+                
+                try {
+                    participantLedger.removeMatchResults(match);
+                    version = match.replaceMatchResults(results);
+                    participantLedger.addMatchResults(match);
+                } finally {
+                    unlockLedgerStripes(stripes);
+                }
+                
+                listenerLock.lock();
+                
+                try {
+                    for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                        listener.matchResultsChanged(match);
+                    }
+                } finally {
+                    listenerLock.unlock();
+                }
+            }
+        } finally {
+            eventLock.readLock().unlock();
+        }
+        
+        // A result submitted by a listener of another change is published 
+        // along with that change once it lets go of the event.
+        if(eventLock.isWriteLockedByCurrentThread()) {
+            eventChanged();
+        } else if(eventLock.getReadHoldCount() == 0) {
+            standingsChanged();
+        }
+        
+        return version;
+    }
+    
+    /**
+     * Gets the lock guarding the state of the event. Classes that read or 
+     * save the whole event from another thread, such as 
+     * TournamentSnapshotWriter, hold its read lock while they do, and hold 
+     * its write lock to keep the event from changing between operations.
+     * 
+     * @return  the lock.
+     */
+    final ReentrantReadWriteLock getEventLock() {
+        return eventLock;
+    }
+    
+    /**
+     * Records that a change to the event succeeded, so the standings are
+     * published again once the change lets go of the event. Called with the
+     * event locked exclusively.
+     */
+    private void eventChanged() {
+        standingsStale = true;
+    }
+    
+    /**
+     * Releases the exclusive lock taken by a change to the structure of the
+     * event and, once the outermost change is done, publishes the standings 
+     * snapshot again if a change succeeded.
+     */
+    private void unlockEvent() {
+        try {
+            if(standingsStale && eventLock.getWriteHoldCount() == 1) {
+                standingsStale = false;
+                standingsChanged();
+            }
+        } finally {
+            eventLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Locks the ledger stripes of the participants of a match in ascending
+     * order.
+     * 
+     * @param   match
+     *          the match to lock the participants of.
+     * 
+     * @return  the stripes of the participants in ascending order, which may
+     *          repeat a stripe that was only locked once.
+     */
+    private int[] lockLedgerStripes(M match) {
+        ArrayList<P> participants = match.getMatchParticipants();
+        int[] stripes = new int[participants.size()];
+        
+        for(int i = 0; i < stripes.length; i++) {
+            int stripe = Math.max(participantLedger.getSlot(participants.get(i)), 0) 
+                    % LEDGER_LOCK_COUNT;
+            int j = i;
+            
+            for(; j > 0 && stripes[j - 1] > stripe; j--) {
+                stripes[j] = stripes[j - 1];
+            }
+            
+            stripes[j] = stripe;
+        }
+        
+        for(int i = 0; i < stripes.length; i++) {
+            if(i == 0 || stripes[i] != stripes[i - 1]) {
+                ledgerLocks[stripes[i]].lock();
+            }
+        }
+        
+        return stripes;
+    }
+    
+    /**
+     * Unlocks the ledger stripes locked by lockLedgerStripes().
+     * 
+     * @param   stripes
+     *          the stripes returned by lockLedgerStripes().
+     */
+    private void unlockLedgerStripes(int[] stripes) {
+        for(int i = stripes.length - 1; i >= 0; i--) {
+            if(i == 0 || stripes[i] != stripes[i - 1]) {
+                ledgerLocks[stripes[i]].unlock();
+            }
+        }
+    }
+    
     /**
      * Add a participant to the event.
      * 
@@ -1107,24 +1897,36 @@ public class TournamentEvent
      *          If the participant is already enrolled in the event.
      */
     public void addParticipant(P participant) throws TournamentStateException {
-        for(P toCheck : allParticipants) {
-            if(toCheck.getUUID().equals(participant.getUUID()))
-                throw new TournamentStateException("Participant already in event.");
-        }
-        
-        allParticipants.add(participant);
-        Collections.sort(allParticipants, new P.AlphabeticalComparator());
-        standingsParticipants.add(participant);
+        eventLock.writeLock().lock();
         
-        S segment = getRegulationPlaySegment();
-        if(segment != null) {
-            segment.getActiveParticipants().add(participant);
-            segment.getSegmentParticipants().add(participant);
-        }
-        
-        R round = getCurrentEventRound();
-        if(round != null) {
-            round.getRoundParticipants().add(participant);
+        try {
+            if(participantsByUUID.containsKey(participant.getUUID())) {
+                throw new TournamentStateException("Participant already in event.");
+            }
+            
+            participantsByUUID.put(participant.getUUID(), participant);
+            participantLedger.getOrCreateSlot(participant);
+            searchIndex.add(participant);
+            allParticipants.add(getAlphabeticalIndex(participant), participant);
+            standingsParticipants.add(participant);
+            
+            if(getRegulationHasBegun()) {
+                S segment = getRegulationPlaySegment();
+                segment.getActiveParticipants().add(participant);
+                segment.getSegmentParticipants().add(participant);
+                
+                if(getCurrentSegment().getSegmentRoundCount() > 0) {
+                    getCurrentEventRound().getRoundParticipants().add(participant);
+                }
+            }
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.participantAdded(participant);
+            }
+        } finally {
+            unlockEvent();
         }
     }
     
@@ -1141,12 +1943,85 @@ public class TournamentEvent
      *          If there is no such participant enrolled in the event.
      */
     public final void removeParticipant(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
-            throw new TournamentStateException("No such participant.");
+        eventLock.writeLock().lock();
+        
+        try {
+            if(!getIsEnrolled(participant)) {
+                throw new TournamentStateException("No such participant.");
+            }
+            
+            participantsByUUID.remove(participant.getUUID());
+            searchIndex.remove(participant);
+            allParticipants.remove(participant);
+            standingsParticipants.remove(participant);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.participantRemoved(participant);
+            }
+        } finally {
+            unlockEvent();
+        }
+    }
+    
+    /**
+     * Re-indexes a participant whose name has changed and moves it to its new
+     * place in the alphabetical participant list. Called by the participant;
+     * participants not enrolled in the event are ignored.
+     * 
+     * @param   participant
+     *          the renamed participant.
+     */
+    final void participantRenamed(P participant) {
+        eventLock.writeLock().lock();
+        
+        try {
+            if(!getIsEnrolled(participant)) {
+                return;
+            }
+            
+            searchIndex.update(participant);
+            allParticipants.remove(participant);
+            allParticipants.add(getAlphabeticalIndex(participant), participant);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.participantRenamed(participant);
+            }
+        } finally {
+            unlockEvent();
+        }
+    }
+    
+    /**
+     * Finds the position at which a new participant keeps the participant 
+     * list in alphabetical order. Participants with the same name keep their 
+     * registration order.
+     * 
+     * @param   participant
+     *          the participant to place.
+     * 
+     * @return  the insertion index.
+     */
+    private int getAlphabeticalIndex(P participant) {
+        P.AlphabeticalComparator comparator = new P.AlphabeticalComparator();
+        
+        int low = 0;
+        int high = allParticipants.size();
+        
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            
+            if(comparator.compare(allParticipants.get(middle), participant) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
         }
         
-        allParticipants.remove(participant);
-        standingsParticipants.remove(participant);
+        return low;
     }
     
     /**
@@ -1165,11 +2040,23 @@ public class TournamentEvent
      *          </ul>
      */
     public final void deactivateParticipant(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
-            throw new TournamentStateException("No such participant.");
-        }
+        eventLock.writeLock().lock();
         
-        getCurrentSegment().deactivateParticipant(participant);
+        try {
+            if(!getIsEnrolled(participant)) {
+                throw new TournamentStateException("No such participant.");
+            }
+            
+            getCurrentSegment().deactivateParticipant(participant);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.participantDeactivated(participant);
+            }
+        } finally {
+            unlockEvent();
+        }
     }
     
     /**
@@ -1189,11 +2076,66 @@ public class TournamentEvent
      *          </ul>
      */
     public final void reactivateParticipant(P participant) throws TournamentStateException {
-        if(!allParticipants.contains(participant)) {
-            throw new TournamentStateException("No such participant.");
-        }
+        eventLock.writeLock().lock();
         
-        getCurrentSegment().reactivateParticipant(participant);
+        try {
+            if(!getIsEnrolled(participant)) {
+                throw new TournamentStateException("No such participant.");
+            }
+            
+            getCurrentSegment().reactivateParticipant(participant);
+            
+            eventChanged();
+            
+            for(TournamentEventListener<R, M, P> listener : getEventListeners()) {
+                listener.participantReactivated(participant);
+            }
+        } finally {
+            unlockEvent();
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to event listeners.                                   *
+     *   - Getters                                                            *
+     *   - Setters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Adds a listener that is told about every operation performed on the
+     * event. Listeners are not serialized with the event.
+     * 
+     * <p>A listener may add or remove listeners, itself included, while it is
+     * being told about an operation. The change applies from the next 
+     * operation on.
+     * 
+     * @param   listener
+     *          the listener to add.
+     */
+    public final void addEventListener(TournamentEventListener<R, M, P> listener) {
+        getEventListeners().add(listener);
+    }
+    
+    /**
+     * Removes a listener from the event.
+     * 
+     * @param   listener
+     *          the listener to remove.
+     */
+    public final void removeEventListener(TournamentEventListener<R, M, P> listener) {
+        getEventListeners().remove(listener);
+    }
+    
+    /**
+     * Gets the listeners of the event.
+     * 
+     * @return  the list of listeners.
+     */
+    private CopyOnWriteArrayList<TournamentEventListener<R, M, P>> getEventListeners() {
+        return this.eventListeners;
     }
     
     
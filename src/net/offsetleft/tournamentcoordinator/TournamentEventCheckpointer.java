@@ -0,0 +1,711 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import net.offsetleft.tournamentcoordinator.exceptions.EventStateException;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Keeps an event durable in a directory as a checkpoint followed by a short
+ * journal, so that restarting takes about as long as loading one snapshot no
+ * matter how long the event has been running.
+ * 
+ * <p>Every operation on the event is appended to a TournamentEventJournal.
+ * Whenever a round of the event is completed, which is the point at which
+ * getCompletedRoundCount() grows, a background thread locks the event,
+ * writes it to a snapshot in memory and starts a new journal from that
+ * state. Once the event is unlocked the same thread forces the journal that
+ * was replaced and writes the snapshot to disk, and once it is safely in
+ * place the journals and checkpoints it covers are deleted. The thread
+ * completing the round only hands the checkpoint over. Recovery therefore
+ * loads the latest checkpoint and replays at most the operations since it
+ * was taken, which is usually less than a round.
+ * 
+ * <p>The directory holds files named after the sequence number of a
+ * journal record:
+ * <pre>
+ * event-N.snapshot    the event after the record numbered N
+ * event-N.journal     a journal whose first record is numbered N
+ * </pre>
+ * A checkpoint is first written to a temporary file and renamed into place,
+ * so a failure while it is written leaves the previous checkpoint and its
+ * journals intact.
+ * 
+ * <p>As with the journal, a checkpointer cannot throw from the event
+ * operations it observes. A failed checkpoint is thrown by the next call to
+ * checkpoint(), sync() or close().
+ * 
+ * @param       <R>
+ *              a class that extends TournamentRound.
+ * 
+ * @param       <M>
+ *              a class that extends TournamentMatch.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+public final class TournamentEventCheckpointer <R extends TournamentRound<M, P>,
+        M extends TournamentMatch<P>, P extends TournamentParticipant<P>>
+        implements TournamentEventListener<R, M, P>, Closeable {
+    
+    private static final String FILE_PREFIX = "event-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    
+    private final TournamentEvent<?, R, M, P> event;
+    private final Path directory;
+    private final int roundsPerCheckpoint;
+    private final ExecutorService executor;
+    
+    private volatile TournamentEventJournal<R, M, P> journal;
+    private final ConcurrentLinkedQueue<TournamentEventJournal<R, M, P>>
+            replacedJournals = new ConcurrentLinkedQueue<>();
+    private volatile long checkpointSequence;
+    private int checkpointRoundCount;
+    private volatile boolean checkpointScheduled, closed;
+    
+    private final Set<M> roundMatches =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<M> pendingMatches =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+    
+    private volatile IOException failure;
+    
+    /**
+     * Constructs a checkpointer continuing from a recovered or new journal.
+     * 
+     * @param   event
+     *          the event to checkpoint.
+     * 
+     * @param   directory
+     *          the directory holding the checkpoints and journals.
+     * 
+     * @param   roundsPerCheckpoint
+     *          the number of completed rounds between checkpoints.
+     * 
+     * @param   journal
+     *          the journal the event is being written to.
+     * 
+     * @param   checkpointSequence
+     *          the sequence number covered by the latest checkpoint.
+     */
+    private TournamentEventCheckpointer(TournamentEvent<?, R, M, P> event,
+            Path directory, int roundsPerCheckpoint,
+            TournamentEventJournal<R, M, P> journal, long checkpointSequence) {
+        this.event = event;
+        this.directory = directory;
+        this.roundsPerCheckpoint = roundsPerCheckpoint;
+        this.journal = journal;
+        this.checkpointSequence = checkpointSequence;
+        this.checkpointRoundCount = event.getCompletedRoundCount();
+        
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tournament-checkpoint");
+            
+            thread.setDaemon(true);
+            
+            return thread;
+        });
+        
+        try {
+            trackRound(event.getCurrentEventRound());
+        } catch (TournamentStateException ex) { }
+        
+        event.addEventListener(this);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to opening checkpointers.                             *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Restores an event from a directory and keeps it durable there, taking
+     * a checkpoint each time a round is completed.
+     * 
+     * @param   <S>
+     *          a class that extends TournamentSegment.
+     * 
+     * @param   <R>
+     *          a class that extends TournamentRound.
+     * 
+     * @param   <M>
+     *          a class that extends TournamentMatch.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   event
+     *          a new event to restore into.
+     * 
+     * @param   directory
+     *          the directory holding the checkpoints and journals.
+     * 
+     * @param   participantFactory
+     *          creates the participants of the restored event.
+     * 
+     * @return  the checkpointer.
+     * 
+     * @throws  IOException
+     *          If the directory cannot be read, or its checkpoint and
+     *          journals do not follow on from each other.
+     * 
+     * @throws  TournamentStateException
+     *          If the event is not new, or a journaled operation cannot be
+     *          applied to it.
+     */
+    public static <S extends TournamentSegment<R, M, P>,
+            R extends TournamentRound<M, P>, M extends TournamentMatch<P>,
+            P extends TournamentParticipant<P>>
+            TournamentEventCheckpointer<R, M, P> open(
+            TournamentEvent<S, R, M, P> event, Path directory,
+            TournamentSnapshotReader.ParticipantFactory<P> participantFactory)
+            throws IOException, TournamentStateException {
+        return open(event, directory, participantFactory, 1);
+    }
+    
+    /**
+     * Restores an event from a directory and keeps it durable there, taking
+     * a checkpoint each time the provided number of rounds is completed.
+     * 
+     * @param   <S>
+     *          a class that extends TournamentSegment.
+     * 
+     * @param   <R>
+     *          a class that extends TournamentRound.
+     * 
+     * @param   <M>
+     *          a class that extends TournamentMatch.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   event
+     *          a new event to restore into.
+     * 
+     * @param   directory
+     *          the directory holding the checkpoints and journals.
+     * 
+     * @param   participantFactory
+     *          creates the participants of the restored event.
+     * 
+     * @param   roundsPerCheckpoint
+     *          the number of completed rounds between checkpoints.
+     * 
+     * @return  the checkpointer.
+     * 
+     * @throws  IOException
+     *          If the directory cannot be read, or its checkpoint and
+     *          journals do not follow on from each other.
+     * 
+     * @throws  TournamentStateException
+     *          If the event is not new, or a journaled operation cannot be
+     *          applied to it.
+     */
+    public static <S extends TournamentSegment<R, M, P>,
+            R extends TournamentRound<M, P>, M extends TournamentMatch<P>,
+            P extends TournamentParticipant<P>>
+            TournamentEventCheckpointer<R, M, P> open(
+            TournamentEvent<S, R, M, P> event, Path directory,
+            TournamentSnapshotReader.ParticipantFactory<P> participantFactory,
+            int roundsPerCheckpoint)
+            throws IOException, TournamentStateException {
+        if(roundsPerCheckpoint < 1) {
+            throw new IllegalArgumentException(
+                    "At least one round must pass between checkpoints.");
+        }
+        
+        if(!event.tournamentSegments.isEmpty()
+                || !event.getAllParticipants().isEmpty()) {
+            throw new EventStateException(
+                    "Only a new event can be restored.");
+        }
+        
+        Files.createDirectories(directory);
+        
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> journals = new TreeMap<>();
+        
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for(Path file : files) {
+                String name = file.getFileName().toString();
+                
+                if(name.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.delete(file);
+                } else if(getSequence(name, SNAPSHOT_SUFFIX) >= 0) {
+                    snapshots.put(getSequence(name, SNAPSHOT_SUFFIX), file);
+                } else if(getSequence(name, JOURNAL_SUFFIX) >= 0) {
+                    journals.put(getSequence(name, JOURNAL_SUFFIX), file);
+                }
+            }
+        }
+        
+        long checkpointSequence = 0;
+        
+        if(!snapshots.isEmpty()) {
+            checkpointSequence = snapshots.lastKey();
+            
+            try (TournamentSnapshotReader reader = new TournamentSnapshotReader(
+                    Files.newInputStream(snapshots.lastEntry().getValue()))) {
+                reader.read(event, participantFactory);
+            }
+        }
+        
+        TournamentEventJournal<R, M, P> journal = null;
+        long nextSequence = checkpointSequence + 1;
+        
+        try {
+            for(Map.Entry<Long, Path> entry : journals.tailMap(
+                    checkpointSequence, false).entrySet()) {
+                Path file = entry.getValue();
+                
+                //A journal whose header was never fully written holds nothing.
+                if(entry.getKey().equals(journals.lastKey())
+                        && Files.size(file) < TournamentEventJournal.HEADER_SIZE) {
+                    Files.delete(file);
+                    break;
+                }
+                
+                if(entry.getKey() != nextSequence) {
+                    throw new IOException("Journal " + file
+                            + " does not follow on from sequence "
+                            + (nextSequence - 1) + ".");
+                }
+                
+                if(journal != null) {
+                    journal.close();
+                }
+                
+                journal = TournamentEventJournal.recover(event, file,
+                        participantFactory);
+                nextSequence = journal.getSequence() + 1;
+            }
+            
+            if(journal == null) {
+                journal = TournamentEventJournal.create(event,
+                        getPath(directory, nextSequence, JOURNAL_SUFFIX),
+                        nextSequence);
+            }
+        } catch (IOException | TournamentStateException ex) {
+            if(journal != null) {
+                journal.close();
+            }
+            
+            throw ex;
+        }
+        
+        return new TournamentEventCheckpointer<>(event, directory,
+                roundsPerCheckpoint, journal, checkpointSequence);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to checkpoints.                                       *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the sequence number of the last journal record covered by the
+     * latest checkpoint. The checkpoint may still be being written, and a
+     * checkpoint that has just fallen due may not have been taken yet.
+     * 
+     * @return  the sequence number, or zero if no checkpoint has been taken.
+     */
+    public long getCheckpointSequence() {
+        return this.checkpointSequence;
+    }
+    
+    /**
+     * Gets the sequence number of the last journal record.
+     * 
+     * @return  the sequence number.
+     */
+    public long getSequence() {
+        return journal.getSequence();
+    }
+    
+    /**
+     * Takes a checkpoint of the event now, starting a new journal from its
+     * current state. The checkpoint is written to disk in the background.
+     * Does nothing if nothing has happened since the last checkpoint.
+     * 
+     * <p>The event is locked while the snapshot is taken, so this must not 
+     * be called while holding a lock on the event, such as from a listener.
+     * 
+     * @throws  IOException
+     *          If a previous checkpoint failed, or the journal cannot be
+     *          replaced.
+     */
+    public void checkpoint() throws IOException {
+        throwFailure();
+        takeCheckpoint();
+    }
+    
+    /**
+     * Forces every journal record written so far to the storage device. May
+     * be called from any thread, for example by a
+     * TournamentGroupCommitWriter.
+     * 
+     * @throws  IOException
+     *          If a checkpoint or a record could not be written.
+     */
+    public void sync() throws IOException {
+        throwFailure();
+        
+        //A replaced journal is forced before the journal that follows it, so
+        //the journals on the device never have a gap between them.
+        for(TournamentEventJournal<R, M, P> replaced : replacedJournals) {
+            try {
+                replaced.sync();
+            } catch (ClosedChannelException ex) { }
+        }
+        
+        TournamentEventJournal<R, M, P> synced = journal;
+        
+        try {
+            synced.sync();
+        } catch (ClosedChannelException ex) {
+            //A checkpoint forces the journal it replaces before closing it.
+            if(synced == journal) {
+                throw ex;
+            }
+        }
+    }
+    
+    /**
+     * Stops checkpointing the event, waits for the checkpoint being written
+     * to reach the disk and closes the journal.
+     * 
+     * @throws  IOException
+     *          If a checkpoint or a record could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        event.removeEventListener(this);
+        executor.shutdown();
+        
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted waiting for a checkpoint.");
+        } finally {
+            journal.close();
+        }
+        
+        throwFailure();
+    }
+    
+    /**
+     * Writes the event to a snapshot in memory and starts a new journal from
+     * its state, holding the event lock so that nothing happens in between,
+     * then hands the snapshot and the replaced journal to the checkpoint 
+     * thread.
+     * 
+     * @throws  IOException
+     *          If the new journal cannot be created.
+     */
+    private void takeCheckpoint() throws IOException {
+        ReentrantReadWriteLock eventLock = event.getEventLock();
+        TournamentEventJournal<R, M, P> replaced;
+        long sequence;
+        byte[] snapshot;
+        
+        eventLock.writeLock().lock();
+        
+        try {
+            checkpointScheduled = false;
+            sequence = journal.getSequence();
+            
+            if(closed || sequence == checkpointSequence) {
+                return;
+            }
+            
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            
+            new TournamentSnapshotWriter(output).write(event);
+            
+            replaced = journal;
+            journal = TournamentEventJournal.create(event,
+                    getPath(directory, sequence + 1, JOURNAL_SUFFIX), 
+                    sequence + 1);
+            replacedJournals.add(replaced);
+            event.removeEventListener(replaced);
+            
+            //Keeps this listener after the new journal, so an operation is 
+            //always journaled before it can trigger a checkpoint.
+            event.removeEventListener(this);
+            event.addEventListener(this);
+            
+            checkpointSequence = sequence;
+            checkpointRoundCount = event.getCompletedRoundCount();
+            snapshot = output.toByteArray();
+        } finally {
+            eventLock.writeLock().unlock();
+        }
+        
+        executor.execute(() -> writeCheckpoint(replaced, sequence, snapshot));
+    }
+    
+    /**
+     * Writes a checkpoint to disk and deletes the files it covers. Runs on
+     * the checkpoint thread.
+     * 
+     * @param   replaced
+     *          the journal the checkpoint replaced.
+     * 
+     * @param   sequence
+     *          the sequence number of the last record the checkpoint covers.
+     * 
+     * @param   snapshot
+     *          the snapshot of the event.
+     */
+    private void writeCheckpoint(TournamentEventJournal<R, M, P> replaced,
+            long sequence, byte[] snapshot) {
+        //The replaced journal is forced first, so the checkpoint never 
+        //depends on records that could still be lost.
+        try {
+            replaced.close();
+        } catch (IOException ex) {
+            if(failure == null) {
+                failure = ex;
+            }
+        } finally {
+            replacedJournals.remove(replaced);
+        }
+        
+        if(failure != null) {
+            return;
+        }
+        
+        try {
+            Path temporary = getPath(directory, sequence,
+                    SNAPSHOT_SUFFIX + TEMPORARY_SUFFIX);
+            
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+                
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                
+                channel.force(true);
+            }
+            
+            Files.move(temporary, getPath(directory, sequence, SNAPSHOT_SUFFIX),
+                    StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+            
+            try (DirectoryStream<Path> files =
+                    Files.newDirectoryStream(directory)) {
+                for(Path file : files) {
+                    String name = file.getFileName().toString();
+                    long snapshotSequence = getSequence(name, SNAPSHOT_SUFFIX);
+                    long journalSequence = getSequence(name, JOURNAL_SUFFIX);
+                    
+                    if((snapshotSequence >= 0 && snapshotSequence < sequence)
+                            || (journalSequence >= 0
+                                && journalSequence <= sequence)) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            failure = ex;
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Overridden methods.                                                   *
+     *                                                                        *
+     **************************************************************************/
+    
+    @Override
+    public void eventRoundCreated(R round) {
+        trackRound(round);
+        checkpointIfDue();
+    }
+    
+    @Override
+    public void eventRoundRemoved(R round) {
+        roundMatches.clear();
+        pendingMatches.clear();
+        
+        try {
+            trackRound(event.getCurrentEventRound());
+        } catch (TournamentStateException ex) { }
+        
+        checkpointRoundCount = Math.min(checkpointRoundCount,
+                event.getCompletedRoundCount());
+    }
+    
+    @Override
+    public void matchResultsChanged(M match) {
+        if(!roundMatches.contains(match)) {
+            return;
+        }
+        
+        if(!match.getMatchHasResults()) {
+            pendingMatches.add(match);
+        } else if(pendingMatches.remove(match) && pendingMatches.isEmpty()) {
+            checkpointIfDue();
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Starts tracking which matches of a round still need results.
+     * 
+     * @param   round
+     *          the current round of the event.
+     */
+    private void trackRound(R round) {
+        roundMatches.clear();
+        pendingMatches.clear();
+        
+        for(M match : round.getRoundMatches()) {
+            roundMatches.add(match);
+            
+            if(!match.getMatchHasResults()) {
+                pendingMatches.add(match);
+            }
+        }
+    }
+    
+    /**
+     * Schedules a checkpoint on the checkpoint thread if the current round is
+     * complete and enough rounds have been completed since the last 
+     * checkpoint. Called with the event locked, so the checkpoint cannot be 
+     * taken here.
+     */
+    private void checkpointIfDue() {
+        if(closed || checkpointScheduled || !pendingMatches.isEmpty() 
+                || event.getCompletedRoundCount()
+                    < checkpointRoundCount + roundsPerCheckpoint) {
+            return;
+        }
+        
+        checkpointScheduled = true;
+        
+        try {
+            executor.execute(() -> {
+                try {
+                    takeCheckpoint();
+                } catch (IOException ex) {
+                    if(failure == null) {
+                        failure = ex;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            //The checkpointer is being closed.
+        }
+    }
+    
+    /**
+     * Throws the failure of an earlier checkpoint, if any.
+     * 
+     * @throws  IOException
+     *          If an earlier checkpoint failed.
+     */
+    private void throwFailure() throws IOException {
+        if(failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Forces the entries of the directory to the storage device, so that a
+     * renamed checkpoint survives a power failure. Not every platform can
+     * open a directory, and on those the rename is left to the file system.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory,
+                StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) { }
+    }
+    
+    /**
+     * Gets the path of a checkpoint or journal file.
+     * 
+     * @param   directory
+     *          the directory holding the file.
+     * 
+     * @param   sequence
+     *          the sequence number the file is named after.
+     * 
+     * @param   suffix
+     *          the suffix of the file.
+     * 
+     * @return  the path of the file.
+     */
+    private static Path getPath(Path directory, long sequence, String suffix) {
+        return directory.resolve(FILE_PREFIX + sequence + suffix);
+    }
+    
+    /**
+     * Gets the sequence number a checkpoint or journal file is named after.
+     * 
+     * @param   name
+     *          the name of the file.
+     * 
+     * @param   suffix
+     *          the suffix of the kind of file.
+     * 
+     * @return  the sequence number, or -1 if the file is not of that kind.
+     */
+    private static long getSequence(String name, String suffix) {
+        if(!name.startsWith(FILE_PREFIX) || !name.endsWith(suffix)) {
+            return -1;
+        }
+        
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(),
+                    name.length() - suffix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,1034 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.zip.CRC32;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * An append-only journal of the mutations of an event. Every operation on
+ * the event is appended to the journal as a small binary record as soon as
+ * it succeeds, so persisting a result costs a few dozen bytes rather than a
+ * snapshot of the whole event.
+ * 
+ * <p>A journal starts from the state the event was in when the journal was
+ * created: either a new event or an event just saved with a
+ * TournamentSnapshotWriter. To recover, that state is restored and
+ * recover() replays the journal on top of it. Rounds are journaled with
+ * their pairings and replayed without pairing them again, so a recovered
+ * event is paired exactly as the journaled event was. Playoff play is
+ * journaled with the participants of its cut for the same reason, so reading
+ * the standings changes nothing that has to be journaled.
+ * 
+ * <p>The journal begins with a header holding the sequence number of its
+ * first record and the size of the participant table of the event it starts
+ * from. Each record is laid out as:
+ * <pre>
+ * int      length of the sequence number, type and body
+ * long     sequence number, one more than the previous record's
+ * byte     type
+ * byte[]   body
+ * int      CRC-32 of the sequence number, type and body
+ * </pre>
+ * Participants are referenced by their position in a participant table that
+ * starts out as the table TournamentSnapshotWriter would write for the event
+ * and grows by one with every participant added. Counts, positions and
+ * results are written as variable length integers.
+ * 
+ * <p>Records are written to the file as they happen, so they survive the
+ * process failing, but they are not forced to the storage device until
+ * sync() is called. A record that was only partly written when the process
+ * failed, and anything after it, is discarded on recovery.
+ * 
+ * <p>A journal cannot throw from the event operations it records. If a
+ * record cannot be written the journal stops writing, and the next call to
+ * sync() or close() throws the failure.
+ * 
+ * @param       <R>
+ *              a class that extends TournamentRound.
+ * 
+ * @param       <M>
+ *              a class that extends TournamentMatch.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+public final class TournamentEventJournal <R extends TournamentRound<M, P>,
+        M extends TournamentMatch<P>, P extends TournamentParticipant<P>>
+        implements TournamentEventListener<R, M, P>, Closeable {
+    
+    static final int MAGIC = 0x54434A31;
+    static final short VERSION = 2;
+    
+    static final int HEADER_SIZE = 18;
+    private static final int RECORD_OVERHEAD = 17;
+    
+    //Record Types
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte DEACTIVATE = 3;
+    private static final byte REACTIVATE = 4;
+    private static final byte REGULATION = 5;
+    private static final byte PLAYOFF = 6;
+    private static final byte ROUND = 7;
+    private static final byte REMOVE_ROUND = 8;
+    private static final byte RESULTS = 9;
+    private static final byte RENAME = 10;
+    
+    private final TournamentEvent<?, R, M, P> event;
+    private final FileChannel channel;
+    
+    private final IdentityHashMap<P, Integer> participantPositions =
+            new IdentityHashMap<>();
+    private int participantCount;
+    
+    private final IdentityHashMap<M, int[]> matchPositions =
+            new IdentityHashMap<>();
+    
+    private final CRC32 checksum = new CRC32();
+    private byte[] record = new byte[256];
+    private int recordLength;
+    
+    private long sequence;
+    private volatile IOException failure;
+    
+    /**
+     * Constructs a journal over an open channel and starts listening to the
+     * event.
+     * 
+     * @param   event
+     *          the event to journal.
+     * 
+     * @param   channel
+     *          the channel of the journal file, positioned at its end.
+     * 
+     * @param   participants
+     *          the participant table of the journal.
+     * 
+     * @param   lastSequence
+     *          the sequence number of the last record in the file.
+     */
+    private TournamentEventJournal(TournamentEvent<?, R, M, P> event,
+            FileChannel channel, 
+            ArrayList<P> participants,
+            long lastSequence) {
+        this.event = event;
+        this.channel = channel;
+        this.sequence = lastSequence;
+        
+        for(P participant : participants) {
+            participantPositions.put(participant, participantCount++);
+        }
+        
+        for(R round : event.getAllEventRounds()) {
+            addMatchPositions(round);
+        }
+        
+        event.addEventListener(this);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to opening journals.                                  *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Creates a new journal, replacing any file at the path, and starts
+     * journaling an event from its current state.
+     * 
+     * @param   <R>
+     *          a class that extends TournamentRound.
+     * 
+     * @param   <M>
+     *          a class that extends TournamentMatch.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   event
+     *          the event to journal.
+     * 
+     * @param   path
+     *          the path of the journal file.
+     * 
+     * @return  the journal.
+     * 
+     * @throws  IOException
+     *          If the journal cannot be created.
+     */
+    public static <R extends TournamentRound<M, P>,
+            M extends TournamentMatch<P>, P extends TournamentParticipant<P>>
+            TournamentEventJournal<R, M, P> create(
+            TournamentEvent<?, R, M, P> event, Path path) throws IOException {
+        return create(event, path, 1);
+    }
+    
+    /**
+     * Creates a new journal whose first record has the provided sequence
+     * number, replacing any file at the path, and starts journaling an event
+     * from its current state.
+     * 
+     * @param   <R>
+     *          a class that extends TournamentRound.
+     * 
+     * @param   <M>
+     *          a class that extends TournamentMatch.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   event
+     *          the event to journal.
+     * 
+     * @param   path
+     *          the path of the journal file.
+     * 
+     * @param   firstSequence
+     *          the sequence number of the first record.
+     * 
+     * @return  the journal.
+     * 
+     * @throws  IOException
+     *          If the journal cannot be created.
+     */
+    public static <R extends TournamentRound<M, P>,
+            M extends TournamentMatch<P>, P extends TournamentParticipant<P>>
+            TournamentEventJournal<R, M, P> create(
+            TournamentEvent<?, R, M, P> event, Path path, long firstSequence)
+            throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        
+        try {
+            ArrayList<P> participants = 
+                    TournamentSnapshotWriter.createParticipantTable(
+                            event, new IdentityHashMap<>());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putLong(firstSequence);
+            header.putInt(participants.size());
+            header.flip();
+            
+            while(header.hasRemaining()) {
+                channel.write(header);
+            }
+            
+            return new TournamentEventJournal<>(event, channel, participants, 
+                    firstSequence - 1);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Replays a journal into an event and continues journaling the event to
+     * the same file. The event must be in the state the journal started from.
+     * A partly written record at the end of the journal is discarded.
+     * 
+     * @param   <S>
+     *          a class that extends TournamentSegment.
+     * 
+     * @param   <R>
+     *          a class that extends TournamentRound.
+     * 
+     * @param   <M>
+     *          a class that extends TournamentMatch.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   event
+     *          the event to replay the journal into.
+     * 
+     * @param   path
+     *          the path of the journal file.
+     * 
+     * @param   participantFactory
+     *          creates the participants added by the journal.
+     * 
+     * @return  the journal, open for appending.
+     * 
+     * @throws  IOException
+     *          If the journal cannot be read or does not start from the
+     *          state of the event.
+     * 
+     * @throws  TournamentStateException
+     *          If a journaled operation cannot be applied to the event.
+     */
+    public static <S extends TournamentSegment<R, M, P>,
+            R extends TournamentRound<M, P>, M extends TournamentMatch<P>,
+            P extends TournamentParticipant<P>>
+            TournamentEventJournal<R, M, P> recover(
+            TournamentEvent<S, R, M, P> event, Path path,
+            TournamentSnapshotReader.ParticipantFactory<P> participantFactory)
+            throws IOException, TournamentStateException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        
+        try {
+            ArrayList<P> participants = TournamentSnapshotWriter
+                    .createParticipantTable(event, new IdentityHashMap<>());
+            
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            
+            if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a tournament journal.");
+            }
+            
+            short version = buffer.getShort();
+            
+            if(version != VERSION) {
+                throw new IOException("Unsupported journal version " + version + ".");
+            }
+            
+            long sequence = buffer.getLong() - 1;
+            
+            if(buffer.getInt() != participants.size()) {
+                throw new IOException("Journal does not start from the state of the event.");
+            }
+            
+            CRC32 checksum = new CRC32();
+            
+            while(buffer.remaining() >= RECORD_OVERHEAD) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                
+                if(length < RECORD_OVERHEAD - 8
+                        || buffer.remaining() < length + 4) {
+                    buffer.position(start);
+                    break;
+                }
+                
+                ByteBuffer body = buffer.slice();
+                
+                body.limit(length);
+                checksum.reset();
+                checksum.update(body);
+                body.rewind();
+                
+                buffer.position(start + 4 + length);
+                
+                if((int)checksum.getValue() != buffer.getInt()) {
+                    buffer.position(start);
+                    break;
+                }
+                
+                if(body.getLong() != sequence + 1) {
+                    throw new IOException("Journal record out of sequence.");
+                }
+                
+                applyRecord(event, body, participants, participantFactory);
+                sequence++;
+            }
+            
+            channel.truncate(buffer.position());
+            channel.position(buffer.position());
+            
+            return new TournamentEventJournal<>(event, channel, participants, 
+                    sequence);
+        } catch (IOException | TournamentStateException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Applies a single journal record to an event.
+     * 
+     * @param   event
+     *          the event being recovered.
+     * 
+     * @param   body
+     *          the record, positioned after its sequence number.
+     * 
+     * @param   participants
+     *          the participant table of the journal.
+     * 
+     * @param   participantFactory
+     *          creates the participants added by the journal.
+     * 
+     * @throws  IOException
+     *          If the record is not valid.
+     * 
+     * @throws  TournamentStateException
+     *          If the operation cannot be applied to the event.
+     */
+    private static <S extends TournamentSegment<R, M, P>,
+            R extends TournamentRound<M, P>, M extends TournamentMatch<P>,
+            P extends TournamentParticipant<P>> void applyRecord(
+            TournamentEvent<S, R, M, P> event, ByteBuffer body,
+            ArrayList<P> participants,
+            TournamentSnapshotReader.ParticipantFactory<P> participantFactory)
+            throws IOException, TournamentStateException {
+        byte type = body.get();
+        
+        switch (type) {
+            case ADD:
+                String participantUUID = getString(body);
+                String firstName = getString(body);
+                String lastName = getString(body);
+                P participant = participantFactory.createParticipant(
+                        firstName, lastName, participantUUID, event);
+                
+                event.addParticipant(participant);
+                participants.add(participant);
+                break;
+            
+            case REMOVE:
+                event.removeParticipant(getParticipant(body, participants));
+                break;
+            
+            case DEACTIVATE:
+                event.deactivateParticipant(getParticipant(body, participants));
+                break;
+            
+            case REACTIVATE:
+                event.reactivateParticipant(getParticipant(body, participants));
+                break;
+            
+            case RENAME:
+                P renamed = getParticipant(body, participants);
+                
+                renamed.setFirstName(getString(body));
+                renamed.setLastName(getString(body));
+                break;
+            
+            case REGULATION:
+                event.setEliminationStyle(getEnum(body, SegmentEliminationStyle.values()));
+                event.setPairingSystem(getEnum(body, SegmentPairingSystem.values()));
+                event.setMultiplayerOption(getEnum(body, SegmentMultiplayerOption.values()));
+                event.setPairingAlgorithm(getEnum(body, SegmentPairingAlgorithm.values()));
+                event.createRegulationPlaySegment();
+                break;
+            
+            case PLAYOFF:
+                int cut = getVarInt(body);
+                SegmentEliminationStyle eliminationStyle =
+                        getEnum(body, SegmentEliminationStyle.values());
+                SegmentPairingSystem pairingSystem =
+                        getEnum(body, SegmentPairingSystem.values());
+                
+                event.setPairingAlgorithm(getEnum(body, SegmentPairingAlgorithm.values()));
+                event.restorePlayoffPlaySegment(cut, eliminationStyle, 
+                        pairingSystem, getParticipants(body, participants));
+                break;
+            
+            case ROUND:
+                // Segments create their rounds as TournamentRound and cast 
+                // them to R the same way in createNewSegmentRound().
+                @SuppressWarnings("unchecked")
+                R restored = (R)getRound(body, participants);
+                
+                event.restoreEventRound(restored);
+                break;
+            
+            case REMOVE_ROUND:
+                event.removeCurrentEventRound();
+                break;
+            
+            case RESULTS:
+                R round = event.getRound(getVarInt(body));
+                int matchIndex = getVarInt(body);
+                
+                if(matchIndex >= round.getRoundMatches().size()) {
+                    throw new IOException("Corrupt journal.");
+                }
+                
+                round.getRoundMatches().get(matchIndex).setMatchResults(
+                        getResults(body), TournamentMatch.ANY_VERSION);
+                break;
+            
+            default:
+                throw new IOException("Unknown journal record type " + type + ".");
+        }
+    }
+    
+    /**
+     * Reads a journaled round and its matches.
+     * 
+     * @param   body
+     *          the record, positioned at the round.
+     * 
+     * @param   participants
+     *          the participant table of the journal.
+     * 
+     * @return  the round.
+     * 
+     * @throws  IOException
+     *          If the round is not valid.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of a match do not fit the match.
+     */
+    private static <M extends TournamentMatch<P>,
+            P extends TournamentParticipant<P>> TournamentRound<M, P> getRound(
+            ByteBuffer body, ArrayList<P> participants)
+            throws IOException, TournamentStateException {
+        int roundNumber = getVarInt(body);
+        SegmentEliminationStyle eliminationStyle =
+                getEnum(body, SegmentEliminationStyle.values());
+        SegmentPairingSystem pairingSystem =
+                getEnum(body, SegmentPairingSystem.values());
+        SegmentMultiplayerOption multiplayerOption =
+                getEnum(body, SegmentMultiplayerOption.values());
+        SegmentPairingAlgorithm pairingAlgorithm =
+                getEnum(body, SegmentPairingAlgorithm.values());
+        
+        TournamentRound<M, P> round = new TournamentRound<>(
+                roundNumber,
+                getParticipants(body, participants),
+                eliminationStyle,
+                pairingSystem,
+                multiplayerOption,
+                pairingAlgorithm);
+        
+        int matchCount = getVarInt(body);
+        
+        for(int i = 0; i < matchCount; i++) {
+            ArrayList<P> matchParticipants = getParticipants(body, participants);
+            
+            round.restoreRoundMatch(matchParticipants, getResults(body));
+        }
+        
+        return round;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to the journal file.                                  *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the sequence number of the last record in the journal.
+     * 
+     * @return  the sequence number, or one less than the first sequence
+     *          number if the journal has no records.
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+    
+    /**
+     * Forces every record written so far to the storage device. May be 
+     * called from any thread, for example by a TournamentGroupCommitWriter.
+     * 
+     * @throws  IOException
+     *          If a record could not be written, or the journal cannot be
+     *          forced.
+     */
+    public void sync() throws IOException {
+        if(failure != null) {
+            throw failure;
+        }
+        
+        channel.force(false);
+    }
+    
+    /**
+     * Stops journaling the event, forces the journal to the storage device
+     * and closes it.
+     * 
+     * @throws  IOException
+     *          If a record could not be written, or the journal cannot be
+     *          closed.
+     */
+    @Override
+    public void close() throws IOException {
+        event.removeEventListener(this);
+        
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Overridden methods.                                                   *
+     *                                                                        *
+     **************************************************************************/
+    
+    @Override
+    public void participantAdded(P participant) {
+        participantPositions.put(participant, participantCount++);
+        
+        startRecord(ADD);
+        putString(participant.getUUID());
+        putString(participant.getFirstName());
+        putString(participant.getLastName());
+        writeRecord();
+    }
+    
+    @Override
+    public void participantRemoved(P participant) {
+        startRecord(REMOVE);
+        putParticipant(participant);
+        writeRecord();
+    }
+    
+    @Override
+    public void participantDeactivated(P participant) {
+        startRecord(DEACTIVATE);
+        putParticipant(participant);
+        writeRecord();
+    }
+    
+    @Override
+    public void participantReactivated(P participant) {
+        startRecord(REACTIVATE);
+        putParticipant(participant);
+        writeRecord();
+    }
+    
+    @Override
+    public void participantRenamed(P participant) {
+        startRecord(RENAME);
+        putParticipant(participant);
+        putString(participant.getFirstName());
+        putString(participant.getLastName());
+        writeRecord();
+    }
+    
+    @Override
+    public void regulationPlaySegmentCreated() {
+        TournamentSegment<R, M, P> segment = event.getCurrentSegment();
+        
+        startRecord(REGULATION);
+        putEnum(segment.getEliminationStyle());
+        putEnum(segment.getPairingSystem());
+        putEnum(segment.getMultiplayerOption());
+        putEnum(segment.getPairingAlgorithm());
+        writeRecord();
+    }
+    
+    @Override
+    public void playoffPlaySegmentCreated(int cut) {
+        TournamentSegment<R, M, P> segment = event.getCurrentSegment();
+        
+        startRecord(PLAYOFF);
+        putVarInt(cut);
+        putEnum(segment.getEliminationStyle());
+        putEnum(segment.getPairingSystem());
+        putEnum(segment.getPairingAlgorithm());
+        putParticipants(segment.getSegmentParticipants());
+        writeRecord();
+    }
+    
+    @Override
+    public void eventRoundCreated(R round) {
+        addMatchPositions(round);
+        
+        startRecord(ROUND);
+        putVarInt(round.getRoundNumber());
+        putEnum(round.getEliminationStyle());
+        putEnum(round.getPairingSystem());
+        putEnum(round.getMultiplayerOption());
+        putEnum(round.getPairingAlgorithm());
+        putParticipants(round.getRoundParticipants());
+        putVarInt(round.getRoundMatches().size());
+        
+        for(M match : round.getRoundMatches()) {
+            putParticipants(match.getMatchParticipants());
+            putResults(match);
+        }
+        
+        writeRecord();
+    }
+    
+    @Override
+    public void eventRoundRemoved(R round) {
+        for(M match : round.getRoundMatches()) {
+            matchPositions.remove(match);
+        }
+        
+        startRecord(REMOVE_ROUND);
+        writeRecord();
+    }
+    
+    @Override
+    public void matchResultsChanged(M match) {
+        int[] position = matchPositions.get(match);
+        
+        if(position == null) {
+            return;
+        }
+        
+        startRecord(RESULTS);
+        putVarInt(position[0]);
+        putVarInt(position[1]);
+        putResults(match);
+        writeRecord();
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Remembers the round number and position of every match of a round, so
+     * that a change of results can name the match.
+     * 
+     * @param   round
+     *          the round whose matches to remember.
+     */
+    private void addMatchPositions(R round) {
+        ArrayList<M> roundMatches = round.getRoundMatches();
+        
+        for(int i = 0; i < roundMatches.size(); i++) {
+            matchPositions.put(roundMatches.get(i),
+                    new int[] {round.getRoundNumber(), i});
+        }
+    }
+    
+    /**
+     * Starts a new record, leaving room for its length and sequence number.
+     * 
+     * @param   type
+     *          the type of the record.
+     */
+    private void startRecord(byte type) {
+        recordLength = 12;
+        putByte(type);
+    }
+    
+    /**
+     * Fills in the length, sequence number and checksum of the current
+     * record and appends it to the journal.
+     */
+    private void writeRecord() {
+        if(failure != null) {
+            return;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        
+        buffer.putInt(0, recordLength - 4);
+        buffer.putLong(4, sequence + 1);
+        
+        checksum.reset();
+        checksum.update(record, 4, recordLength - 4);
+        
+        int length = recordLength;
+        
+        putByte(0);
+        putByte(0);
+        putByte(0);
+        putByte(0);
+        
+        buffer = ByteBuffer.wrap(record, 0, recordLength);
+        buffer.putInt(length, (int)checksum.getValue());
+        
+        try {
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            
+            sequence++;
+        } catch (IOException ex) {
+            failure = ex;
+        }
+    }
+    
+    /**
+     * Appends a participant's position in the participant table.
+     * 
+     * @param   participant
+     *          the participant.
+     */
+    private void putParticipant(P participant) {
+        putVarInt(participantPositions.get(participant));
+    }
+    
+    /**
+     * Appends a list of participants as positions in the participant table.
+     * 
+     * @param   participants
+     *          the participants.
+     */
+    private void putParticipants(ArrayList<P> participants) {
+        putVarInt(participants.size());
+        
+        for(P participant : participants) {
+            putParticipant(participant);
+        }
+    }
+    
+    /**
+     * Appends the results of a match.
+     * 
+     * @param   match
+     *          the match.
+     */
+    private void putResults(M match) {
+        if(!match.getMatchHasResults()) {
+            putVarInt(0);
+            return;
+        }
+        
+        int[] results = match.getResultArray();
+        
+        putVarInt(results.length);
+        
+        for(int result : results) {
+            putVarInt((result << 1) ^ (result >> 31));
+        }
+    }
+    
+    /**
+     * Appends an enum value as its ordinal.
+     * 
+     * @param   value
+     *          the value.
+     */
+    private void putEnum(Enum<?> value) {
+        putByte(value.ordinal());
+    }
+    
+    /**
+     * Appends a string as its UTF-8 length followed by its UTF-8 bytes.
+     * 
+     * @param   value
+     *          the string.
+     */
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        
+        putVarInt(bytes.length);
+        
+        for(byte b : bytes) {
+            putByte(b);
+        }
+    }
+    
+    /**
+     * Appends an unsigned variable length integer, seven bits per byte with
+     * the high bit set on every byte but the last.
+     * 
+     * @param   value
+     *          the value.
+     */
+    private void putVarInt(int value) {
+        while((value & ~0x7F) != 0) {
+            putByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        
+        putByte(value);
+    }
+    
+    /**
+     * Appends the low eight bits of a value to the current record, growing
+     * the record buffer when it is full.
+     * 
+     * @param   value
+     *          the byte.
+     */
+    private void putByte(int value) {
+        if(recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        
+        record[recordLength++] = (byte)value;
+    }
+    
+    /**
+     * Reads a participant written as a position in the participant table.
+     * 
+     * @param   body
+     *          the record.
+     * 
+     * @param   participants
+     *          the participant table.
+     * 
+     * @return  the participant.
+     * 
+     * @throws  IOException
+     *          If the position is outside the table.
+     */
+    private static <P> P getParticipant(ByteBuffer body,
+            ArrayList<P> participants) throws IOException {
+        int position = getVarInt(body);
+        
+        if(position >= participants.size()) {
+            throw new IOException("Corrupt journal.");
+        }
+        
+        return participants.get(position);
+    }
+    
+    /**
+     * Reads a list of participants written as positions in the participant
+     * table.
+     * 
+     * @param   body
+     *          the record.
+     * 
+     * @param   participants
+     *          the participant table.
+     * 
+     * @return  the participants.
+     * 
+     * @throws  IOException
+     *          If a position is outside the table.
+     */
+    private static <P> ArrayList<P> getParticipants(ByteBuffer body,
+            ArrayList<P> participants) throws IOException {
+        int count = getVarInt(body);
+        ArrayList<P> list = new ArrayList<>(count);
+        
+        for(int i = 0; i < count; i++) {
+            list.add(getParticipant(body, participants));
+        }
+        
+        return list;
+    }
+    
+    /**
+     * Reads the results of a match.
+     * 
+     * @param   body
+     *          the record.
+     * 
+     * @return  the results, or an empty array.
+     * 
+     * @throws  IOException
+     *          If the results are not valid.
+     */
+    private static int[] getResults(ByteBuffer body) throws IOException {
+        int count = getVarInt(body);
+        int[] results = new int[count];
+        
+        for(int i = 0; i < count; i++) {
+            int result = getVarInt(body);
+            
+            results[i] = (result >>> 1) ^ -(result & 1);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Reads an enum value written as its ordinal.
+     * 
+     * @param   body
+     *          the record.
+     * 
+     * @param   values
+     *          the values of the enum.
+     * 
+     * @return  the value.
+     * 
+     * @throws  IOException
+     *          If the ordinal is not valid.
+     */
+    private static <E extends Enum<E>> E getEnum(ByteBuffer body, E[] values)
+            throws IOException {
+        int ordinal = getByte(body);
+        
+        if(ordinal >= values.length) {
+            throw new IOException("Corrupt journal.");
+        }
+        
+        return values[ordinal];
+    }
+    
+    /**
+     * Reads a string written as its UTF-8 length followed by its UTF-8 bytes.
+     * 
+     * @param   body
+     *          the record.
+     * 
+     * @return  the string.
+     * 
+     * @throws  IOException
+     *          If the string runs past the end of the record.
+     */
+    private static String getString(ByteBuffer body) throws IOException {
+        int length = getVarInt(body);
+        
+        if(length > body.remaining()) {
+            throw new IOException("Corrupt journal.");
+        }
+        
+        byte[] bytes = new byte[length];
+        
+        body.get(bytes);
+        
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Reads an unsigned variable length integer.
+     * 
+     * @param   body
+     *          the record.
+     * 
+     * @return  the value.
+     * 
+     * @throws  IOException
+     *          If the value is longer than five bytes or runs past the end
+     *          of the record.
+     */
+    private static int getVarInt(ByteBuffer body) throws IOException {
+        int value = 0;
+        
+        for(int shift = 0; shift < 35; shift += 7) {
+            int b = getByte(body);
+            
+            value |= (b & 0x7F) << shift;
+            
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        
+        throw new IOException("Corrupt journal.");
+    }
+    
+    /**
+     * Reads the next byte of a record.
+     * 
+     * @param   body
+     *          the record.
+     * 
+     * @return  the byte, from 0 to 255.
+     * 
+     * @throws  IOException
+     *          If the record has no bytes left.
+     */
+    private static int getByte(ByteBuffer body) throws IOException {
+        if(!body.hasRemaining()) {
+            throw new IOException("Corrupt journal.");
+        }
+        
+        return body.get() & 0xFF;
+    }
+}
@@ -0,0 +1,123 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.ArrayList;
+
+/**
+ * Receives the operations performed on a TournamentEvent. A listener is
+ * told about an operation after it has succeeded; operations that throw
+ * are not reported.
+ * 
+ * <p>Every method does nothing by default, so a listener only overrides the
+ * operations it cares about. Listeners are called on the thread that
+ * performed the operation.
+ * 
+ * @param       <R>
+ *              a class that extends TournamentRound.
+ * 
+ * @param       <M>
+ *              a class that extends TournamentMatch.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+public interface TournamentEventListener <R extends TournamentRound<M, P>,
+        M extends TournamentMatch<P>, P extends TournamentParticipant<P>> {
+    
+    /**
+     * Called after a participant is added to the event.
+     * 
+     * @param   participant
+     *          the participant added.
+     */
+    default void participantAdded(P participant) {
+    }
+    
+    /**
+     * Called after a participant is removed from the event.
+     * 
+     * @param   participant
+     *          the participant removed.
+     */
+    default void participantRemoved(P participant) {
+    }
+    
+    /**
+     * Called after a participant is deactivated.
+     * 
+     * @param   participant
+     *          the participant deactivated.
+     */
+    default void participantDeactivated(P participant) {
+    }
+    
+    /**
+     * Called after a participant is reactivated.
+     * 
+     * @param   participant
+     *          the participant reactivated.
+     */
+    default void participantReactivated(P participant) {
+    }
+    
+    /**
+     * Called after the first or last name of a participant changes.
+     * 
+     * @param   participant
+     *          the participant renamed.
+     */
+    default void participantRenamed(P participant) {
+    }
+    
+    /**
+     * Called after regulation play begins.
+     */
+    default void regulationPlaySegmentCreated() {
+    }
+    
+    /**
+     * Called after playoff play begins.
+     * 
+     * @param   cut
+     *          the cut the playoff segment was created with.
+     */
+    default void playoffPlaySegmentCreated(int cut) {
+    }
+    
+    /**
+     * Called after a new round is created and paired.
+     * 
+     * @param   round
+     *          the round created.
+     */
+    default void eventRoundCreated(R round) {
+    }
+    
+    /**
+     * Called after the current round is removed.
+     * 
+     * @param   round
+     *          the round removed.
+     */
+    default void eventRoundRemoved(R round) {
+    }
+    
+    /**
+     * Called after the results of a match of the event are set.
+     * 
+     * @param   match
+     *          the match whose results were set.
+     */
+    default void matchResultsChanged(M match) {
+    }
+    
+    /**
+     * Called after the standings of the event are read.
+     * 
+     * @param   standings
+     *          the participants, best standing first.
+     */
+    default void standingsRead(ArrayList<P> standings) {
+    }
+}
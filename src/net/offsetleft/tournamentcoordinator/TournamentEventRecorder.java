@@ -0,0 +1,355 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import net.offsetleft.tournamentcoordinator.exceptions.EventStateException;
+
+/**
+ * Records every operation performed on an event so the event can be replayed
+ * later, operation by operation.
+ * 
+ * <p>The recording is plain text with one operation per line. The fields of
+ * a line are separated by tabs; the first names the operation. Participants
+ * are named by UUID, matches by round number and position in the round.
+ * Every created round is written with its pairings and every standings read
+ * with a digest of the order, so a replay can check that it is reproducing
+ * the event it recorded.
+ * 
+ * <p>Pairing makes random choices, so the recorder seeds the event's pairing
+ * generator and writes the seed first. A recorder must therefore be created
+ * before the event begins.
+ * 
+ * @param       <R>
+ *              a class that extends TournamentRound.
+ * 
+ * @param       <M>
+ *              a class that extends TournamentMatch.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+public final class TournamentEventRecorder <R extends TournamentRound<M, P>,
+        M extends TournamentMatch<P>, P extends TournamentParticipant<P>>
+        implements TournamentEventListener<R, M, P>, Closeable {
+    
+    //Operations
+    public static final String SEED = "seed";
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+    public static final String DEACTIVATE = "deactivate";
+    public static final String REACTIVATE = "reactivate";
+    public static final String REGULATION = "regulation";
+    public static final String PLAYOFF = "playoff";
+    public static final String ROUND = "round";
+    public static final String REMOVE_ROUND = "removeround";
+    public static final String RESULTS = "results";
+    public static final String STANDINGS = "standings";
+    
+    //Separators
+    public static final char FIELD_SEPARATOR = '\t';
+    public static final char VALUE_SEPARATOR = ',';
+    
+    private final TournamentEvent<?, R, M, P> event;
+    private final PrintWriter writer;
+    
+    private final IdentityHashMap<M, int[]> matchPositions =
+            new IdentityHashMap<>();
+    
+    /**
+     * Constructs a recorder and starts recording an event. The participants
+     * already enrolled are recorded first.
+     * 
+     * @param   event
+     *          the event to record.
+     * 
+     * @param   writer
+     *          the writer to record to.
+     * 
+     * @throws  EventStateException
+     *          If the event has begun.
+     */
+    public TournamentEventRecorder(TournamentEvent<?, R, M, P> event,
+            Writer writer) throws EventStateException {
+        this(event, writer, new Random().nextLong());
+    }
+    
+    /**
+     * Constructs a recorder that seeds the event's pairing with the provided
+     * seed and starts recording the event.
+     * 
+     * @param   event
+     *          the event to record.
+     * 
+     * @param   writer
+     *          the writer to record to.
+     * 
+     * @param   seed
+     *          the seed of the event's pairing generator.
+     * 
+     * @throws  EventStateException
+     *          If the event has begun.
+     */
+    public TournamentEventRecorder(TournamentEvent<?, R, M, P> event,
+            Writer writer, long seed) throws EventStateException {
+        if(event.getEventHasStarted()) {
+            throw new EventStateException(
+                    "Event has begun. Cannot start recording.");
+        }
+        
+        this.event = event;
+        this.writer = new PrintWriter(writer);
+        
+        event.setPairingSeed(seed);
+        writeLine(SEED, Long.toString(seed));
+        
+        // Standings ties keep the order of the standings list, so the 
+        // participants are recorded in that order rather than by name.
+        for(P participant : event.getStandingsParticipants()) {
+            participantAdded(participant);
+        }
+        
+        event.addEventListener(this);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Overridden methods.                                                   *
+     *                                                                        *
+     **************************************************************************/
+    
+    @Override
+    public void participantAdded(P participant) {
+        writeLine(ADD,
+                encode(participant.getUUID()),
+                encode(participant.getFirstName()),
+                encode(participant.getLastName()));
+    }
+    
+    @Override
+    public void participantRemoved(P participant) {
+        writeLine(REMOVE, encode(participant.getUUID()));
+    }
+    
+    @Override
+    public void participantDeactivated(P participant) {
+        writeLine(DEACTIVATE, encode(participant.getUUID()));
+    }
+    
+    @Override
+    public void participantReactivated(P participant) {
+        writeLine(REACTIVATE, encode(participant.getUUID()));
+    }
+    
+    @Override
+    public void regulationPlaySegmentCreated() {
+        TournamentSegment<R, M, P> segment = event.getCurrentSegment();
+        
+        writeLine(REGULATION,
+                segment.getEliminationStyle().name(),
+                segment.getPairingSystem().name(),
+                segment.getMultiplayerOption().name(),
+                segment.getPairingAlgorithm().name());
+    }
+    
+    @Override
+    public void playoffPlaySegmentCreated(int cut) {
+        TournamentSegment<R, M, P> segment = event.getCurrentSegment();
+        
+        writeLine(PLAYOFF,
+                Integer.toString(cut),
+                segment.getEliminationStyle().name(),
+                segment.getPairingSystem().name(),
+                segment.getPairingAlgorithm().name());
+    }
+    
+    @Override
+    public void eventRoundCreated(R round) {
+        ArrayList<M> roundMatches = round.getRoundMatches();
+        String[] fields = new String[roundMatches.size() + 1];
+        
+        fields[0] = Integer.toString(round.getRoundNumber());
+        
+        for(int i = 0; i < roundMatches.size(); i++) {
+            M match = roundMatches.get(i);
+            StringBuilder pairing = new StringBuilder();
+            
+            for(P participant : match.getMatchParticipants()) {
+                if(pairing.length() > 0) {
+                    pairing.append(VALUE_SEPARATOR);
+                }
+                
+                pairing.append(encode(participant.getUUID()));
+            }
+            
+            fields[i + 1] = pairing.toString();
+            matchPositions.put(match, new int[] {round.getRoundNumber(), i});
+        }
+        
+        writeLine(ROUND, fields);
+    }
+    
+    @Override
+    public void eventRoundRemoved(R round) {
+        for(M match : round.getRoundMatches()) {
+            matchPositions.remove(match);
+        }
+        
+        writeLine(REMOVE_ROUND);
+    }
+    
+    @Override
+    public void matchResultsChanged(M match) {
+        int[] position = matchPositions.get(match);
+        
+        if(position == null) {
+            return;
+        }
+        
+        StringBuilder results = new StringBuilder();
+        
+        for(int result : match.getResultArray()) {
+            if(results.length() > 0) {
+                results.append(VALUE_SEPARATOR);
+            }
+            
+            results.append(result);
+        }
+        
+        writeLine(RESULTS,
+                Integer.toString(position[0]),
+                Integer.toString(position[1]),
+                results.toString());
+    }
+    
+    @Override
+    public void standingsRead(ArrayList<P> standings) {
+        writeLine(STANDINGS,
+                Integer.toString(standings.size()),
+                Long.toHexString(getDigest(standings)));
+    }
+    
+    /**
+     * Stops recording and closes the writer.
+     * 
+     * @throws  IOException
+     *          If any part of the recording could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        event.removeEventListener(this);
+        writer.close();
+        
+        if(writer.checkError()) {
+            throw new IOException("The recording could not be written.");
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to the recording format.                              *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Computes the digest of an ordered list of participants, as written for
+     * a standings read.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   participants
+     *          the participants, in order.
+     * 
+     * @return  the digest.
+     */
+    public static <P extends TournamentParticipant<P>> long getDigest(
+            List<P> participants) {
+        long digest = 17;
+        
+        for(P participant : participants) {
+            digest = digest * 31 + participant.getUUID().hashCode();
+        }
+        
+        return digest;
+    }
+    
+    /**
+     * Escapes a value so that it holds no separators or line breaks.
+     * 
+     * @param   value
+     *          the value to escape.
+     * 
+     * @return  the escaped value.
+     */
+    public static String encode(String value) {
+        StringBuilder encoded = new StringBuilder(value.length());
+        
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            
+            if(c == '%' || c == FIELD_SEPARATOR || c == VALUE_SEPARATOR
+                    || c == '\n' || c == '\r') {
+                encoded.append('%').append(String.format("%02X", (int)c));
+            } else {
+                encoded.append(c);
+            }
+        }
+        
+        return encoded.toString();
+    }
+    
+    /**
+     * Restores a value escaped by encode().
+     * 
+     * @param   value
+     *          the escaped value.
+     * 
+     * @return  the original value.
+     */
+    public static String decode(String value) {
+        StringBuilder decoded = new StringBuilder(value.length());
+        
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            
+            if(c == '%' && i + 2 < value.length()) {
+                decoded.append((char)Integer.parseInt(
+                        value.substring(i + 1, i + 3), 16));
+                i += 2;
+            } else {
+                decoded.append(c);
+            }
+        }
+        
+        return decoded.toString();
+    }
+    
+    /**
+     * Writes a line of the recording.
+     * 
+     * @param   operation
+     *          the name of the operation.
+     * 
+     * @param   fields
+     *          the fields of the operation.
+     */
+    private void writeLine(String operation, String... fields) {
+        StringBuilder line = new StringBuilder(operation);
+        
+        for(String field : fields) {
+            line.append(FIELD_SEPARATOR).append(field);
+        }
+        
+        writer.println(line);
+    }
+}
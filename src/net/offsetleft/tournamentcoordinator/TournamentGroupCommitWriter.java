@@ -0,0 +1,378 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Makes the journals of many events durable together. Instead of forcing
+ * its journal after every result, an event asks the writer to sync it and
+ * is handed a future that completes once everything journaled before the
+ * request is on the storage device.
+ * 
+ * <p>The writer commits in groups. While one commit is being forced, new
+ * requests gather for the next; each commit then forces every journal that
+ * was asked for once, however many requests it covers, and forces the
+ * journals of different events at the same time so that the file system can
+ * fold them into a single flush of its own log. The number of durable
+ * results is therefore no longer bounded by one force per result: more
+ * events, or more results per event, simply make each commit cover more.
+ * 
+ * <p>Futures are completed by the writer's threads, so work that depends on
+ * them should be chained with the asynchronous methods of
+ * CompletableFuture rather than run on the writer.
+ * 
+ * @author      agent
+ */
+public final class TournamentGroupCommitWriter implements Closeable {
+    
+    private final Thread committer;
+    private final ExecutorService forcers;
+    
+    private final Object lock = new Object();
+    private IdentityHashMap<Object, Commit> pending = new IdentityHashMap<>();
+    private boolean closed;
+    
+    private volatile long commitCount, forceCount, syncCount;
+    
+    /**
+     * Constructs a writer that forces up to sixteen journals at a time.
+     */
+    public TournamentGroupCommitWriter() {
+        this(16);
+    }
+    
+    /**
+     * Constructs a writer.
+     * 
+     * @param   concurrentForces
+     *          the number of journals the writer may force at the same time.
+     */
+    public TournamentGroupCommitWriter(int concurrentForces) {
+        if(concurrentForces < 1) {
+            throw new IllegalArgumentException(
+                    "At least one journal must be forced at a time.");
+        }
+        
+        this.forcers = (concurrentForces == 1)
+                ? null
+                : Executors.newFixedThreadPool(concurrentForces - 1,
+                        runnable -> createThread(runnable,
+                                "tournament-group-commit-force"));
+        
+        this.committer = createThread(this::commitLoop,
+                "tournament-group-commit");
+        this.committer.start();
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to sync requests.                                     *
+     *   - Getters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Asks for the records of a journal to be made durable. Must be called
+     * from the thread that operates on the journaled event.
+     * 
+     * @param   journal
+     *          the journal to sync.
+     * 
+     * @return  a future completed with the sequence number of the last record
+     *          at the time of the request, once that record is durable.
+     */
+    public CompletableFuture<Long> sync(TournamentEventJournal<?, ?, ?> journal) {
+        return request(journal, journal.getSequence(), journal::sync);
+    }
+    
+    /**
+     * Asks for the records of a checkpointed event to be made durable. Must
+     * be called from the thread that operates on the event.
+     * 
+     * @param   checkpointer
+     *          the checkpointer to sync.
+     * 
+     * @return  a future completed with the sequence number of the last record
+     *          at the time of the request, once that record is durable.
+     */
+    public CompletableFuture<Long> sync(
+            TournamentEventCheckpointer<?, ?, ?> checkpointer) {
+        return request(checkpointer, checkpointer.getSequence(),
+                checkpointer::sync);
+    }
+    
+    /**
+     * Gets the number of commits made so far.
+     * 
+     * @return  the commit count.
+     */
+    public long getCommitCount() {
+        return this.commitCount;
+    }
+    
+    /**
+     * Gets the number of journals forced so far. A journal is forced once
+     * per commit no matter how many requests it had in that commit.
+     * 
+     * @return  the force count.
+     */
+    public long getForceCount() {
+        return this.forceCount;
+    }
+    
+    /**
+     * Gets the number of sync requests completed so far.
+     * 
+     * @return  the request count.
+     */
+    public long getSyncCount() {
+        return this.syncCount;
+    }
+    
+    /**
+     * Commits the requests already made and stops the writer. Requests made
+     * after the writer is closed fail.
+     * 
+     * @throws  IOException
+     *          If the writer is interrupted while committing.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized(lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        
+        try {
+            committer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted waiting for the last commit.");
+        } finally {
+            if(forcers != null) {
+                forcers.shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Adds a request to the next commit.
+     * 
+     * @param   target
+     *          the journal or checkpointer to sync.
+     * 
+     * @param   sequence
+     *          the sequence number the request covers.
+     * 
+     * @param   syncAction
+     *          forces the target.
+     * 
+     * @return  the future of the request.
+     */
+    private CompletableFuture<Long> request(Object target, long sequence,
+            SyncAction syncAction) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        
+        synchronized(lock) {
+            if(closed) {
+                future.completeExceptionally(new IOException(
+                        "The group commit writer is closed."));
+                return future;
+            }
+            
+            Commit commit = pending.get(target);
+            
+            if(commit == null) {
+                commit = new Commit(syncAction);
+                pending.put(target, commit);
+                lock.notifyAll();
+            }
+            
+            commit.futures.add(future);
+            commit.sequences.add(sequence);
+        }
+        
+        return future;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to committing.                                        *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Takes the gathered requests as one commit at a time until the writer
+     * is closed and nothing is left to commit.
+     */
+    private void commitLoop() {
+        while(true) {
+            ArrayList<Commit> commits;
+            
+            synchronized(lock) {
+                while(pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ex) { }
+                }
+                
+                if(pending.isEmpty()) {
+                    return;
+                }
+                
+                commits = new ArrayList<>(pending.values());
+                pending = new IdentityHashMap<>();
+            }
+            
+            commit(commits);
+        }
+    }
+    
+    /**
+     * Forces every target of a commit and completes its requests. The last
+     * target is forced on the committing thread while the others are forced
+     * by the pool.
+     * 
+     * @param   commits
+     *          the targets of the commit.
+     */
+    private void commit(ArrayList<Commit> commits) {
+        ArrayList<Future<IOException>> forced = new ArrayList<>();
+        int last = commits.size() - 1;
+        
+        for(int i = 0; i < last && forcers != null; i++) {
+            Commit commit = commits.get(i);
+            
+            forced.add(forcers.submit(commit::force));
+        }
+        
+        for(int i = forced.size(); i <= last; i++) {
+            commits.get(i).complete(commits.get(i).force());
+        }
+        
+        for(int i = 0; i < forced.size(); i++) {
+            IOException failure;
+            
+            try {
+                failure = forced.get(i).get();
+            } catch (InterruptedException | ExecutionException ex) {
+                failure = new IOException(ex);
+            }
+            
+            commits.get(i).complete(failure);
+        }
+        
+        long syncs = 0;
+        
+        for(Commit commit : commits) {
+            syncs += commit.futures.size();
+        }
+        
+        commitCount++;
+        forceCount += commits.size();
+        syncCount += syncs;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods and classes.                                           *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Creates a daemon thread for the writer.
+     * 
+     * @param   runnable
+     *          the work of the thread.
+     * 
+     * @param   name
+     *          the name of the thread.
+     * 
+     * @return  the thread.
+     */
+    private static Thread createThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        
+        thread.setDaemon(true);
+        
+        return thread;
+    }
+    
+    /**
+     * Forces a journal or checkpointer.
+     */
+    private interface SyncAction {
+        
+        /**
+         * Forces the target to the storage device.
+         * 
+         * @throws  IOException
+         *          If the target cannot be forced.
+         */
+        void sync() throws IOException;
+    }
+    
+    /**
+     * The requests for one target in a commit.
+     */
+    private static final class Commit {
+        
+        private final SyncAction syncAction;
+        private final ArrayList<CompletableFuture<Long>> futures =
+                new ArrayList<>();
+        private final ArrayList<Long> sequences = new ArrayList<>();
+        
+        /**
+         * Constructs the requests for a target.
+         * 
+         * @param   syncAction
+         *          forces the target.
+         */
+        private Commit(SyncAction syncAction) {
+            this.syncAction = syncAction;
+        }
+        
+        /**
+         * Forces the target.
+         * 
+         * @return  the failure, or null if the target was forced.
+         */
+        private IOException force() {
+            try {
+                syncAction.sync();
+                return null;
+            } catch (IOException ex) {
+                return ex;
+            }
+        }
+        
+        /**
+         * Completes the requests.
+         * 
+         * @param   failure
+         *          the failure to complete them with, or null if the target
+         *          was forced.
+         */
+        private void complete(IOException failure) {
+            for(int i = 0; i < futures.size(); i++) {
+                if(failure == null) {
+                    futures.get(i).complete(sequences.get(i));
+                } else {
+                    futures.get(i).completeExceptionally(failure);
+                }
+            }
+        }
+    }
+}
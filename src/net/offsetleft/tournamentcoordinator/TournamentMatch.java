@@ -2,7 +2,6 @@ package net.offsetleft.tournamentcoordinator;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
 import net.offsetleft.tournamentcoordinator.exceptions.MatchStateException;
 import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
 
@@ -13,10 +12,21 @@ import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
  */
 public class TournamentMatch <P extends TournamentParticipant<P>> implements Filterable, Serializable  {
     
+    /**
+     * The expected version that lets setMatchResults() replace any results.
+     */
+    public static final long ANY_VERSION = -1;
+    
+    private static final int[] NO_RESULTS = new int[0];
+    
     private final SegmentMultiplayerOption multiplayerOption;
     
     private final ArrayList<P> matchParticipants    = new ArrayList<>();
-    private final ArrayList<Integer> matchResults   = new ArrayList<>();
+    private volatile int[] matchResults = NO_RESULTS;
+    private volatile long resultVersion;
+    
+    private volatile TournamentEvent<?, ?, ?, P> enrolledEvent;
+    private TournamentRound<?, P> enrolledRound;
     
     /**
      * TODO: Comment.
@@ -32,7 +42,7 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
         
         if(this.matchParticipants.size() == 1 
                 && this.multiplayerOption == SegmentMultiplayerOption.HEADSUP) {
-            matchResults.addAll(Arrays.asList(2, 0, 0));
+            matchResults = new int[] {2, 0, 0};
         }
     }
     
@@ -78,16 +88,30 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
             throw new TournamentStateException("Participant was not in this match.");
         }
         
-        ArrayList<P> opponents = new ArrayList<>();
+        ArrayList<P> opponents = new ArrayList<>(matchParticipants.size() - 1);
         
-        matchParticipants.stream().filter((potentialOp) ->
-                (potentialOp != participant)).forEach((potentialOp) -> {
-            opponents.add(potentialOp);
-        });
+        for(P potentialOp : matchParticipants) {
+            if(potentialOp != participant) {
+                opponents.add(potentialOp);
+            }
+        }
         
         return opponents;
     }
     
+    /**
+     * Gets the participant at the requested index, so that callers can walk
+     * the participants of a match without copying them.
+     * 
+     * @param   index
+     *          the index of the participant.
+     * 
+     * @return  the participant.
+     */
+    public P getMatchParticipant(int index) {
+        return this.matchParticipants.get(index);
+    }
+    
     /**
      * Counts the number of participants in the match.
      * 
@@ -125,17 +149,19 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      *          </ul>
      */
     public int getParticipantResultsByParticipant(P participant) throws TournamentStateException {
-        if(!getWasParticipant(participant)) {
+        int index = matchParticipants.indexOf(participant);
+        
+        if(index < 0) {
             throw new TournamentStateException("Participant was not in this match.");
         }
         
-        if(matchResults.isEmpty()) {
+        int[] results = this.matchResults;
+        
+        if(results.length == 0) {
             throw new TournamentStateException("Match does not have results.");
         }
         
-        int index = matchParticipants.indexOf(participant);
-        
-        return matchResults.get(index);
+        return results[index];
     }
     
     /**
@@ -150,11 +176,13 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      *          If the match lacks results.
      */
     public int getParticipantResultsByIndex(int index) throws MatchStateException {
-        if(matchResults.isEmpty()) {
+        int[] results = this.matchResults;
+        
+        if(results.length == 0) {
             throw new MatchStateException("Match does not have results.");
         }
         
-        return matchResults.get(index);
+        return results[index];
     }
     
     /**
@@ -168,7 +196,9 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      *          </ul>
      */
     public int getGamesPlayedTotal() {
-        if(matchResults.isEmpty()) {
+        int[] results = this.matchResults;
+        
+        if(results.length == 0) {
             return 0;
         }
         
@@ -178,8 +208,9 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
             default:
                 int totalPlayed = 0;
                 
-                totalPlayed = 
-                        matchResults.stream().map((i) -> i).reduce(totalPlayed, Integer::sum);
+                for(int result : results) {
+                    totalPlayed += result;
+                }
             
                 return totalPlayed;
         }
@@ -253,16 +284,20 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      *          </ul>
      */
     protected int getHeadsUpMatchPoints(P participant) throws TournamentStateException {
+        int wins = getParticipantGameWins(participant);
+        
         if(matchParticipants.size() == 1) {
-            if(getParticipantGameWins(participant) == 2) {
+            if(wins == 2) {
                 return 3;
             } else {
                 return 0;
             }
         } else {
-            if(getParticipantGameWins(participant) > getParticipantGameLosses(participant)) {
+            int losses = getParticipantGameLosses(participant);
+            
+            if(wins > losses) {
                 return 3;
-            } else if(getParticipantGameWins(participant) == getParticipantGameLosses(participant)) {
+            } else if(wins == losses) {
                 return 1;
             } else {
                 return 0;
@@ -325,7 +360,8 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      **************************************************************************/
     
     /**
-     * Gets a list of the match results.
+     * Gets a copy of the match results as a list. The other result getters
+     * read the results in place and should be preferred on hot paths.
      * 
      * @return  a list of results.
      * 
@@ -333,10 +369,37 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      *          If the match has no results.
      */
     public ArrayList<Integer> getMatchResults() throws MatchStateException {
-        if(!getMatchHasResults()) {
+        int[] results = this.matchResults;
+        
+        if(results.length == 0) {
             throw new MatchStateException("Match lacks results.");
         }
         
+        ArrayList<Integer> copy = new ArrayList<>(results.length);
+        
+        for(int result : results) {
+            copy.add(result);
+        }
+        
+        return copy;
+    }
+    
+    /**
+     * Gets the number of results entered for the match.
+     * 
+     * @return  the result count, or 0 if the match has no results.
+     */
+    public int getResultCount() {
+        return this.matchResults.length;
+    }
+    
+    /**
+     * Gets the results without copying them. The array is never changed
+     * once the match holds it and must not be changed by the caller.
+     * 
+     * @return  the results, or an empty array.
+     */
+    int[] getResultArray() {
         return this.matchResults;
     }
     
@@ -378,8 +441,10 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      * @return 
      */
     public int getMatchDraws() {
-        if(matchResults.size() > 2) {
-            return matchResults.get(2);
+        int[] results = this.matchResults;
+        
+        if(results.length > 2) {
+            return results[2];
         }
         
         return 0;
@@ -391,11 +456,21 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      * @return  a boolean.
      */
     public boolean getMatchHasResults() {
-        return this.matchResults.size() > 0;
+        return this.matchResults.length > 0;
     }
     
     /**
-     * Sets the results for the match.
+     * Gets the version of the match results. The version starts at zero and
+     * goes up by one every time the results are set.
+     * 
+     * @return  the result version.
+     */
+    public long getResultVersion() {
+        return this.resultVersion;
+    }
+    
+    /**
+     * Sets the results for the match, whatever results it has now.
      * 
      * @param   matchResults 
      *          sets the results for the match.
@@ -405,16 +480,194 @@ public class TournamentMatch <P extends TournamentParticipant<P>> implements Fil
      *          of match participants.
      */
     public void setMatchResults(ArrayList<Integer> matchResults) throws TournamentStateException {
+        setMatchResults(matchResults, ANY_VERSION);
+    }
+    
+    /**
+     * Sets the results for the match if they are still at the expected 
+     * version, so that a scorekeeper working from stale results, or sending
+     * the same results twice, does not overwrite a newer submission.
+     * 
+     * <p>Results may be submitted from several threads at once. Submissions
+     * for different matches of an event run in parallel, while changes to 
+     * the structure of the event, such as creating a round, wait for them 
+     * and exclude them.
+     * 
+     * @param   matchResults 
+     *          sets the results for the match.
+     * 
+     * @param   expectedVersion
+     *          the version the results must be at, or ANY_VERSION.
+     * 
+     * @return  the new result version.
+     * 
+     * @throws  TournamentStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the size of the provided list is different from the 
+     *                  number of match participants.</li>
+     *              <li>the results are not at the expected version.</li>
+     *              <li>the match was withdrawn from its event.</li>
+     *          </ul>
+     */
+    public long setMatchResults(ArrayList<Integer> matchResults, 
+            long expectedVersion) throws TournamentStateException {
+        int[] results = new int[matchResults.size()];
+        
+        for(int i = 0; i < results.length; i++) {
+            results[i] = matchResults.get(i);
+        }
+        
+        return setResults(results, expectedVersion);
+    }
+    
+    /**
+     * Sets the results for the match from an array, under the same rules as
+     * setMatchResults(ArrayList, long). The array is copied.
+     * 
+     * @param   matchResults 
+     *          sets the results for the match.
+     * 
+     * @param   expectedVersion
+     *          the version the results must be at, or ANY_VERSION.
+     * 
+     * @return  the new result version.
+     * 
+     * @throws  TournamentStateException
+     *          If the results cannot be set.
+     */
+    public long setMatchResults(int[] matchResults, long expectedVersion)
+            throws TournamentStateException {
+        return setResults(matchResults.clone(), expectedVersion);
+    }
+    
+    /**
+     * Checks and sets results that the match may take ownership of.
+     * 
+     * @param   results
+     *          the new results.
+     * 
+     * @param   expectedVersion
+     *          the version the results must be at, or ANY_VERSION.
+     * 
+     * @return  the new result version.
+     * 
+     * @throws  TournamentStateException
+     *          If the results cannot be set.
+     */
+    private long setResults(int[] results, long expectedVersion) 
+            throws TournamentStateException {
         if(((multiplayerOption == SegmentMultiplayerOption.MULTIPLAYER
-                && matchResults.size() != matchParticipants.size())
+                && results.length != matchParticipants.size())
             || multiplayerOption == SegmentMultiplayerOption.HEADSUP 
-                && matchResults.size() != 3)
-            && !matchResults.isEmpty()) {
+                && results.length != 3)
+            && results.length != 0) {
             throw new TournamentStateException("Result size mismatch.");
         }
         
-        this.matchResults.clear();
-        this.matchResults.addAll(matchResults);
+        TournamentEvent<?, ?, ?, P> event = this.enrolledEvent;
+        
+        if(event != null) {
+            return event.submitMatchResults(this, results, expectedVersion);
+        }
+        
+        synchronized(this) {
+            checkResultVersion(expectedVersion);
+            
+            return replaceMatchResults(results);
+        }
+    }
+    
+    /**
+     * Checks that the results are at the expected version. Called with the
+     * match locked.
+     * 
+     * @param   expectedVersion
+     *          the version the results must be at, or ANY_VERSION.
+     * 
+     * @throws  MatchStateException
+     *          If the results are at another version.
+     */
+    void checkResultVersion(long expectedVersion) throws MatchStateException {
+        if(expectedVersion != ANY_VERSION && expectedVersion != resultVersion) {
+            throw new MatchStateException("Match results are at version " 
+                    + resultVersion + ", not " + expectedVersion + ".");
+        }
+    }
+    
+    /**
+     * Replaces the results and moves them to the next version. Called with
+     * the match locked.
+     * 
+     * @param   results
+     *          the new results, which the match takes ownership of.
+     * 
+     * @return  the new result version.
+     */
+    long replaceMatchResults(int[] results) {
+        this.matchResults = results;
+        
+        return ++resultVersion;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to match enrollment.                                  *
+     *   - Getters                                                            *
+     *   - Setters                                                            *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets if a loss in this match counts towards elimination.
+     * 
+     * @return  a boolean.
+     */
+    boolean getCountsLosses() {
+        if(enrolledRound == null) {
+            return false;
+        }
+        
+        return enrolledRound.getEliminationStyle() == SegmentEliminationStyle.SINGLE
+                || enrolledRound.getEliminationStyle() == SegmentEliminationStyle.DOUBLE;
+    }
+    
+    /**
+     * Gets the round the match is enrolled in.
+     * 
+     * @return  the round, or null if the match is not enrolled.
+     */
+    TournamentRound<?, P> getEnrolledRound() {
+        return this.enrolledRound;
+    }
+    
+    /**
+     * Gets if the match is enrolled in an event.
+     * 
+     * @param   event
+     *          the event to check.
+     * 
+     * @return  a boolean.
+     */
+    boolean getIsEnrolledIn(TournamentEvent<?, ?, ?, P> event) {
+        return this.enrolledEvent == event;
+    }
+    
+    /**
+     * Enrolls the match in an event round so that result changes are reported
+     * to the event. Passing null for both arguments withdraws the match.
+     * 
+     * @param   enrolledEvent
+     *          the event the match belongs to.
+     * 
+     * @param   enrolledRound 
+     *          the round the match belongs to.
+     */
+    void setEnrollment(TournamentEvent<?, ?, ?, P> enrolledEvent, 
+            TournamentRound<?, P> enrolledRound) {
+        this.enrolledEvent = enrolledEvent;
+        this.enrolledRound = enrolledRound;
     }
     
     
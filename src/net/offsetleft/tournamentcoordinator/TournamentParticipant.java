@@ -35,6 +35,29 @@ public class TournamentParticipant <P extends TournamentParticipant> implements
         this.participantUUID = "" + Calendar.getInstance().getTimeInMillis();
     }
     
+    /**
+     * Constructs a participant with a known UUID, such as one restored from
+     * storage or created in bulk, where the creation time alone would not
+     * keep the UUIDs unique.
+     * 
+     * @param   participantFirstName
+     *          the first name of the participant.
+     * 
+     * @param   participantLastName
+     *          the last name of the participant.
+     * 
+     * @param   participantUUID 
+     *          the UUID of the participant.
+     */
+    public TournamentParticipant(
+            String participantFirstName, 
+            String participantLastName,
+            String participantUUID) {
+        this.participantFirstName = participantFirstName;
+        this.participantLastName = participantLastName;
+        this.participantUUID = participantUUID;
+    }
+    
     /**
      * TODO: Comment.
      * 
@@ -200,7 +223,7 @@ public class TournamentParticipant <P extends TournamentParticipant> implements
      * @return 
      */
     public final double getMatchWinPercentage() {
-        double matchesPlayed = enrolledEvent.getAllParticipantMatches(this).size();
+        double matchesPlayed = enrolledEvent.getParticipantMatchHistory(this).size();
         double totalPoints = getParticipantMatchPoints();
 
         double winPct = totalPoints / (matchesPlayed * 3);
@@ -299,6 +322,10 @@ public class TournamentParticipant <P extends TournamentParticipant> implements
      */
     public final void setFirstName(String participantFirstName) {
         this.participantFirstName = participantFirstName;
+        
+        if(enrolledEvent != null) {
+            enrolledEvent.participantRenamed(this);
+        }
     }
     
     /**
@@ -308,6 +335,10 @@ public class TournamentParticipant <P extends TournamentParticipant> implements
      */
     public final void setLastName(String participantLastName) {
         this.participantLastName = participantLastName;
+        
+        if(enrolledEvent != null) {
+            enrolledEvent.participantRenamed(this);
+        }
     }
     
     
@@ -2,6 +2,8 @@ package net.offsetleft.tournamentcoordinator;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Random;
+import net.offsetleft.tournamentcoordinator.exceptions.RoundStateException;
 import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
 
 /**
@@ -25,6 +27,8 @@ public class TournamentRound <M extends TournamentMatch<P>,
     private final SegmentEliminationStyle eliminationStyle;
     private final SegmentPairingSystem pairingSystem;
     private final SegmentMultiplayerOption multiplayerOption;
+    private final SegmentPairingAlgorithm pairingAlgorithm;
+    private final Random pairingRandom;
     
     protected final ArrayList<M> roundMatches = new ArrayList<>();
     protected final ArrayList<P> roundParticipants = new ArrayList<>();
@@ -43,6 +47,74 @@ public class TournamentRound <M extends TournamentMatch<P>,
                 SegmentEliminationStyle eliminationStyle, 
                 SegmentPairingSystem pairingSystem,
                 SegmentMultiplayerOption multiplayerOption) {
+        this(roundNumber, roundParticipants, eliminationStyle, pairingSystem, 
+                multiplayerOption, SegmentPairingAlgorithm.GREEDY);
+    }
+    
+    /**
+     * Constructs a new round that pairs Swiss matches with the provided 
+     * pairing algorithm.
+     * 
+     * @param   roundNumber
+     *          the number of the round.
+     * 
+     * @param   roundParticipants
+     *          the participants to pair, in standings order.
+     * 
+     * @param   eliminationStyle
+     *          the SegmentEliminationStyle of the segment.
+     * 
+     * @param   pairingSystem
+     *          the SegmentPairingSystem of the segment.
+     * 
+     * @param   multiplayerOption 
+     *          the SegmentMultiplayerOption of the segment.
+     * 
+     * @param   pairingAlgorithm
+     *          the SegmentPairingAlgorithm of the segment.
+     */
+    public TournamentRound(int roundNumber,
+                ArrayList<P> roundParticipants, 
+                SegmentEliminationStyle eliminationStyle, 
+                SegmentPairingSystem pairingSystem,
+                SegmentMultiplayerOption multiplayerOption,
+                SegmentPairingAlgorithm pairingAlgorithm) {
+        this(roundNumber, roundParticipants, eliminationStyle, pairingSystem, 
+                multiplayerOption, pairingAlgorithm, new Random());
+    }
+    
+    /**
+     * Constructs a new round that makes the random choices of its pairing
+     * with the provided random number generator.
+     * 
+     * @param   roundNumber
+     *          the number of the round.
+     * 
+     * @param   roundParticipants
+     *          the participants to pair, in standings order.
+     * 
+     * @param   eliminationStyle
+     *          the SegmentEliminationStyle of the segment.
+     * 
+     * @param   pairingSystem
+     *          the SegmentPairingSystem of the segment.
+     * 
+     * @param   multiplayerOption 
+     *          the SegmentMultiplayerOption of the segment.
+     * 
+     * @param   pairingAlgorithm
+     *          the SegmentPairingAlgorithm of the segment.
+     * 
+     * @param   pairingRandom
+     *          the Random used while pairing.
+     */
+    public TournamentRound(int roundNumber,
+                ArrayList<P> roundParticipants, 
+                SegmentEliminationStyle eliminationStyle, 
+                SegmentPairingSystem pairingSystem,
+                SegmentMultiplayerOption multiplayerOption,
+                SegmentPairingAlgorithm pairingAlgorithm,
+                Random pairingRandom) {
         this.roundNumber = roundNumber;
         
         this.roundParticipants.addAll(roundParticipants);
@@ -50,6 +122,8 @@ public class TournamentRound <M extends TournamentMatch<P>,
         this.eliminationStyle = eliminationStyle;
         this.pairingSystem = pairingSystem;
         this.multiplayerOption = multiplayerOption;
+        this.pairingAlgorithm = pairingAlgorithm;
+        this.pairingRandom = pairingRandom;
     }
     
     /**************************************************************************
@@ -86,6 +160,15 @@ public class TournamentRound <M extends TournamentMatch<P>,
         return this.multiplayerOption;
     }
     
+    /**
+     * Gets the pairing algorithm of the segment.
+     * 
+     * @return  the SegmentPairingAlgorithm of the segment.
+     */
+    public final SegmentPairingAlgorithm getPairingAlgorithm() {
+        return this.pairingAlgorithm;
+    }
+    
     /**
      * TODO: Comment.
      * 
@@ -167,7 +250,9 @@ public class TournamentRound <M extends TournamentMatch<P>,
      * Creates a matches for the round.
      * 
      * @throws  TournamentStateException
-     *          If the round already has matches.
+     *          If the round already has matches, or if a head-up round 
+     *          would give the player at the top of its pairing table a 
+     *          second bye.
      */
     public void createRoundMatches() throws TournamentStateException {
         if(this.roundMatches.size() > 0) {
@@ -216,6 +301,27 @@ public class TournamentRound <M extends TournamentMatch<P>,
         }
     }
     
+    /**
+     * Creates the matches of the round from pairings made elsewhere, such as 
+     * by a playoff bracket.
+     * 
+     * @param   pairings
+     *          the participants of each match, in match order.
+     * 
+     * @throws  TournamentStateException
+     *          If the round already has matches.
+     */
+    final void createRoundMatches(ArrayList<ArrayList<P>> pairings) 
+            throws TournamentStateException {
+        if(this.roundMatches.size() > 0) {
+            throw new TournamentStateException("Round already has matches.");
+        }
+        
+        for(ArrayList<P> pairing : pairings) {
+            roundMatches.add(createRoundMatch(pairing, multiplayerOption));
+        }
+    }
+    
     /**
      * Subroutine reducing code redundancy in createRoundMatches().
      * 
@@ -223,33 +329,51 @@ public class TournamentRound <M extends TournamentMatch<P>,
      *          The players to match.
      * 
      * @param   minNodeSize
-     *          The minimum size of a PairingNode.
+     *          The minimum size of a pairing.
      * 
      * @param   maxNodeSize
-     *          The maximum size of a PairingNode.
+     *          The maximum size of a pairing.
      * 
      * @return  an ArrayList of matches.
+     * 
+     * @throws  TournamentStateException
+     *          If the players cannot be paired.
      */
     private ArrayList<M> generateRoundMatches(
                 ArrayList<P> players, 
-                int minNodeSize, int maxNodeSize) {
+                int minNodeSize, int maxNodeSize) 
+                throws TournamentStateException {
         ArrayList<M> pairings = new ArrayList<>();
+        
+        if(pairingSystem == SegmentPairingSystem.SWISS
+                && multiplayerOption == SegmentMultiplayerOption.HEADSUP
+                && pairingAlgorithm != SegmentPairingAlgorithm.GREEDY) {
+            ArrayList<ArrayList<P>> pairedPlayers;
+            
+            if(pairingAlgorithm == SegmentPairingAlgorithm.PARALLEL_SCORE_GROUPS) {
+                pairedPlayers = new ScoreGroupPairing<>(players).createPairings();
+            } else {
+                pairedPlayers = new WeightedSwissPairing<>(players).createPairings();
+            }
+            
+            // Matches are created here, on the calling thread, since 
+            // createRoundMatch may be overridden.
+            for(ArrayList<P> pairing : pairedPlayers) {
+                pairings.add(createRoundMatch(pairing, multiplayerOption));
+            }
+            
+            return pairings;
+        }
 
-        PairingNode root = new PairingNode(null, minNodeSize, maxNodeSize);
+        PairingTable table = new PairingTable(minNodeSize, maxNodeSize);
 
         for(P p : players) {
-            root.addPlayer(p);
+            table.addPlayer(p);
         }
         
-        root.cleanupNodes();
+        table.cleanupNodes();
 
-        pairings.add(root.getMatch());
-        
-        while(root.hasNextNode()) {
-            root = root.getNextNode();
-            
-            pairings.add(root.getMatch());
-        }
+        pairings.addAll(table.getMatches());
         
         return pairings;
     }
@@ -268,6 +392,27 @@ public class TournamentRound <M extends TournamentMatch<P>,
         return (M)match;
     }
     
+    /**
+     * Adds a match that was paired earlier, such as one read from a snapshot
+     * or a journal, to the round.
+     * 
+     * @param   participants
+     *          the participants of the match.
+     * 
+     * @param   results
+     *          the results of the match, or an empty array.
+     * 
+     * @throws  TournamentStateException
+     *          If the results do not fit the match.
+     */
+    final void restoreRoundMatch(ArrayList<P> participants,
+            int[] results) throws TournamentStateException {
+        M match = createRoundMatch(participants, multiplayerOption);
+        
+        match.setMatchResults(results, TournamentMatch.ANY_VERSION);
+        roundMatches.add(match);
+    }
+    
     
     /**************************************************************************
      *                                                                        *
@@ -319,158 +464,279 @@ public class TournamentRound <M extends TournamentMatch<P>,
 
     /**************************************************************************
      *                                                                        *
-     *  PairingNode helper class.                                             *
+     *  PairingTable helper class.                                            *
      *                                                                        *
      **************************************************************************/
     
     /**
-     * 
+     * An array-backed table of pairing nodes. Node i follows node i - 1, so
+     * passing a player to the next node and looking back for a new opponent
+     * are loops over the table instead of recursion along a chain of nodes,
+     * and the stack depth no longer grows with the size of the field.
      */
-    private class PairingNode {
-            private final ArrayList<P> nodePlayers = new ArrayList<>();
+    private class PairingTable {
+            private final ArrayList<PairingNode> nodes = new ArrayList<>();
             
             private final int minNodeSize, maxNodeSize;
             
-            private final PairingNode previous;
-            private PairingNode next;
+            private int firstOpenNode = 0;
             
             /**
-             * TODO: Comment.
+             * Constructs a new table holding a single empty node.
              * 
-             * @param previous
-             * @param minNodeSize
-             * @param maxNodeSize 
+             * @param   minNodeSize
+             *          the minimum size of a node.
+             * 
+             * @param   maxNodeSize
+             *          the maximum size of a node.
              */
-            private PairingNode(PairingNode previous,
-                    int minNodeSize,
-                    int maxNodeSize) {
-                this.previous = previous;
+            private PairingTable(int minNodeSize, int maxNodeSize) {
                 this.minNodeSize = minNodeSize;
                 this.maxNodeSize = maxNodeSize;
+                
+                nodes.add(new PairingNode(maxNodeSize));
             }
             
-            
             /**
-             * TODO: Comment.
+             * Adds a player to the first node that will accept it. Nodes only 
+             * fill up while the table is being built, so the full nodes at 
+             * the front of the table are skipped rather than walked again.
              * 
-             * @param p 
+             * @param   p
+             *          the player to add.
              */
             private void addPlayer(P p) {
-                if (this.getNodeSize() < maxNodeSize 
-                        && pairingSystem == SegmentPairingSystem.SWISS) {
-                    for (P opponent : nodePlayers) {
-                        try {
-                            if (p.getHasPlayedParticipant(opponent)) {
-                                passToNext(p);
-                                return;
-                            }
-                        } catch (TournamentStateException ex) {
-                            System.err.println(ex);
-                        }
+                addPlayer(firstOpenNode, p);
+                
+                while(firstOpenNode < nodes.size() 
+                        && nodes.get(firstOpenNode).getNodeSize() >= maxNodeSize) {
+                    firstOpenNode++;
+                }
+            }
+            
+            /**
+             * Adds a player to the first node from the given index on that 
+             * will accept it, creating a node at the end of the table if 
+             * none will.
+             * 
+             * @param   nodeIndex
+             *          the index of the first node to try.
+             * 
+             * @param   p
+             *          the player to add.
+             */
+            private void addPlayer(int nodeIndex, P p) {
+                for(int i = nodeIndex; ; i++) {
+                    if(i == nodes.size()) {
+                        nodes.add(new PairingNode(maxNodeSize));
                     }
                     
-                    nodePlayers.add(p);
-                } else if (getNodeSize() < maxNodeSize) {
-                    nodePlayers.add(p);
-                } else {
-                    passToNext(p);
+                    if(nodes.get(i).acceptPlayer(p)) {
+                        return;
+                    }
                 }
             }
             
             /**
-             * TODO: Comment.
+             * Repairs undersized nodes and byes, working from the last node 
+             * of the table to the first. Nodes added while repairing are not 
+             * themselves repaired, and an empty node ends the table.
              * 
-             * @param p 
+             * @throws  TournamentStateException
+             *          If the first node of a heads-up table is left with a
+             *          single player who has already had a bye.
              */
-            private void passToNext(P p) {
-                if (!this.hasNextNode()) {
-                    next = new PairingNode(this, 
-                            minNodeSize, 
-                            maxNodeSize);
+            private void cleanupNodes() throws TournamentStateException {
+                for(int i = nodes.size() - 1; i >= 0; i--) {
+                    cleanupNode(i);
+                    
+                    if(i + 1 < nodes.size() && nodes.get(i + 1).getNodeSize() == 0) {
+                        nodes.subList(i + 1, nodes.size()).clear();
+                    }
                 }
-                
-                next.addPlayer(p);
             }
             
             /**
-             * TODO: Comment.
+             * Repairs a single node.
              * 
-             * @return 
+             * @param   nodeIndex
+             *          the index of the node to repair.
+             * 
+             * @throws  TournamentStateException
+             *          If the node is the first of a heads-up table and holds
+             *          a single player who has already had a bye.
              */
-            private boolean hasNextNode() {
-                return next != null;
+            private void cleanupNode(int nodeIndex) throws TournamentStateException {
+                PairingNode node = nodes.get(nodeIndex);
+                PairingNode previous = (nodeIndex > 0) ? nodes.get(nodeIndex - 1) : null;
+                
+                if(maxNodeSize > 2) {
+                    while (previous != null
+                            && node.getNodeSize() < minNodeSize
+                            && previous.getNodeSize() > minNodeSize) {
+                        node.nodePlayers.add(previous.surrenderLast());
+                    }
+                } else if(node.getNodeSize() == 1) {
+                    P toCheck = node.nodePlayers.get(0);
+                    
+                    try {
+                        while(toCheck.getHasHadBye()
+                                || (previous != null && previous.getNodeSize() == 1)) {
+                            // The first node has no earlier node to trade 
+                            // with, so its player would get a second bye.
+                            if(previous == null) {
+                                throw new RoundStateException("No valid "
+                                        + "pairing for round " + roundNumber + ".");
+                            }
+                            
+                            node.nodePlayers.remove(toCheck);
+
+                            if(!findNewOpponent(nodeIndex - 1, toCheck)) {
+                                node.nodePlayers.add(toCheck);
+                                break;
+                            }
+
+                            if(node.getNodeSize() > 0)
+                                toCheck = node.nodePlayers.get(0);
+                            else
+                                break;
+                        }
+                    } catch (RoundStateException ex) {
+                        throw ex;
+                    } catch (TournamentStateException ex) {
+                        System.err.println(ex);
+                    }
+                }
             }
             
             /**
-             * TODO: Comment.
+             * Looks for a node that can take a player, working back from the 
+             * given index to the first node. A player displaced from that 
+             * node is added again from the same node onwards.
              * 
-             * @return 
+             * @param   nodeIndex
+             *          the index of the first node to try.
+             * 
+             * @param   toPair
+             *          the player to find an opponent for.
+             * 
+             * @return  true if an opponent was found.
              */
-            private PairingNode getNextNode() {
-                return next;
+            private boolean findNewOpponent(int nodeIndex, P toPair) {
+                for(int i = nodeIndex; i >= 0; i--) {
+                    PairingNode node = nodes.get(i);
+                    
+                    try {
+                        if(node.getNodeSize() > minNodeSize) {
+                            P p1 = node.nodePlayers.get(0);
+                            P p2 = node.nodePlayers.get(1);
+                            int start = pairingRandom.nextInt(2);
+                            
+                            P first = (start == 0) ? p1 : p2;
+                            P second = (start == 0) ? p2 : p1;
+                            
+                            if(!toPair.getHasPlayedParticipant(first)) {
+                                node.nodePlayers.remove(second);
+                                node.nodePlayers.add(toPair);
+                                addPlayer(i, second);
+                                
+                                return true;
+                            }
+                            
+                            if(!toPair.getHasPlayedParticipant(second)) {
+                                node.nodePlayers.remove(first);
+                                node.nodePlayers.add(toPair);
+                                addPlayer(i, first);
+                                
+                                return true;
+                            }
+                        } else if (node.getNodeSize() == minNodeSize) {
+                            P p1 = node.nodePlayers.get(0);
+                            
+                            if(!toPair.getHasPlayedParticipant(p1)) {
+                                node.nodePlayers.add(toPair);
+                                
+                                return true;
+                            }
+                        }
+                    } catch (TournamentStateException ex) {
+                        System.err.println(ex);
+                    }
+                }
+                
+                return false;
             }
             
             /**
-             * TODO: Comment.
+             * Creates a match for every node in the table.
              * 
-             * @return 
+             * @return  an ArrayList of matches.
              */
-            private M getMatch() {
-                M match = createRoundMatch(nodePlayers, multiplayerOption);
+            private ArrayList<M> getMatches() {
+                ArrayList<M> matches = new ArrayList<>();
                 
-                return match;
+                for(PairingNode node : nodes) {
+                    matches.add(node.getMatch());
+                }
+                
+                return matches;
             }
+        }
+
+    /**************************************************************************
+     *                                                                        *
+     *  PairingNode helper class.                                             *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * The players of a single pairing.
+     */
+    private class PairingNode {
+            private final ArrayList<P> nodePlayers = new ArrayList<>();
+            
+            private final int maxNodeSize;
             
             /**
              * TODO: Comment.
              * 
-             * @return 
+             * @param maxNodeSize 
              */
-            private int getNodeSize() {
-                return nodePlayers.size();
+            private PairingNode(int maxNodeSize) {
+                this.maxNodeSize = maxNodeSize;
             }
             
+            
             /**
-             * TODO: Comment.
+             * Adds a player to the node if there is room and, in a Swiss 
+             * round, the player has not played anyone already in the node.
              * 
+             * @param   p
+             *          the player to add.
+             * 
+             * @return  true if the player was added.
              */
-            private void cleanupNodes() {
-                if (next != null) {
-                    next.cleanupNodes();
-                }
-                
-                if(maxNodeSize > 2) {
-                    while (previous != null
-                            && getNodeSize() < minNodeSize
-                            && previous.getNodeSize() > minNodeSize) {
-                        nodePlayers.add(previous.surrenderLast());
-                    }
-                } else if(getNodeSize() == 1) {
-                    P toCheck = nodePlayers.get(0);
-                    
-                    try {
-                        while(toCheck.getHasHadBye()
-                                || (previous != null && previous.getNodeSize() == 1)) {
-                            this.nodePlayers.remove(toCheck);
-
-                            if(!previous.findNewOpponent(toCheck)) {
-                                this.nodePlayers.add(toCheck);
-                                break;
+            private boolean acceptPlayer(P p) {
+                if (this.getNodeSize() < maxNodeSize 
+                        && pairingSystem == SegmentPairingSystem.SWISS) {
+                    for (P opponent : nodePlayers) {
+                        try {
+                            if (p.getHasPlayedParticipant(opponent)) {
+                                return false;
                             }
-
-                            if(nodePlayers.size() > 0)
-                                toCheck = nodePlayers.get(0);
-                            else
-                                break;
+                        } catch (TournamentStateException ex) {
+                            System.err.println(ex);
                         }
-                    } catch (TournamentStateException ex) {
-                        System.err.println(ex);
                     }
+                    
+                    nodePlayers.add(p);
+                } else if (getNodeSize() < maxNodeSize) {
+                    nodePlayers.add(p);
+                } else {
+                    return false;
                 }
                 
-                if(next != null && next.getNodeSize() == 0) {
-                    next = null;
-                }
+                return true;
             }
             
             /**
@@ -478,83 +744,38 @@ public class TournamentRound <M extends TournamentMatch<P>,
              * 
              * @return 
              */
-            private P surrenderLast() {
-                return surrenderPlayer(nodePlayers.size() - 1);
+            private M getMatch() {
+                M match = createRoundMatch(nodePlayers, multiplayerOption);
+                
+                return match;
             }
             
             /**
              * TODO: Comment.
              * 
-             * @param index
              * @return 
              */
-            private P surrenderPlayer(int index) {
-                return nodePlayers.remove(index);
+            private int getNodeSize() {
+                return nodePlayers.size();
             }
             
             /**
              * TODO: Comment.
              * 
-             * @param toPair
              * @return 
              */
-            private boolean findNewOpponent(P toPair) {
-                try {
-                    if(this.getNodeSize() > minNodeSize) {
-                        P p1 = this.nodePlayers.get(0);
-                        P p2 = this.nodePlayers.get(1);
-                        int start = (int)(Math.random() * 2);
-
-                        if(start == 0) {
-                            if(!toPair.getHasPlayedParticipant(p1)) {
-                                this.nodePlayers.remove(p2);
-                                this.nodePlayers.add(toPair);
-                                this.addPlayer(p2);
-
-                                return true;
-                            }
-
-                            if(!toPair.getHasPlayedParticipant(p2)) {
-                                this.nodePlayers.remove(p1);
-                                this.nodePlayers.add(toPair);
-                                this.addPlayer(p1);
-
-                                return true;
-                            }
-                        } else {
-                            if(!toPair.getHasPlayedParticipant(p2)) {
-                                this.nodePlayers.remove(p1);
-                                this.nodePlayers.add(toPair);
-                                this.addPlayer(p1);
-
-                                return true;
-                            }
-
-                            if(!toPair.getHasPlayedParticipant(p1)) {
-                                this.nodePlayers.remove(p2);
-                                this.nodePlayers.add(toPair);
-                                this.addPlayer(p2);
-
-                                return true;
-                            }
-                        }
-                    } else if (this.getNodeSize() == minNodeSize) {
-                        P p1 = this.nodePlayers.get(0);
-
-                        if(!toPair.getHasPlayedParticipant(p1)) {
-                            this.nodePlayers.add(toPair);
-
-                            return true;
-                        }
-                    }
-                } catch (TournamentStateException ex) {
-                    System.err.println(ex);
-                }
-                
-                if(previous != null)
-                    return previous.findNewOpponent(toPair);
-                
-                return false;
+            private P surrenderLast() {
+                return surrenderPlayer(nodePlayers.size() - 1);
+            }
+            
+            /**
+             * TODO: Comment.
+             * 
+             * @param index
+             * @return 
+             */
+            private P surrenderPlayer(int index) {
+                return nodePlayers.remove(index);
             }
             
             
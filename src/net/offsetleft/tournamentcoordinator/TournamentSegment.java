@@ -3,6 +3,10 @@ package net.offsetleft.tournamentcoordinator;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
 import net.offsetleft.tournamentcoordinator.exceptions.SegementStateException;
 import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
 
@@ -30,6 +34,9 @@ public class TournamentSegment<
     private final SegmentEliminationStyle eliminationStyle;
     private final SegmentPairingSystem pairingSystem;
     private final SegmentMultiplayerOption multiplayerOption;
+    private SegmentPairingAlgorithm pairingAlgorithm = 
+            SegmentPairingAlgorithm.GREEDY;
+    private Random pairingRandom = new Random();
     
     //Segment Rounds
     private final ArrayList<R> segmentRounds = new ArrayList<>();
@@ -40,6 +47,9 @@ public class TournamentSegment<
     
     protected final boolean seeded;
     
+    //Playoff Bracket
+    private final PlayoffBracket<P> playoffBracket;
+    
     /**
      * TODO: Comment.
      * 
@@ -63,6 +73,13 @@ public class TournamentSegment<
         this.activeParticipants.addAll(segmentParticipants);
         
         this.seeded = seeded;
+        
+        // A seeded single elimination heads-up segment is paired from a 
+        // bracket of its participants, in the order they were seeded.
+        this.playoffBracket = (seeded 
+                && eliminationStyle == SegmentEliminationStyle.SINGLE
+                && multiplayerOption == SegmentMultiplayerOption.HEADSUP)
+                ? new PlayoffBracket<>(segmentParticipants) : null;
     }
     
     
@@ -70,6 +87,7 @@ public class TournamentSegment<
      *                                                                        *
      *  Methods related to segment properties.                                *
      *   - Getters                                                            *
+     *   - Setters                                                            *
      *                                                                        *
      **************************************************************************/
     
@@ -100,6 +118,38 @@ public class TournamentSegment<
         return this.multiplayerOption;
     }
     
+    /**
+     * Gets the algorithm used to pair Swiss rounds in the segment.
+     * 
+     * @return  the SegmentPairingAlgorithm of the segment.
+     */
+    public final SegmentPairingAlgorithm getPairingAlgorithm() {
+        return this.pairingAlgorithm;
+    }
+    
+    /**
+     * Sets the algorithm used to pair Swiss rounds in the segment. Rounds 
+     * already created keep the algorithm they were paired with.
+     * 
+     * @param   pairingAlgorithm
+     *          the SegmentPairingAlgorithm to be used.
+     */
+    public final void setPairingAlgorithm(
+            SegmentPairingAlgorithm pairingAlgorithm) {
+        this.pairingAlgorithm = pairingAlgorithm;
+    }
+    
+    /**
+     * Sets the random number generator used for the random choices made 
+     * while pairing the segment.
+     * 
+     * @param   pairingRandom
+     *          the Random to be used.
+     */
+    public final void setPairingRandom(Random pairingRandom) {
+        this.pairingRandom = pairingRandom;
+    }
+    
     
     /**************************************************************************
      *                                                                        *
@@ -155,8 +205,32 @@ public class TournamentSegment<
      */
     protected void createNewSegmentRound(int roundNumber) 
             throws TournamentStateException {
+        createNewSegmentRound(roundNumber, new P.StandingsComparator());
+    }
+    
+    /**
+     * Creates a new tournament round in the segment, ordering unseeded 
+     * participants with the provided standings comparator.
+     * 
+     * @param   roundNumber
+     *          the round number of the round to create
+     * 
+     * @param   standingsComparator
+     *          the comparator used to rank participants for pairing.
+     * 
+     * @throws  TournamentStateException
+     *          If the round already has matches.
+     */
+    protected void createNewSegmentRound(int roundNumber, 
+            Comparator<? super P> standingsComparator) 
+            throws TournamentStateException {
+        if(playoffBracket != null) {
+            createBracketRound(roundNumber);
+            return;
+        }
+        
         if(!seeded)
-            sortForPairing();
+            sortForPairing(standingsComparator);
         
         dropEliminatedPlayers();
         
@@ -166,28 +240,111 @@ public class TournamentSegment<
                         activeParticipants, 
                         eliminationStyle, 
                         pairingSystem, 
-                        multiplayerOption);
+                        multiplayerOption,
+                        pairingAlgorithm,
+                        pairingRandom);
         
         tRound.createRoundMatches();
         
         segmentRounds.add((R)tRound);
     }
     
+    /**
+     * Creates the next round of a bracketed segment from its playoff bracket.
+     * The winners of the current round are decided first, from its results 
+     * as they are now, and the participants who did not advance stop being 
+     * active. An inactive participant who did advance forfeits, giving the 
+     * opponent a bye.
+     * 
+     * @param   roundNumber
+     *          the round number of the round to create
+     * 
+     * @throws  TournamentStateException
+     *          If any of the following is true:
+     *          <ul>
+     *              <li>the bracket has been played out.</li>
+     *              <li>a match of the previous round has no winner.</li>
+     *          </ul>
+     */
+    private void createBracketRound(int roundNumber) 
+            throws TournamentStateException {
+        int roundCount = segmentRounds.size();
+        
+        if(roundCount >= playoffBracket.getRoundCount()) {
+            throw new SegementStateException("Playoff bracket has been played out.");
+        }
+        
+        // Results can change after a round is decided, such as when a round 
+        // is removed and its predecessor corrected, so the current round is 
+        // always decided again.
+        playoffBracket.truncateRounds(roundCount);
+        
+        if(roundCount > 0) {
+            playoffBracket.decideRound();
+        }
+        
+        ArrayList<ArrayList<P>> pairings = 
+                playoffBracket.getRoundPairings(roundCount + 1);
+        HashSet<P> active = new HashSet<>(activeParticipants);
+        ArrayList<P> roundParticipants = new ArrayList<>();
+        
+        for(Iterator<ArrayList<P>> it = pairings.iterator(); it.hasNext(); ) {
+            ArrayList<P> pairing = it.next();
+            
+            pairing.retainAll(active);
+            
+            if(pairing.isEmpty()) {
+                it.remove();
+            } else {
+                roundParticipants.addAll(pairing);
+            }
+        }
+        
+        TournamentRound<M, P> tRound = 
+                new TournamentRound<>(
+                        roundNumber,
+                        roundParticipants, 
+                        eliminationStyle, 
+                        pairingSystem, 
+                        multiplayerOption,
+                        pairingAlgorithm,
+                        pairingRandom);
+        
+        tRound.createRoundMatches(pairings);
+        playoffBracket.setRoundMatches(roundCount + 1, tRound.getRoundMatches());
+        
+        activeParticipants.clear();
+        activeParticipants.addAll(roundParticipants);
+        
+        segmentRounds.add((R)tRound);
+    }
+    
     /**
      * Sorts the active participants for pairing.
      */
     protected final void sortForPairing() {
+        sortForPairing(new P.StandingsComparator());
+    }
+    
+    /**
+     * Sorts the active participants for pairing using the provided standings 
+     * comparator.
+     * 
+     * @param   standingsComparator
+     *          the comparator used to rank participants.
+     */
+    protected final void sortForPairing(Comparator<? super P> standingsComparator) {
         if(eliminationStyle == SegmentEliminationStyle.NONE) {
             if(segmentRounds.size() <= 0) {
-                Collections.shuffle(activeParticipants);
+                Collections.shuffle(activeParticipants, pairingRandom);
             } else {
-                activeParticipants.sort(new P.StandingsComparator());
+                activeParticipants.sort(standingsComparator);
             }
         } else {
             if(segmentRounds.size() <= 0) {
-                Collections.shuffle(activeParticipants);
+                Collections.shuffle(activeParticipants, pairingRandom);
                 
-                activeParticipants.sort(new P.StandingsComparator());
+                activeParticipants.sort(standingsComparator);
             }
         }
     }
@@ -235,6 +392,50 @@ public class TournamentSegment<
         
         int size = segmentRounds.size();
         segmentRounds.remove(size - 1);
+        
+        if(playoffBracket != null) {
+            playoffBracket.truncateRounds(segmentRounds.size());
+            
+            // The participants of the round that is current again are the 
+            // ones still in the bracket, including any whose loss in that 
+            // round is then corrected.
+            activeParticipants.clear();
+            activeParticipants.addAll(segmentRounds.isEmpty()
+                    ? segmentParticipants
+                    : getCurrentSegmentRound().getRoundParticipants());
+        }
+    }
+    
+    /**
+     * Rebuilds the playoff bracket of the segment from its rounds, after 
+     * rounds were restored from a snapshot or a journal without being paired.
+     * 
+     * @throws  TournamentStateException
+     *          If a round does not follow the bracket.
+     */
+    final void restorePlayoffBracket() throws TournamentStateException {
+        if(playoffBracket == null) {
+            return;
+        }
+        
+        playoffBracket.truncateRounds(0);
+        
+        for(int i = 0; i < segmentRounds.size(); i++) {
+            playoffBracket.restoreRound(i + 1, segmentRounds.get(i).getRoundMatches());
+        }
+    }
+    
+    
+    /**
+     * Gets the playoff bracket of the segment. A seeded single elimination 
+     * heads-up segment is paired from a bracket of its participants, in the 
+     * order they were seeded.
+     * 
+     * @return  the PlayoffBracket of the segment, or null if the segment is 
+     *          not paired from a bracket.
+     */
+    public final PlayoffBracket<P> getPlayoffBracket() {
+        return playoffBracket;
     }
     
     
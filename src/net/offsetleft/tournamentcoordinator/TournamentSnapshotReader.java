@@ -0,0 +1,444 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import net.offsetleft.tournamentcoordinator.exceptions.EventStateException;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Reads a snapshot written by a TournamentSnapshotWriter into an empty
+ * TournamentEvent.
+ * 
+ * <p>The participants of the snapshot are created by a ParticipantFactory,
+ * so that an event of any participant class can be loaded. The segments,
+ * rounds and matches are created the way the event itself creates them.
+ * Loading a snapshot does not pair anything again; every round keeps the
+ * pairings and results it was saved with.
+ * 
+ * <p>Event listeners are not told about the state a snapshot restores.
+ * 
+ * @author      agent
+ */
+public final class TournamentSnapshotReader implements Closeable {
+    
+    private final InputStream input;
+    
+    private final byte[] buffer = new byte[8192];
+    private int position, limit;
+    
+    /**
+     * Constructs a reader that reads snapshots from an input stream.
+     * 
+     * @param   input
+     *          the stream to read from.
+     */
+    public TournamentSnapshotReader(InputStream input) {
+        this.input = input;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to reading snapshots.                                 *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Reads a snapshot into an event. The event must not have begun and must
+     * have no participants; its settings are replaced by those of the
+     * snapshot.
+     * 
+     * @param   <S>
+     *          a class that extends TournamentSegment.
+     * 
+     * @param   <R>
+     *          a class that extends TournamentRound.
+     * 
+     * @param   <M>
+     *          a class that extends TournamentMatch.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   event
+     *          the event to load the snapshot into.
+     * 
+     * @param   participantFactory
+     *          creates the participants of the snapshot.
+     * 
+     * @throws  IOException
+     *          If the snapshot cannot be read or is not a valid snapshot.
+     * 
+     * @throws  TournamentStateException
+     *          If the event has begun or has participants.
+     */
+    public <S extends TournamentSegment<R, M, P>,
+            R extends TournamentRound<M, P>, M extends TournamentMatch<P>,
+            P extends TournamentParticipant<P>> void read(
+            TournamentEvent<S, R, M, P> event,
+            ParticipantFactory<P> participantFactory)
+            throws IOException, TournamentStateException {
+        if(event.getEventHasStarted()
+                || !event.getStandingsParticipants().isEmpty()) {
+            throw new EventStateException(
+                    "Event is not empty. Cannot load snapshot.");
+        }
+        
+        int magic = readByte() << 24 | readByte() << 16 
+                | readByte() << 8 | readByte();
+        
+        if(magic != TournamentSnapshotWriter.MAGIC) {
+            throw new IOException("Not a tournament snapshot.");
+        }
+        
+        int version = readByte() << 8 | readByte();
+        
+        if(version != TournamentSnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ".");
+        }
+        
+        event.setEliminationStyle(readEnum(SegmentEliminationStyle.values()));
+        event.setPairingSystem(readEnum(SegmentPairingSystem.values()));
+        event.setMultiplayerOption(readEnum(SegmentMultiplayerOption.values()));
+        event.setPairingAlgorithm(readEnum(SegmentPairingAlgorithm.values()));
+        
+        int participantCount = readVarInt();
+        int enrolledCount = readVarInt();
+        
+        if(enrolledCount > participantCount) {
+            throw new IOException("Corrupt snapshot.");
+        }
+        
+        ArrayList<P> participants = new ArrayList<>(participantCount);
+        
+        for(int i = 0; i < participantCount; i++) {
+            String participantUUID = readString();
+            String firstName = readString();
+            String lastName = readString();
+            
+            participants.add(participantFactory.createParticipant(
+                    firstName, lastName, participantUUID, event));
+        }
+        
+        ArrayList<P> alphabeticalParticipants = new ArrayList<>(enrolledCount);
+        
+        for(int i = 0; i < enrolledCount; i++) {
+            alphabeticalParticipants.add(readParticipant(participants));
+        }
+        
+        int segmentCount = readVarInt();
+        ArrayList<S> segments = new ArrayList<>(segmentCount);
+        
+        for(int i = 0; i < segmentCount; i++) {
+            segments.add(readSegment(participants));
+        }
+        
+        event.restoreSnapshot(
+                new ArrayList<>(participants.subList(0, enrolledCount)),
+                alphabeticalParticipants,
+                segments);
+    }
+    
+    /**
+     * Closes the underlying stream.
+     * 
+     * @throws  IOException
+     *          If the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+    
+    /**
+     * Reads a segment and its rounds.
+     * 
+     * @param   participants
+     *          the participant table of the snapshot.
+     * 
+     * @return  the segment.
+     * 
+     * @throws  IOException
+     *          If the segment cannot be read.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of a match do not fit the match.
+     */
+    private <S extends TournamentSegment<R, M, P>,
+            R extends TournamentRound<M, P>, M extends TournamentMatch<P>,
+            P extends TournamentParticipant<P>> S readSegment(
+            ArrayList<P> participants)
+            throws IOException, TournamentStateException {
+        SegmentEliminationStyle eliminationStyle =
+                readEnum(SegmentEliminationStyle.values());
+        SegmentPairingSystem pairingSystem =
+                readEnum(SegmentPairingSystem.values());
+        SegmentMultiplayerOption multiplayerOption =
+                readEnum(SegmentMultiplayerOption.values());
+        SegmentPairingAlgorithm pairingAlgorithm =
+                readEnum(SegmentPairingAlgorithm.values());
+        boolean seeded = readByte() != 0;
+        
+        // Events create their segments and rounds as the library classes and
+        // cast them the same way, in createNewSegment() and 
+        // createNewSegmentRound(), so S and R are those classes here too.
+        @SuppressWarnings("unchecked")
+        S segment = (S)(new TournamentSegment<R, M, P>(
+                eliminationStyle,
+                pairingSystem,
+                multiplayerOption,
+                readParticipants(participants),
+                seeded));
+        segment.setPairingAlgorithm(pairingAlgorithm);
+        
+        segment.getActiveParticipants().clear();
+        segment.getActiveParticipants().addAll(readParticipants(participants));
+        
+        int roundCount = readVarInt();
+        
+        for(int i = 0; i < roundCount; i++) {
+            @SuppressWarnings("unchecked")
+            R round = (R)readRound(participants);
+            
+            segment.getSegmentRounds().add(round);
+        }
+        
+        return segment;
+    }
+    
+    /**
+     * Reads a round and its matches.
+     * 
+     * @param   participants
+     *          the participant table of the snapshot.
+     * 
+     * @return  the round.
+     * 
+     * @throws  IOException
+     *          If the round cannot be read.
+     * 
+     * @throws  TournamentStateException
+     *          If the results of a match do not fit the match.
+     */
+    private <M extends TournamentMatch<P>, P extends TournamentParticipant<P>>
+            TournamentRound<M, P> readRound(ArrayList<P> participants)
+            throws IOException, TournamentStateException {
+        int roundNumber = readVarInt();
+        SegmentEliminationStyle eliminationStyle =
+                readEnum(SegmentEliminationStyle.values());
+        SegmentPairingSystem pairingSystem =
+                readEnum(SegmentPairingSystem.values());
+        SegmentMultiplayerOption multiplayerOption =
+                readEnum(SegmentMultiplayerOption.values());
+        SegmentPairingAlgorithm pairingAlgorithm =
+                readEnum(SegmentPairingAlgorithm.values());
+        
+        TournamentRound<M, P> round = new TournamentRound<>(
+                roundNumber,
+                readParticipants(participants),
+                eliminationStyle,
+                pairingSystem,
+                multiplayerOption,
+                pairingAlgorithm);
+        
+        int matchCount = readVarInt();
+        
+        for(int i = 0; i < matchCount; i++) {
+            ArrayList<P> matchParticipants = readParticipants(participants);
+            int resultCount = readVarInt();
+            int[] results = new int[resultCount];
+            
+            for(int j = 0; j < resultCount; j++) {
+                int result = readVarInt();
+                
+                results[j] = (result >>> 1) ^ -(result & 1);
+            }
+            
+            round.restoreRoundMatch(matchParticipants, results);
+        }
+        
+        return round;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Reads a list of participants written as positions in the participant
+     * table.
+     * 
+     * @param   participants
+     *          the participant table of the snapshot.
+     * 
+     * @return  the participants.
+     * 
+     * @throws  IOException
+     *          If the list cannot be read.
+     */
+    private <P> ArrayList<P> readParticipants(ArrayList<P> participants)
+            throws IOException {
+        int count = readVarInt();
+        ArrayList<P> list = new ArrayList<>(count);
+        
+        for(int i = 0; i < count; i++) {
+            list.add(readParticipant(participants));
+        }
+        
+        return list;
+    }
+    
+    /**
+     * Reads a position in the participant table.
+     * 
+     * @param   participants
+     *          the participant table of the snapshot.
+     * 
+     * @return  the participant at the position.
+     * 
+     * @throws  IOException
+     *          If the position cannot be read or is outside the table.
+     */
+    private <P> P readParticipant(ArrayList<P> participants) throws IOException {
+        int position = readVarInt();
+        
+        if(position >= participants.size()) {
+            throw new IOException("Corrupt snapshot.");
+        }
+        
+        return participants.get(position);
+    }
+    
+    /**
+     * Reads an enum value written as its ordinal.
+     * 
+     * @param   values
+     *          the values of the enum.
+     * 
+     * @return  the value.
+     * 
+     * @throws  IOException
+     *          If the value cannot be read or is not a valid ordinal.
+     */
+    private <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int ordinal = readByte();
+        
+        if(ordinal >= values.length) {
+            throw new IOException("Corrupt snapshot.");
+        }
+        
+        return values[ordinal];
+    }
+    
+    /**
+     * Reads an unsigned variable length integer written by
+     * TournamentSnapshotWriter.
+     * 
+     * @return  the value.
+     * 
+     * @throws  IOException
+     *          If the value cannot be read or is longer than five bytes.
+     */
+    private int readVarInt() throws IOException {
+        int value = 0;
+        
+        for(int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            
+            value |= (b & 0x7F) << shift;
+            
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        
+        throw new IOException("Corrupt snapshot.");
+    }
+    
+    /**
+     * Reads a string written as its UTF-8 length followed by its UTF-8 bytes.
+     * 
+     * @return  the string.
+     * 
+     * @throws  IOException
+     *          If the string cannot be read.
+     */
+    private String readString() throws IOException {
+        byte[] bytes = new byte[readVarInt()];
+        
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte)readByte();
+        }
+        
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Reads the next byte from the buffer, refilling the buffer from the 
+     * stream when it is empty. The reader buffers on its own rather than 
+     * through a BufferedInputStream, whose synchronized reads would cost 
+     * more than the rest of the snapshot.
+     * 
+     * @return  the byte, from 0 to 255.
+     * 
+     * @throws  IOException
+     *          If the stream cannot be read or has ended.
+     */
+    private int readByte() throws IOException {
+        if(position == limit) {
+            limit = input.read(buffer);
+            position = 0;
+            
+            if(limit <= 0) {
+                limit = 0;
+                throw new EOFException("Snapshot ends early.");
+            }
+        }
+        
+        return buffer[position++] & 0xFF;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  ParticipantFactory interface.                                         *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Creates the participants of a snapshot as they are read.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     */
+    public interface ParticipantFactory <P extends TournamentParticipant<P>> {
+        
+        /**
+         * Creates a participant of the event being loaded. The participant
+         * is enrolled by the reader and must not be added to the event.
+         * 
+         * @param   firstName
+         *          the first name of the participant.
+         * 
+         * @param   lastName
+         *          the last name of the participant.
+         * 
+         * @param   participantUUID
+         *          the UUID of the participant.
+         * 
+         * @param   event
+         *          the event being loaded.
+         * 
+         * @return  the participant.
+         */
+        P createParticipant(String firstName, String lastName,
+                String participantUUID, TournamentEvent<?, ?, ?, P> event);
+    }
+}
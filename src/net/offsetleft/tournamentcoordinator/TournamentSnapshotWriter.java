@@ -0,0 +1,400 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Writes a TournamentEvent as a compact binary snapshot that a
+ * TournamentSnapshotReader can load back into an empty event.
+ * 
+ * <p>A snapshot holds only the state of the event, not its object graph.
+ * Each participant is written once to a participant table and referenced
+ * everywhere else by its position in the table. Counts, indices and match
+ * results are written as variable length integers, so a small value takes a
+ * single byte. A snapshot is therefore a fraction of the size of the same
+ * event written with default Java serialization, and far quicker to write
+ * and read.
+ * 
+ * <p>Version 1 of the format is laid out as follows, where varint is an
+ * unsigned variable length integer, int and short are big-endian, enums are
+ * written as their ordinal in a single byte and strings as a varint length
+ * followed by that many bytes of UTF-8:
+ * <pre>
+ * snapshot     int MAGIC, short VERSION,
+ *              enum elimination style, enum pairing system,
+ *              enum multi-player option, enum pairing algorithm,
+ *              varint participant count, varint enrolled count,
+ *              participant[participant count],
+ *              varint[enrolled count] alphabetical order,
+ *              varint segment count, segment[segment count]
+ * participant  string UUID, string first name, string last name
+ * segment      enum elimination style, enum pairing system,
+ *              enum multi-player option, enum pairing algorithm,
+ *              boolean seeded, participants segment participants,
+ *              participants active participants,
+ *              varint round count, round[round count]
+ * round        varint round number, enum elimination style,
+ *              enum pairing system, enum multi-player option,
+ *              enum pairing algorithm, participants round participants,
+ *              varint match count, match[match count]
+ * match        participants match participants,
+ *              varint result count, zig-zag varint[result count] results
+ * participants varint count, varint[count] participant table positions
+ * </pre>
+ * 
+ * <p>The enrolled participants come first in the participant table, in
+ * standings order. Participants that were removed from the event but still
+ * appear in its segments, rounds or matches follow them.
+ * 
+ * <p>The state of the pairing generator is not written, so a loaded event
+ * makes different random pairing choices than the event that was saved
+ * unless it is seeded again.
+ * 
+ * @author      agent
+ */
+public final class TournamentSnapshotWriter implements Closeable {
+    
+    static final int MAGIC = 0x54435331;
+    static final short VERSION = 1;
+    
+    private final OutputStream output;
+    
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    
+    private final IdentityHashMap<TournamentParticipant<?>, Integer>
+            participantPositions = new IdentityHashMap<>();
+    
+    /**
+     * Constructs a writer that writes snapshots to an output stream.
+     * 
+     * @param   output
+     *          the stream to write to.
+     */
+    public TournamentSnapshotWriter(OutputStream output) {
+        this.output = output;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to writing snapshots.                                 *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Writes a snapshot of an event and flushes it to the stream.
+     * 
+     * <p>The read lock of the event is held while the snapshot is written, 
+     * so the event may be written from any thread. Results may still be 
+     * reported while it is held, but the structure of the event cannot 
+     * change until the snapshot is done, so a slow stream holds up pairing.
+     * 
+     * @param   event
+     *          the event to write.
+     * 
+     * @throws  IOException
+     *          If the snapshot cannot be written.
+     */
+    public void write(TournamentEvent<?, ?, ?, ?> event) throws IOException {
+        event.getEventLock().readLock().lock();
+        
+        try {
+            ArrayList<? extends TournamentParticipant<?>> participants =
+                    createParticipantTable(event, participantPositions);
+            
+            writeByte(MAGIC >>> 24);
+            writeByte(MAGIC >>> 16);
+            writeByte(MAGIC >>> 8);
+            writeByte(MAGIC);
+            writeByte(VERSION >>> 8);
+            writeByte(VERSION);
+            
+            writeEnum(event.getEliminationStyle());
+            writeEnum(event.getPairingSystem());
+            writeEnum(event.getMultiplayerOption());
+            writeEnum(event.getPairingAlgorithm());
+            
+            writeVarInt(participants.size());
+            writeVarInt(event.getStandingsParticipants().size());
+            
+            for(TournamentParticipant<?> participant : participants) {
+                writeString(participant.getUUID());
+                writeString(participant.getFirstName());
+                writeString(participant.getLastName());
+            }
+            
+            for(TournamentParticipant<?> participant : event.getAllParticipants()) {
+                writeVarInt(participantPositions.get(participant));
+            }
+            
+            writeVarInt(event.tournamentSegments.size());
+            
+            for(TournamentSegment<?, ?, ?> segment : event.tournamentSegments) {
+                writeSegment(segment);
+            }
+            
+            flushBuffer();
+            output.flush();
+        } finally {
+            participantPositions.clear();
+            event.getEventLock().readLock().unlock();
+        }
+    }
+    
+    /**
+     * Closes the underlying stream.
+     * 
+     * @throws  IOException
+     *          If the stream cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+    
+    /**
+     * Builds the participant table of an event: the enrolled participants in
+     * standings order, followed by every other participant the segments of
+     * the event refer to. A TournamentEventJournal numbers the participants 
+     * of the event it starts from the same way.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   event
+     *          the event to build the table of.
+     * 
+     * @param   positions
+     *          the map to store the position of each participant in.
+     * 
+     * @return  the participant table.
+     */
+    static <P extends TournamentParticipant<P>> ArrayList<P> createParticipantTable(
+            TournamentEvent<?, ?, ?, P> event,
+            IdentityHashMap<? super P, Integer> positions) {
+        ArrayList<P> participants = new ArrayList<>();
+        
+        positions.clear();
+        addParticipants(event.getStandingsParticipants(), participants, positions);
+        
+        for(TournamentSegment<?, ?, P> segment : event.tournamentSegments) {
+            addParticipants(segment.getSegmentParticipants(), participants, 
+                    positions);
+            addParticipants(segment.getActiveParticipants(), participants, 
+                    positions);
+            
+            for(TournamentRound<?, P> round : segment.getSegmentRounds()) {
+                addParticipants(round.getRoundParticipants(), participants, 
+                        positions);
+                
+                for(TournamentMatch<P> match : round.getRoundMatches()) {
+                    addParticipants(match.getMatchParticipants(), participants, 
+                            positions);
+                }
+            }
+        }
+        
+        return participants;
+    }
+    
+    /**
+     * Subroutine reducing code redundancy in createParticipantTable(). Adds
+     * the participants that are not in the table yet to the end of the table.
+     * 
+     * @param   <P>
+     *          a class that extends TournamentParticipant.
+     * 
+     * @param   toAdd
+     *          the participants to add.
+     * 
+     * @param   participants
+     *          the participant table.
+     * 
+     * @param   positions
+     *          the positions of the participants in the table.
+     */
+    private static <P extends TournamentParticipant<P>> void addParticipants(
+            List<P> toAdd,
+            ArrayList<P> participants,
+            IdentityHashMap<? super P, Integer> positions) {
+        for(P participant : toAdd) {
+            if(!positions.containsKey(participant)) {
+                positions.put(participant, participants.size());
+                participants.add(participant);
+            }
+        }
+    }
+    
+    /**
+     * Writes a segment and its rounds.
+     * 
+     * @param   segment
+     *          the segment to write.
+     * 
+     * @throws  IOException
+     *          If the segment cannot be written.
+     */
+    private void writeSegment(TournamentSegment<?, ?, ?> segment)
+            throws IOException {
+        writeEnum(segment.getEliminationStyle());
+        writeEnum(segment.getPairingSystem());
+        writeEnum(segment.getMultiplayerOption());
+        writeEnum(segment.getPairingAlgorithm());
+        writeByte(segment.seeded ? 1 : 0);
+        
+        writeParticipants(segment.getSegmentParticipants());
+        writeParticipants(segment.getActiveParticipants());
+        
+        writeVarInt(segment.getSegmentRounds().size());
+        
+        for(TournamentRound<?, ?> round : segment.getSegmentRounds()) {
+            writeRound(round);
+        }
+    }
+    
+    /**
+     * Writes a round and its matches.
+     * 
+     * @param   round
+     *          the round to write.
+     * 
+     * @throws  IOException
+     *          If the round cannot be written.
+     */
+    private void writeRound(TournamentRound<?, ?> round) throws IOException {
+        writeVarInt(round.getRoundNumber());
+        writeEnum(round.getEliminationStyle());
+        writeEnum(round.getPairingSystem());
+        writeEnum(round.getMultiplayerOption());
+        writeEnum(round.getPairingAlgorithm());
+        
+        writeParticipants(round.getRoundParticipants());
+        
+        writeVarInt(round.getRoundMatches().size());
+        
+        for(TournamentMatch<?> match : round.getRoundMatches()) {
+            writeParticipants(match.getMatchParticipants());
+            
+            int[] results = match.getResultArray();
+            
+            writeVarInt(results.length);
+            
+            for(int result : results) {
+                writeVarInt((result << 1) ^ (result >> 31));
+            }
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Writes a list of participants as positions in the participant table.
+     * 
+     * @param   participants
+     *          the participants to write.
+     * 
+     * @throws  IOException
+     *          If the list cannot be written.
+     */
+    private void writeParticipants(List<? extends TournamentParticipant<?>> participants)
+            throws IOException {
+        writeVarInt(participants.size());
+        
+        for(TournamentParticipant<?> participant : participants) {
+            writeVarInt(participantPositions.get(participant));
+        }
+    }
+    
+    /**
+     * Writes an enum value as its ordinal.
+     * 
+     * @param   value
+     *          the value to write.
+     * 
+     * @throws  IOException
+     *          If the value cannot be written.
+     */
+    private void writeEnum(Enum<?> value) throws IOException {
+        writeByte(value.ordinal());
+    }
+    
+    /**
+     * Writes an unsigned variable length integer, seven bits per byte with
+     * the high bit set on every byte but the last.
+     * 
+     * @param   value
+     *          the value to write.
+     * 
+     * @throws  IOException
+     *          If the value cannot be written.
+     */
+    private void writeVarInt(int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        
+        writeByte(value);
+    }
+    
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     * 
+     * @param   value
+     *          the string to write.
+     * 
+     * @throws  IOException
+     *          If the string cannot be written.
+     */
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        
+        writeVarInt(bytes.length);
+        
+        for(byte b : bytes) {
+            writeByte(b);
+        }
+    }
+    
+    /**
+     * Writes the low eight bits of a value to the buffer, flushing the 
+     * buffer to the stream when it is full. The writer buffers on its own 
+     * rather than through a BufferedOutputStream, whose synchronized writes
+     * would cost more than the rest of the snapshot.
+     * 
+     * @param   value
+     *          the byte to write.
+     * 
+     * @throws  IOException
+     *          If the buffer cannot be flushed.
+     */
+    private void writeByte(int value) throws IOException {
+        if(position == buffer.length) {
+            flushBuffer();
+        }
+        
+        buffer[position++] = (byte)value;
+    }
+    
+    /**
+     * Writes the buffered bytes to the stream.
+     * 
+     * @throws  IOException
+     *          If the bytes cannot be written.
+     */
+    private void flushBuffer() throws IOException {
+        output.write(buffer, 0, position);
+        position = 0;
+    }
+}
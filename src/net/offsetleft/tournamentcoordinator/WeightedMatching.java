@@ -0,0 +1,941 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.Arrays;
+
+/**
+ * Computes a maximum weight matching of a general graph using Edmonds'
+ * blossom algorithm with dual variables.
+ * 
+ * <p>Of all the matchings with the greatest number of edges, the matching
+ * returned has the greatest total weight. Vertices are numbered from zero and
+ * edges are given as pairs of vertices in a flat array. Weights must be
+ * integers, which keeps every dual variable an integer as well.
+ * 
+ * <p>The implementation follows the primal-dual formulation described by
+ * Galil in "Efficient algorithms for finding maximum matching in graphs" and
+ * runs in O(n^3) time for a graph of n vertices.
+ * 
+ * @author      agent
+ */
+final class WeightedMatching {
+    
+    private final int vertexCount;
+    private final int edgeCount;
+    
+    //Graph
+    private final int[] endpoint;
+    private final long[] edgeWeights;
+    private final int[][] neighbourEnds;
+    
+    //Matching
+    private final int[] mate;
+    
+    //Labels
+    private final int[] label;
+    private final int[] labelEnd;
+    
+    //Blossoms
+    private final int[] inBlossom;
+    private final int[] blossomParent;
+    private final int[] blossomBase;
+    private final int[][] blossomChildren;
+    private final int[][] blossomEndpoints;
+    private final int[] unusedBlossoms;
+    private int unusedBlossomCount;
+    
+    //Least slack edges
+    private final int[] bestEdge;
+    private final int[][] blossomBestEdges;
+    
+    //Dual variables
+    private final long[] dualVariables;
+    private final boolean[] allowedEdges;
+    
+    private final IntList queue = new IntList();
+    
+    /**
+     * Computes a maximum cardinality, maximum weight matching.
+     * 
+     * @param   vertexCount
+     *          the number of vertices in the graph.
+     * 
+     * @param   edgeEnds
+     *          the vertices of each edge, edge k joining vertex
+     *          edgeEnds[2k] to vertex edgeEnds[2k + 1].
+     * 
+     * @param   edgeWeights
+     *          the weight of each edge.
+     * 
+     * @return  an array holding the vertex each vertex is matched with, or -1
+     *          for unmatched vertices.
+     */
+    static int[] maximumWeightMatching(int vertexCount,
+            int[] edgeEnds, long[] edgeWeights) {
+        WeightedMatching matching =
+                new WeightedMatching(vertexCount, edgeEnds, edgeWeights);
+        
+        return matching.solve();
+    }
+    
+    /**
+     * Sets up the matching state for a graph.
+     * 
+     * @param   vertexCount
+     *          the number of vertices in the graph.
+     * 
+     * @param   edgeEnds
+     *          the vertices of each edge.
+     * 
+     * @param   edgeWeights
+     *          the weight of each edge.
+     */
+    private WeightedMatching(int vertexCount,
+            int[] edgeEnds, long[] edgeWeights) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeWeights.length;
+        this.endpoint = edgeEnds;
+        this.edgeWeights = edgeWeights;
+        
+        int[] degree = new int[vertexCount];
+        
+        for(int p = 0; p < 2 * edgeCount; p++) {
+            degree[endpoint[p]]++;
+        }
+        
+        neighbourEnds = new int[vertexCount][];
+        
+        for(int v = 0; v < vertexCount; v++) {
+            neighbourEnds[v] = new int[degree[v]];
+            degree[v] = 0;
+        }
+        
+        long maxWeight = 0;
+        
+        for(int k = 0; k < edgeCount; k++) {
+            int i = endpoint[2 * k];
+            int j = endpoint[2 * k + 1];
+            
+            neighbourEnds[i][degree[i]++] = 2 * k + 1;
+            neighbourEnds[j][degree[j]++] = 2 * k;
+            
+            maxWeight = Math.max(maxWeight, edgeWeights[k]);
+        }
+        
+        mate = new int[vertexCount];
+        Arrays.fill(mate, -1);
+        
+        label = new int[2 * vertexCount];
+        labelEnd = new int[2 * vertexCount];
+        Arrays.fill(labelEnd, -1);
+        
+        inBlossom = new int[vertexCount];
+        blossomParent = new int[2 * vertexCount];
+        blossomBase = new int[2 * vertexCount];
+        blossomChildren = new int[2 * vertexCount][];
+        blossomEndpoints = new int[2 * vertexCount][];
+        unusedBlossoms = new int[vertexCount];
+        
+        Arrays.fill(blossomParent, -1);
+        Arrays.fill(blossomBase, -1);
+        
+        for(int v = 0; v < vertexCount; v++) {
+            inBlossom[v] = v;
+            blossomBase[v] = v;
+            unusedBlossoms[unusedBlossomCount++] = 2 * vertexCount - 1 - v;
+        }
+        
+        bestEdge = new int[2 * vertexCount];
+        blossomBestEdges = new int[2 * vertexCount][];
+        Arrays.fill(bestEdge, -1);
+        
+        dualVariables = new long[2 * vertexCount];
+        Arrays.fill(dualVariables, 0, vertexCount, maxWeight);
+        
+        allowedEdges = new boolean[edgeCount];
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to the main loop.                                     *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Runs one stage per possible augmentation until no augmenting path
+     * remains.
+     * 
+     * @return  the vertex each vertex is matched with, or -1.
+     */
+    private int[] solve() {
+        for(int stage = 0; stage < vertexCount; stage++) {
+            Arrays.fill(label, 0);
+            Arrays.fill(bestEdge, -1);
+            Arrays.fill(blossomBestEdges, vertexCount, 2 * vertexCount, null);
+            Arrays.fill(allowedEdges, false);
+            queue.clear();
+            
+            for(int v = 0; v < vertexCount; v++) {
+                if(mate[v] == -1 && label[inBlossom[v]] == 0) {
+                    assignLabel(v, 1, -1);
+                }
+            }
+            
+            if(!augmentStage()) {
+                break;
+            }
+            
+            // Expand S-blossoms whose dual variable dropped to zero.
+            for(int b = vertexCount; b < 2 * vertexCount; b++) {
+                if(blossomParent[b] == -1 && blossomBase[b] >= 0
+                        && label[b] == 1 && dualVariables[b] == 0) {
+                    expandBlossom(b, true);
+                }
+            }
+        }
+        
+        int[] result = new int[vertexCount];
+        
+        for(int v = 0; v < vertexCount; v++) {
+            result[v] = (mate[v] >= 0) ? endpoint[mate[v]] : -1;
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Grows alternating trees from the free vertices, adjusting the dual
+     * variables when no tight edge is left, until an augmenting path is found
+     * or the matching is known to be optimal.
+     * 
+     * @return  true if the matching was augmented.
+     */
+    private boolean augmentStage() {
+        while(true) {
+            while(queue.size() > 0) {
+                int v = queue.pop();
+                
+                for(int p : neighbourEnds[v]) {
+                    int k = p >> 1;
+                    int w = endpoint[p];
+                    
+                    if(inBlossom[v] == inBlossom[w]) {
+                        continue;
+                    }
+                    
+                    long kslack = 0;
+                    
+                    if(!allowedEdges[k]) {
+                        kslack = slack(k);
+                        
+                        if(kslack <= 0) {
+                            allowedEdges[k] = true;
+                        }
+                    }
+                    
+                    if(allowedEdges[k]) {
+                        if(label[inBlossom[w]] == 0) {
+                            assignLabel(w, 2, p ^ 1);
+                        } else if(label[inBlossom[w]] == 1) {
+                            int base = scanBlossom(v, w);
+                            
+                            if(base >= 0) {
+                                addBlossom(base, k);
+                            } else {
+                                augmentMatching(k);
+                                
+                                return true;
+                            }
+                        } else if(label[w] == 0) {
+                            label[w] = 2;
+                            labelEnd[w] = p ^ 1;
+                        }
+                    } else if(label[inBlossom[w]] == 1) {
+                        int b = inBlossom[v];
+                        
+                        if(bestEdge[b] == -1 || kslack < slack(bestEdge[b])) {
+                            bestEdge[b] = k;
+                        }
+                    } else if(label[w] == 0) {
+                        if(bestEdge[w] == -1 || kslack < slack(bestEdge[w])) {
+                            bestEdge[w] = k;
+                        }
+                    }
+                }
+            }
+            
+            if(!adjustDualVariables()) {
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Changes the dual variables by the largest amount that keeps every
+     * constraint satisfied and acts on the constraint that became tight.
+     * 
+     * @return  false if the matching is already optimal.
+     */
+    private boolean adjustDualVariables() {
+        int deltaType = -1;
+        long delta = 0;
+        int deltaEdge = -1;
+        int deltaBlossom = -1;
+        
+        // An edge between an S-vertex and a free vertex.
+        for(int v = 0; v < vertexCount; v++) {
+            if(label[inBlossom[v]] == 0 && bestEdge[v] != -1) {
+                long d = slack(bestEdge[v]);
+                
+                if(deltaType == -1 || d < delta) {
+                    delta = d;
+                    deltaType = 2;
+                    deltaEdge = bestEdge[v];
+                }
+            }
+        }
+        
+        // Half an edge between two S-blossoms.
+        for(int b = 0; b < 2 * vertexCount; b++) {
+            if(blossomParent[b] == -1 && label[b] == 1 && bestEdge[b] != -1) {
+                long d = slack(bestEdge[b]) / 2;
+                
+                if(deltaType == -1 || d < delta) {
+                    delta = d;
+                    deltaType = 3;
+                    deltaEdge = bestEdge[b];
+                }
+            }
+        }
+        
+        // A T-blossom whose dual variable reaches zero.
+        for(int b = vertexCount; b < 2 * vertexCount; b++) {
+            if(blossomBase[b] >= 0 && blossomParent[b] == -1 && label[b] == 2
+                    && (deltaType == -1 || dualVariables[b] < delta)) {
+                delta = dualVariables[b];
+                deltaType = 4;
+                deltaBlossom = b;
+            }
+        }
+        
+        // No further improvement is possible.
+        if(deltaType == -1) {
+            deltaType = 1;
+            delta = Long.MAX_VALUE;
+            
+            for(int v = 0; v < vertexCount; v++) {
+                delta = Math.min(delta, dualVariables[v]);
+            }
+            
+            delta = Math.max(0, delta);
+        }
+        
+        for(int v = 0; v < vertexCount; v++) {
+            if(label[inBlossom[v]] == 1) {
+                dualVariables[v] -= delta;
+            } else if(label[inBlossom[v]] == 2) {
+                dualVariables[v] += delta;
+            }
+        }
+        
+        for(int b = vertexCount; b < 2 * vertexCount; b++) {
+            if(blossomBase[b] >= 0 && blossomParent[b] == -1) {
+                if(label[b] == 1) {
+                    dualVariables[b] += delta;
+                } else if(label[b] == 2) {
+                    dualVariables[b] -= delta;
+                }
+            }
+        }
+        
+        switch(deltaType) {
+            case 1:
+                return false;
+            
+            case 2: {
+                allowedEdges[deltaEdge] = true;
+                
+                int i = endpoint[2 * deltaEdge];
+                
+                if(label[inBlossom[i]] == 0) {
+                    i = endpoint[2 * deltaEdge + 1];
+                }
+                
+                queue.add(i);
+                break;
+            }
+            
+            case 3:
+                allowedEdges[deltaEdge] = true;
+                queue.add(endpoint[2 * deltaEdge]);
+                break;
+            
+            default:
+                expandBlossom(deltaBlossom, false);
+        }
+        
+        return true;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to labels and blossoms.                               *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the slack of an edge, which is zero for tight edges.
+     * 
+     * @param   k
+     *          the edge.
+     * 
+     * @return  the slack as a long.
+     */
+    private long slack(int k) {
+        return dualVariables[endpoint[2 * k]]
+                + dualVariables[endpoint[2 * k + 1]] - 2 * edgeWeights[k];
+    }
+    
+    /**
+     * Collects the vertices contained in a blossom.
+     * 
+     * @param   b
+     *          the blossom or vertex.
+     * 
+     * @param   leaves
+     *          the list to add the vertices to.
+     */
+    private void collectLeaves(int b, IntList leaves) {
+        if(b < vertexCount) {
+            leaves.add(b);
+        } else {
+            for(int t : blossomChildren[b]) {
+                collectLeaves(t, leaves);
+            }
+        }
+    }
+    
+    /**
+     * Gets the vertices contained in a blossom.
+     * 
+     * @param   b
+     *          the blossom or vertex.
+     * 
+     * @return  the vertices of the blossom.
+     */
+    private int[] getLeaves(int b) {
+        IntList leaves = new IntList();
+        
+        collectLeaves(b, leaves);
+        
+        return leaves.toArray();
+    }
+    
+    /**
+     * Labels a vertex's top level blossom S (1) or T (2). The mate of a new
+     * T-blossom's base is labelled S in turn.
+     * 
+     * @param   w
+     *          the vertex.
+     * 
+     * @param   t
+     *          the label.
+     * 
+     * @param   p
+     *          the endpoint through which the label was reached.
+     */
+    private void assignLabel(int w, int t, int p) {
+        int b = inBlossom[w];
+        
+        label[w] = label[b] = t;
+        labelEnd[w] = labelEnd[b] = p;
+        bestEdge[w] = bestEdge[b] = -1;
+        
+        if(t == 1) {
+            collectLeaves(b, queue);
+        } else {
+            int base = blossomBase[b];
+            
+            assignLabel(endpoint[mate[base]], 1, mate[base] ^ 1);
+        }
+    }
+    
+    /**
+     * Traces back from two S-vertices to find either a new blossom or an
+     * augmenting path.
+     * 
+     * @param   v
+     *          the first vertex.
+     * 
+     * @param   w
+     *          the second vertex.
+     * 
+     * @return  the base of the new blossom, or -1 for an augmenting path.
+     */
+    private int scanBlossom(int v, int w) {
+        IntList path = new IntList();
+        int base = -1;
+        
+        while(v != -1 || w != -1) {
+            int b = inBlossom[v];
+            
+            if((label[b] & 4) != 0) {
+                base = blossomBase[b];
+                break;
+            }
+            
+            path.add(b);
+            label[b] = 5;
+            
+            if(labelEnd[b] == -1) {
+                v = -1;
+            } else {
+                v = endpoint[labelEnd[b]];
+                b = inBlossom[v];
+                v = endpoint[labelEnd[b]];
+            }
+            
+            if(w != -1) {
+                int swap = v;
+                
+                v = w;
+                w = swap;
+            }
+        }
+        
+        for(int i = 0; i < path.size(); i++) {
+            label[path.get(i)] = 1;
+        }
+        
+        return base;
+    }
+    
+    /**
+     * Creates a new blossom from the cycle closed by an edge between two
+     * S-vertices of the same tree.
+     * 
+     * @param   base
+     *          the base vertex of the blossom.
+     * 
+     * @param   k
+     *          the edge closing the cycle.
+     */
+    private void addBlossom(int base, int k) {
+        int v = endpoint[2 * k];
+        int w = endpoint[2 * k + 1];
+        int bb = inBlossom[base];
+        int bv = inBlossom[v];
+        int bw = inBlossom[w];
+        
+        int b = unusedBlossoms[--unusedBlossomCount];
+        
+        blossomBase[b] = base;
+        blossomParent[b] = -1;
+        blossomParent[bb] = b;
+        
+        IntList path = new IntList();
+        IntList endps = new IntList();
+        
+        while(bv != bb) {
+            blossomParent[bv] = b;
+            path.add(bv);
+            endps.add(labelEnd[bv]);
+            v = endpoint[labelEnd[bv]];
+            bv = inBlossom[v];
+        }
+        
+        path.add(bb);
+        path.reverse();
+        endps.reverse();
+        endps.add(2 * k);
+        
+        while(bw != bb) {
+            blossomParent[bw] = b;
+            path.add(bw);
+            endps.add(labelEnd[bw] ^ 1);
+            w = endpoint[labelEnd[bw]];
+            bw = inBlossom[w];
+        }
+        
+        blossomChildren[b] = path.toArray();
+        blossomEndpoints[b] = endps.toArray();
+        
+        label[b] = 1;
+        labelEnd[b] = labelEnd[bb];
+        dualVariables[b] = 0;
+        
+        for(int leaf : getLeaves(b)) {
+            if(label[inBlossom[leaf]] == 2) {
+                queue.add(leaf);
+            }
+            
+            inBlossom[leaf] = b;
+        }
+        
+        // Keep the least slack edge to each neighbouring S-blossom.
+        int[] bestEdgeTo = new int[2 * vertexCount];
+        Arrays.fill(bestEdgeTo, -1);
+        
+        for(int child : blossomChildren[b]) {
+            if(blossomBestEdges[child] == null) {
+                for(int leaf : getLeaves(child)) {
+                    for(int p : neighbourEnds[leaf]) {
+                        considerBestEdge(b, p >> 1, bestEdgeTo);
+                    }
+                }
+            } else {
+                for(int edge : blossomBestEdges[child]) {
+                    considerBestEdge(b, edge, bestEdgeTo);
+                }
+            }
+            
+            blossomBestEdges[child] = null;
+            bestEdge[child] = -1;
+        }
+        
+        IntList bestEdges = new IntList();
+        
+        for(int edge : bestEdgeTo) {
+            if(edge != -1) {
+                bestEdges.add(edge);
+            }
+        }
+        
+        blossomBestEdges[b] = bestEdges.toArray();
+        bestEdge[b] = -1;
+        
+        for(int edge : blossomBestEdges[b]) {
+            if(bestEdge[b] == -1 || slack(edge) < slack(bestEdge[b])) {
+                bestEdge[b] = edge;
+            }
+        }
+    }
+    
+    /**
+     * Subroutine reducing code redundancy in addBlossom(). Records an edge
+     * leaving a new blossom if it is the least slack edge to its S-blossom.
+     * 
+     * @param   b
+     *          the new blossom.
+     * 
+     * @param   k
+     *          the edge.
+     * 
+     * @param   bestEdgeTo
+     *          the least slack edge to each blossom so far.
+     */
+    private void considerBestEdge(int b, int k, int[] bestEdgeTo) {
+        int j = endpoint[2 * k + 1];
+        
+        if(inBlossom[j] == b) {
+            j = endpoint[2 * k];
+        }
+        
+        int bj = inBlossom[j];
+        
+        if(bj != b && label[bj] == 1 && (bestEdgeTo[bj] == -1
+                || slack(k) < slack(bestEdgeTo[bj]))) {
+            bestEdgeTo[bj] = k;
+        }
+    }
+    
+    /**
+     * Expands a top level blossom into its sub-blossoms.
+     * 
+     * @param   b
+     *          the blossom.
+     * 
+     * @param   endStage
+     *          true when called at the end of a stage, in which case
+     *          sub-blossoms with a zero dual variable are expanded as well.
+     */
+    private void expandBlossom(int b, boolean endStage) {
+        int[] children = blossomChildren[b];
+        
+        for(int s : children) {
+            blossomParent[s] = -1;
+            
+            if(s < vertexCount) {
+                inBlossom[s] = s;
+            } else if(endStage && dualVariables[s] == 0) {
+                expandBlossom(s, endStage);
+            } else {
+                for(int leaf : getLeaves(s)) {
+                    inBlossom[leaf] = s;
+                }
+            }
+        }
+        
+        // Relabel the sub-blossoms on the path through an expanded T-blossom.
+        if(!endStage && label[b] == 2) {
+            int[] endps = blossomEndpoints[b];
+            int entryChild = inBlossom[endpoint[labelEnd[b] ^ 1]];
+            int j = indexOf(children, entryChild);
+            int jstep;
+            int endpTrick;
+            
+            if((j & 1) != 0) {
+                j -= children.length;
+                jstep = 1;
+                endpTrick = 0;
+            } else {
+                jstep = -1;
+                endpTrick = 1;
+            }
+            
+            int p = labelEnd[b];
+            
+            while(j != 0) {
+                label[endpoint[p ^ 1]] = 0;
+                label[endpoint[at(endps, j - endpTrick) ^ endpTrick ^ 1]] = 0;
+                assignLabel(endpoint[p ^ 1], 2, p);
+                
+                allowedEdges[at(endps, j - endpTrick) >> 1] = true;
+                j += jstep;
+                p = at(endps, j - endpTrick) ^ endpTrick;
+                
+                allowedEdges[p >> 1] = true;
+                j += jstep;
+            }
+            
+            int bv = at(children, j);
+            
+            label[endpoint[p ^ 1]] = label[bv] = 2;
+            labelEnd[endpoint[p ^ 1]] = labelEnd[bv] = p;
+            bestEdge[bv] = -1;
+            
+            j += jstep;
+            
+            while(at(children, j) != entryChild) {
+                bv = at(children, j);
+                
+                if(label[bv] == 1) {
+                    j += jstep;
+                    continue;
+                }
+                
+                int reached = -1;
+                
+                for(int leaf : getLeaves(bv)) {
+                    if(label[leaf] != 0) {
+                        reached = leaf;
+                        break;
+                    }
+                }
+                
+                if(reached != -1) {
+                    label[reached] = 0;
+                    label[endpoint[mate[blossomBase[bv]]]] = 0;
+                    assignLabel(reached, 2, labelEnd[reached]);
+                }
+                
+                j += jstep;
+            }
+        }
+        
+        label[b] = labelEnd[b] = -1;
+        blossomChildren[b] = blossomEndpoints[b] = null;
+        blossomBase[b] = -1;
+        blossomBestEdges[b] = null;
+        bestEdge[b] = -1;
+        unusedBlossoms[unusedBlossomCount++] = b;
+    }
+    
+    /**
+     * Swaps matched and unmatched edges along the even path through a blossom
+     * from vertex v to the base, making v the new base.
+     * 
+     * @param   b
+     *          the blossom.
+     * 
+     * @param   v
+     *          the vertex that becomes the base.
+     */
+    private void augmentBlossom(int b, int v) {
+        int t = v;
+        
+        while(blossomParent[t] != b) {
+            t = blossomParent[t];
+        }
+        
+        if(t >= vertexCount) {
+            augmentBlossom(t, v);
+        }
+        
+        int[] children = blossomChildren[b];
+        int[] endps = blossomEndpoints[b];
+        int i = indexOf(children, t);
+        int j = i;
+        int jstep;
+        int endpTrick;
+        
+        if((i & 1) != 0) {
+            j -= children.length;
+            jstep = 1;
+            endpTrick = 0;
+        } else {
+            jstep = -1;
+            endpTrick = 1;
+        }
+        
+        while(j != 0) {
+            j += jstep;
+            t = at(children, j);
+            
+            int p = at(endps, j - endpTrick) ^ endpTrick;
+            
+            if(t >= vertexCount) {
+                augmentBlossom(t, endpoint[p]);
+            }
+            
+            j += jstep;
+            t = at(children, j);
+            
+            if(t >= vertexCount) {
+                augmentBlossom(t, endpoint[p ^ 1]);
+            }
+            
+            mate[endpoint[p]] = p ^ 1;
+            mate[endpoint[p ^ 1]] = p;
+        }
+        
+        blossomChildren[b] = rotate(children, i);
+        blossomEndpoints[b] = rotate(endps, i);
+        blossomBase[b] = blossomBase[blossomChildren[b][0]];
+    }
+    
+    /**
+     * Swaps matched and unmatched edges along the augmenting path through
+     * an edge, growing the matching by one edge.
+     * 
+     * @param   k
+     *          the edge joining the two trees.
+     */
+    private void augmentMatching(int k) {
+        for(int side = 0; side < 2; side++) {
+            int s = endpoint[2 * k + side];
+            int p = 2 * k + 1 - side;
+            
+            while(true) {
+                int bs = inBlossom[s];
+                
+                if(bs >= vertexCount) {
+                    augmentBlossom(bs, s);
+                }
+                
+                mate[s] = p;
+                
+                if(labelEnd[bs] == -1) {
+                    break;
+                }
+                
+                int t = endpoint[labelEnd[bs]];
+                int bt = inBlossom[t];
+                
+                s = endpoint[labelEnd[bt]];
+                
+                int j = endpoint[labelEnd[bt] ^ 1];
+                
+                if(bt >= vertexCount) {
+                    augmentBlossom(bt, j);
+                }
+                
+                mate[j] = labelEnd[bt];
+                p = labelEnd[bt] ^ 1;
+            }
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Array helpers.                                                        *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets an element of a cyclic array, counting negative indices from the
+     * end.
+     */
+    private static int at(int[] array, int index) {
+        return array[(index < 0) ? index + array.length : index];
+    }
+    
+    /**
+     * Gets the index of the first occurrence of a value in an array.
+     */
+    private static int indexOf(int[] array, int value) {
+        for(int i = 0; i < array.length; i++) {
+            if(array[i] == value) {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Rotates an array left so that the element at the index comes first.
+     */
+    private static int[] rotate(int[] array, int index) {
+        int[] rotated = new int[array.length];
+        
+        System.arraycopy(array, index, rotated, 0, array.length - index);
+        System.arraycopy(array, 0, rotated, array.length - index, index);
+        
+        return rotated;
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  IntList helper class.                                                 *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * A growable list of primitive integers.
+     */
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+        
+        private void add(int value) {
+            if(size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            
+            values[size++] = value;
+        }
+        
+        private int get(int index) {
+            return values[index];
+        }
+        
+        private int pop() {
+            return values[--size];
+        }
+        
+        private int size() {
+            return size;
+        }
+        
+        private void clear() {
+            size = 0;
+        }
+        
+        private void reverse() {
+            for(int i = 0, j = size - 1; i < j; i++, j--) {
+                int swap = values[i];
+                
+                values[i] = values[j];
+                values[j] = swap;
+            }
+        }
+        
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
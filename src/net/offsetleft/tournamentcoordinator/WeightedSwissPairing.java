@@ -0,0 +1,342 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * Pairs a head-up Swiss round as a maximum weight matching.
+ * 
+ * <p>Every possible pairing is an edge whose weight falls with the square of
+ * the match point difference between the two participants and falls sharply
+ * for a rematch. When the participant count is odd a bye vertex is added,
+ * joined to every participant by an edge that falls with the participant's
+ * match points and falls sharply if the participant has already had a bye.
+ * The matching with the greatest total weight is then the round with the
+ * fewest and smallest score differences that avoids rematches and repeated
+ * byes wherever possible.
+ * 
+ * <p>An exact matching of the whole field grows with the cube of its size,
+ * so the standings are solved in windows of about WINDOW_SIZE participants.
+ * A pair from a window that could only be made as a rematch is floated down
+ * into the next window instead of being accepted, so rematches are only
+ * made when the last window cannot avoid them.
+ * 
+ * @param       <P>
+ *              a class that extends TournamentParticipant.
+ * 
+ * @author      agent
+ */
+final class WeightedSwissPairing <P extends TournamentParticipant<P>> {
+    
+    static final int WINDOW_SIZE = 64;
+    
+    //Edge Weights
+    private static final long BASE_WEIGHT = 1000000000000L;
+    private static final long REPEAT_PENALTY = 10000000000L;
+    private static final long SCORE_PENALTY = 100000L;
+    
+    private final List<P> participants;
+    private final int[] matchPoints;
+    
+    /**
+     * Constructs a new pairing for a list of participants.
+     * 
+     * @param   participants
+     *          the participants to pair, in standings order.
+     */
+    WeightedSwissPairing(List<P> participants) {
+        this.participants = participants;
+        this.matchPoints = new int[participants.size()];
+        
+        for(int i = 0; i < matchPoints.length; i++) {
+            matchPoints[i] = participants.get(i).getParticipantMatchPoints();
+        }
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Methods related to pairing.                                           *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Pairs the participants.
+     * 
+     * @return  a list of pairings in standings order, each holding two
+     *          participants or, for the bye, a single participant.
+     */
+    ArrayList<ArrayList<P>> createPairings() {
+        ArrayList<Integer> indices = new ArrayList<>();
+        
+        for(int i = 0; i < participants.size(); i++) {
+            indices.add(i);
+        }
+        
+        ArrayList<int[]> pairings = new ArrayList<>();
+        
+        pairWindows(indices, pairings);
+        
+        return getPairedParticipants(pairings);
+    }
+    
+    /**
+     * Pairs participants window by window, floating rematches down into the 
+     * next window. The last window accepts any rematches it cannot avoid.
+     * 
+     * @param   indices
+     *          the indices of the participants to pair, in standings order.
+     * 
+     * @param   pairings
+     *          the list to add the pairings to.
+     */
+    void pairWindows(List<Integer> indices, ArrayList<int[]> pairings) {
+        ArrayList<Integer> window = new ArrayList<>();
+        
+        int next = 0;
+        
+        while(next < indices.size() || !window.isEmpty()) {
+            while(next < indices.size()
+                    && (window.size() < WINDOW_SIZE || window.size() % 2 != 0)) {
+                window.add(indices.get(next++));
+            }
+            
+            boolean lastWindow = next >= indices.size();
+            
+            window = pairWindow(window, lastWindow, pairings);
+            
+            if(lastWindow) {
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Pairs a single window.
+     * 
+     * @param   window
+     *          the indices of the participants in the window, in standings
+     *          order.
+     * 
+     * @param   acceptRematches
+     *          if a pair that could only be made as a rematch is accepted
+     *          rather than floated.
+     * 
+     * @param   pairings
+     *          the list to add the pairings to.
+     * 
+     * @return  the indices of the floated participants, in standings order.
+     */
+    ArrayList<Integer> pairWindow(ArrayList<Integer> window, 
+            boolean acceptRematches, ArrayList<int[]> pairings) {
+        int[] mate = solveWindow(window);
+        
+        ArrayList<Integer> floated = new ArrayList<>();
+        
+        for(int i = 0; i < window.size(); i++) {
+            int partner = mate[i];
+            
+            if(partner >= 0 && partner < i) {
+                continue;
+            }
+            
+            int p1 = window.get(i);
+            
+            if(partner < 0 || partner == window.size()) {
+                pairings.add(new int[] {p1});
+                continue;
+            }
+            
+            int p2 = window.get(partner);
+            
+            if(!acceptRematches && getHavePlayed(p1, p2)) {
+                floated.add(p1);
+                floated.add(p2);
+            } else {
+                pairings.add(new int[] {p1, p2});
+            }
+        }
+        
+        // The float keeps standings order within the next window.
+        floated.sort(null);
+        
+        return floated;
+    }
+    
+    /**
+     * Turns pairings of participant indices into pairings of participants.
+     * 
+     * @param   pairings
+     *          the pairings of participant indices.
+     * 
+     * @return  a list of pairings in standings order, with the bye last.
+     */
+    ArrayList<ArrayList<P>> getPairedParticipants(ArrayList<int[]> pairings) {
+        pairings.sort((a, b) -> Integer.compare(
+                (a.length == 1) ? Integer.MAX_VALUE : a[0],
+                (b.length == 1) ? Integer.MAX_VALUE : b[0]));
+        
+        ArrayList<ArrayList<P>> pairedParticipants = new ArrayList<>();
+        
+        for(int[] pairing : pairings) {
+            pairedParticipants.add(createPairing(pairing));
+        }
+        
+        return pairedParticipants;
+    }
+    
+    /**
+     * Finds the maximum weight matching of a window. A bye vertex is added
+     * after the window's participants when the window is odd.
+     * 
+     * @param   window
+     *          the indices of the participants in the window.
+     * 
+     * @return  the window position each position is matched with, where the
+     *          window size stands for the bye.
+     */
+    private int[] solveWindow(ArrayList<Integer> window) {
+        int size = window.size();
+        boolean odd = size % 2 != 0;
+        int vertexCount = odd ? size + 1 : size;
+        
+        int edgeCount = vertexCount * (vertexCount - 1) / 2;
+        int[] edgeEnds = new int[2 * edgeCount];
+        long[] edgeWeights = new long[edgeCount];
+        
+        int lowestPoints = Integer.MAX_VALUE;
+        
+        for(int index : window) {
+            lowestPoints = Math.min(lowestPoints, matchPoints[index]);
+        }
+        
+        int k = 0;
+        
+        for(int i = 0; i < size; i++) {
+            int p1 = window.get(i);
+            
+            for(int j = i + 1; j < size; j++) {
+                int p2 = window.get(j);
+                long difference = matchPoints[p1] - matchPoints[p2];
+                
+                long weight = BASE_WEIGHT
+                        - SCORE_PENALTY * difference * difference
+                        - Math.abs(p1 - p2);
+                
+                if(getHavePlayed(p1, p2)) {
+                    weight -= REPEAT_PENALTY;
+                }
+                
+                edgeEnds[2 * k] = i;
+                edgeEnds[2 * k + 1] = j;
+                edgeWeights[k++] = weight;
+            }
+            
+            if(odd) {
+                long difference = matchPoints[p1] - lowestPoints;
+                
+                long weight = BASE_WEIGHT
+                        - SCORE_PENALTY * difference * difference
+                        - (size - i);
+                
+                if(getHasHadBye(p1)) {
+                    weight -= REPEAT_PENALTY;
+                }
+                
+                edgeEnds[2 * k] = i;
+                edgeEnds[2 * k + 1] = size;
+                edgeWeights[k++] = weight;
+            }
+        }
+        
+        return WeightedMatching.maximumWeightMatching(
+                vertexCount, edgeEnds, edgeWeights);
+    }
+    
+    
+    /**************************************************************************
+     *                                                                        *
+     *  Helper methods.                                                       *
+     *                                                                        *
+     **************************************************************************/
+    
+    /**
+     * Gets the number of participants being paired.
+     * 
+     * @return  the participant count as an integer.
+     */
+    int getParticipantCount() {
+        return participants.size();
+    }
+    
+    /**
+     * Gets the match points a participant had when pairing began.
+     * 
+     * @param   p
+     *          the index of the participant.
+     * 
+     * @return  the match points as an integer.
+     */
+    int getMatchPoints(int p) {
+        return matchPoints[p];
+    }
+    
+    /**
+     * Determines if two participants have played each other.
+     * 
+     * @param   p1
+     *          the index of the first participant.
+     * 
+     * @param   p2
+     *          the index of the second participant.
+     * 
+     * @return  a boolean value
+     */
+    private boolean getHavePlayed(int p1, int p2) {
+        try {
+            return participants.get(p1)
+                    .getHasPlayedParticipant(participants.get(p2));
+        } catch (TournamentStateException ex) {
+            System.err.println(ex);
+            
+            return false;
+        }
+    }
+    
+    /**
+     * Determines if a participant has had a bye.
+     * 
+     * @param   p
+     *          the index of the participant.
+     * 
+     * @return  a boolean value
+     */
+    private boolean getHasHadBye(int p) {
+        try {
+            return participants.get(p).getHasHadBye();
+        } catch (TournamentStateException ex) {
+            System.err.println(ex);
+            
+            return false;
+        }
+    }
+    
+    /**
+     * Creates a pairing from participant indices.
+     * 
+     * @param   indices
+     *          the indices of the participants.
+     * 
+     * @return  an ArrayList of participants.
+     */
+    private ArrayList<P> createPairing(int... indices) {
+        ArrayList<P> pairing = new ArrayList<>();
+        
+        for(int index : indices) {
+            pairing.add(participants.get(index));
+        }
+        
+        return pairing;
+    }
+}
@@ -0,0 +1,174 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+
+/**
+ * An event of TestParticipants along with the methods the tests use to fill 
+ * it, play its rounds and compare it with another event.
+ * 
+ * <p>All names and results are drawn from a seeded Random, so two events 
+ * built with the same arguments are the same event.
+ * 
+ * @author      agent
+ */
+class TestEvent extends TournamentEvent<
+        TournamentSegment<TournamentRound<TournamentMatch<TestParticipant>, 
+                TestParticipant>, 
+            TournamentMatch<TestParticipant>, TestParticipant>,
+        TournamentRound<TournamentMatch<TestParticipant>, TestParticipant>,
+        TournamentMatch<TestParticipant>, TestParticipant> {
+    
+    //Head-Up Results
+    private static final int[][] HEADSUP_RESULTS = {
+        {2, 0, 0}, {0, 2, 0}, {2, 1, 0}, {1, 2, 0}, {1, 1, 1}
+    };
+    
+    private final Random random;
+    private int createdParticipants = 0;
+    
+    /**
+     * Constructs a new, empty Swiss event without elimination.
+     * 
+     * @param   multiplayerOption
+     *          the SegmentMultiplayerOption of the event.
+     * 
+     * @param   seed 
+     *          the seed for participant names, match results and pairing.
+     */
+    TestEvent(SegmentMultiplayerOption multiplayerOption, long seed) {
+        super(SegmentEliminationStyle.NONE, SegmentPairingSystem.SWISS, 
+                multiplayerOption);
+        
+        this.random = new Random(seed);
+        
+        setPairingSeed(random.nextLong());
+    }
+    
+    /**
+     * Enrolls new participants with random names.
+     * 
+     * @param   count
+     *          the number of participants to enroll.
+     * 
+     * @throws  TournamentStateException 
+     *          If a participant cannot be added.
+     */
+    void addParticipants(int count) throws TournamentStateException {
+        for(int i = 0; i < count; i++) {
+            int index = createdParticipants++;
+            
+            addParticipant(new TestParticipant(
+                    "First" + random.nextInt(20), 
+                    "Last" + random.nextInt(20), 
+                    "test-" + index, 
+                    this));
+        }
+    }
+    
+    /**
+     * Creates a new round and enters results for all of its matches but
+     * head-up byes.
+     * 
+     * @throws  TournamentStateException 
+     *          If the round cannot be created.
+     */
+    void playRound() throws TournamentStateException {
+        createNewEventRound();
+        
+        for(TournamentMatch<TestParticipant> match 
+                : getCurrentEventRound().getRoundMatches()) {
+            if(match.getMultiplayerOption() == SegmentMultiplayerOption.HEADSUP
+                    && match.getMatchParticipantCount() == 1) {
+                continue;
+            }
+            
+            match.setMatchResults(createResults(match));
+        }
+    }
+    
+    /**
+     * Creates random results that are valid for a match. Head-up playoff
+     * matches are never drawn, so that they always have a winner.
+     * 
+     * @param   match
+     *          the match to create results for.
+     * 
+     * @return  the results.
+     */
+    ArrayList<Integer> createResults(TournamentMatch<TestParticipant> match) {
+        ArrayList<Integer> results = new ArrayList<>();
+        
+        if(match.getMultiplayerOption() == SegmentMultiplayerOption.HEADSUP) {
+            int resultCount = getPlayoffHasBegun() 
+                    ? HEADSUP_RESULTS.length - 1 : HEADSUP_RESULTS.length;
+            
+            for(int result : HEADSUP_RESULTS[random.nextInt(resultCount)]) {
+                results.add(result);
+            }
+        } else {
+            for(int i = 1; i <= match.getMatchParticipantCount(); i++) {
+                results.add(i);
+            }
+            
+            Collections.shuffle(results, random);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * Describes the state of the event as text: its participants in 
+     * alphabetical and standings order, and the pairings and results of 
+     * every round. Two events with the same description are in the same 
+     * state.
+     * 
+     * @return  the description.
+     * 
+     * @throws  TournamentStateException 
+     *          If the status of a participant cannot be read.
+     */
+    String describe() throws TournamentStateException {
+        StringBuilder description = new StringBuilder();
+        
+        description.append("participants");
+        
+        for(TestParticipant participant : getAllParticipants()) {
+            description.append(' ').append(participant.getUUID())
+                    .append('/').append(participant.getFirstName())
+                    .append('/').append(participant.getLastName())
+                    .append('/').append(getParticipantStatus(participant));
+        }
+        
+        description.append("\nstandings");
+        
+        for(TestParticipant participant : getAllParticipantsStandings()) {
+            description.append(' ').append(participant.getUUID());
+        }
+        
+        description.append("\nsegments ").append(tournamentSegments.size());
+        
+        for(TournamentRound<TournamentMatch<TestParticipant>, TestParticipant> round 
+                : getAllEventRounds()) {
+            description.append("\nround ").append(round.getRoundNumber());
+            
+            for(TournamentMatch<TestParticipant> match : round.getRoundMatches()) {
+                description.append(" [");
+                
+                for(TestParticipant participant : match.getMatchParticipants()) {
+                    description.append(participant.getUUID()).append(' ');
+                }
+                
+                for(int result : match.getResultArray()) {
+                    description.append(result).append(' ');
+                }
+                
+                description.append(']');
+            }
+        }
+        
+        return description.toString();
+    }
+}
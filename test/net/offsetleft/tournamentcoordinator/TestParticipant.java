@@ -0,0 +1,36 @@
+package net.offsetleft.tournamentcoordinator;
+
+/**
+ * A participant enrolled in a TestEvent.
+ * 
+ * @author      agent
+ */
+class TestParticipant extends TournamentParticipant<TestParticipant> {
+    
+    /**
+     * Constructs a new participant enrolled in an event. Matches
+     * TournamentSnapshotReader.ParticipantFactory, so TestParticipant::new
+     * can load an event.
+     * 
+     * @param   participantFirstName
+     *          the first name of the participant.
+     * 
+     * @param   participantLastName
+     *          the last name of the participant.
+     * 
+     * @param   participantUUID
+     *          the UUID of the participant.
+     * 
+     * @param   enrolledEvent 
+     *          the event the participant is enrolled in.
+     */
+    TestParticipant(
+            String participantFirstName,
+            String participantLastName,
+            String participantUUID,
+            TournamentEvent<?, ?, ?, TestParticipant> enrolledEvent) {
+        super(participantFirstName, participantLastName, participantUUID);
+        
+        this.enrolledEvent = enrolledEvent;
+    }
+}
@@ -0,0 +1,158 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that replaying a TournamentEventJournal restores the event it
+ * recorded, on its own and on top of a snapshot.
+ * 
+ * @author      agent
+ */
+public class TournamentEventJournalTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Replaying a journal started with a new event restores every kind of 
+     * operation, including removed rounds, renames and a playoff cut.
+     */
+    @Test
+    public void testReplay() throws IOException, TournamentStateException {
+        Path path = folder.getRoot().toPath().resolve("event.journal");
+        TestEvent event = new TestEvent(SegmentMultiplayerOption.HEADSUP, 15);
+        TournamentEventJournal<?, ?, ?> journal = 
+                TournamentEventJournal.create(event, path);
+        
+        playEvent(event);
+        journal.close();
+        
+        TestEvent recovered = new TestEvent(SegmentMultiplayerOption.HEADSUP, 0);
+        
+        TournamentEventJournal.recover(recovered, path, TestParticipant::new)
+                .close();
+        
+        assertEquals(event.describe(), recovered.describe());
+    }
+    
+    /**
+     * A journal started from a snapshot restores the event when it is 
+     * replayed on top of that snapshot.
+     */
+    @Test
+    public void testReplayOnSnapshot() throws IOException, TournamentStateException {
+        Path path = folder.getRoot().toPath().resolve("event.journal");
+        TestEvent event = new TestEvent(SegmentMultiplayerOption.MULTIPLAYER, 16);
+        
+        event.addParticipants(24);
+        event.createRegulationPlaySegment();
+        event.playRound();
+        
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        
+        new TournamentSnapshotWriter(snapshot).write(event);
+        
+        TournamentEventJournal<?, ?, ?> journal = 
+                TournamentEventJournal.create(event, path, 1);
+        
+        event.playRound();
+        event.getAllParticipants().get(2).setLastName("Renamed");
+        event.playRound();
+        journal.close();
+        
+        TestEvent recovered = 
+                new TestEvent(SegmentMultiplayerOption.MULTIPLAYER, 0);
+        
+        new TournamentSnapshotReader(new ByteArrayInputStream(
+                snapshot.toByteArray())).read(recovered, TestParticipant::new);
+        TournamentEventJournal.recover(recovered, path, TestParticipant::new)
+                .close();
+        
+        assertEquals(event.describe(), recovered.describe());
+    }
+    
+    /**
+     * A record cut short by a failure is discarded, along with nothing 
+     * before it.
+     */
+    @Test
+    public void testTornRecord() throws IOException, TournamentStateException {
+        Path path = folder.getRoot().toPath().resolve("event.journal");
+        TestEvent event = new TestEvent(SegmentMultiplayerOption.HEADSUP, 17);
+        TournamentEventJournal<?, ?, ?> journal = 
+                TournamentEventJournal.create(event, path);
+        
+        event.addParticipants(10);
+        event.createRegulationPlaySegment();
+        event.playRound();
+        
+        long sequence = journal.getSequence();
+        
+        journal.close();
+        
+        try (FileChannel channel = FileChannel.open(path, 
+                StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+        
+        TestEvent recovered = new TestEvent(SegmentMultiplayerOption.HEADSUP, 0);
+        TournamentEventJournal<?, ?, ?> recoveredJournal = 
+                TournamentEventJournal.recover(recovered, path, 
+                        TestParticipant::new);
+        
+        recoveredJournal.close();
+        
+        assertEquals(sequence - 1, recoveredJournal.getSequence());
+        assertNotEquals(event.describe(), recovered.describe());
+    }
+    
+    /**
+     * Plays a head-up event through regulation play and into a playoff, 
+     * using every operation a journal records.
+     * 
+     * @param   event
+     *          the event to play.
+     */
+    private static void playEvent(TestEvent event) 
+            throws TournamentStateException {
+        event.addParticipants(20);
+        event.createRegulationPlaySegment();
+        event.playRound();
+        event.deactivateParticipant(event.getAllParticipants().get(4));
+        
+        // A removed participant is dropped first, so it is not paired again.
+        TestParticipant removed = event.getAllParticipants().get(9);
+        
+        event.deactivateParticipant(removed);
+        event.removeParticipant(removed);
+        event.playRound();
+        event.removeCurrentEventRound();
+        event.playRound();
+        event.reactivateParticipant(event.getAllParticipants().get(4));
+        event.getAllParticipants().get(0).setFirstName("Renamed");
+        event.addParticipants(1);
+        event.playRound();
+        
+        TournamentMatch<TestParticipant> match = 
+                event.getRound(1).getRoundMatches().get(0);
+        
+        match.setMatchResults(event.createResults(match));
+        
+        event.createPlayoffPlaySegment(5, SegmentEliminationStyle.SINGLE, 
+                SegmentPairingSystem.SWISS);
+        event.playRound();
+        event.playRound();
+    }
+}
@@ -0,0 +1,123 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import net.offsetleft.tournamentcoordinator.exceptions.RoundStateException;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks the pairing of rounds.
+ * 
+ * @author      agent
+ */
+public class TournamentRoundTest {
+    
+    /**
+     * Two events seeded alike pair every round alike, whichever algorithm
+     * pairs them.
+     */
+    @Test(timeout = 60000)
+    public void testPairingIsDeterministic() throws TournamentStateException {
+        for(SegmentPairingAlgorithm algorithm 
+                : SegmentPairingAlgorithm.values()) {
+            assertEquals(algorithm.toString(), 
+                    playEvent(SegmentMultiplayerOption.HEADSUP, algorithm), 
+                    playEvent(SegmentMultiplayerOption.HEADSUP, algorithm));
+        }
+        
+        assertEquals(
+                playEvent(SegmentMultiplayerOption.MULTIPLAYER, 
+                        SegmentPairingAlgorithm.GREEDY), 
+                playEvent(SegmentMultiplayerOption.MULTIPLAYER, 
+                        SegmentPairingAlgorithm.GREEDY));
+    }
+    
+    /**
+     * A head-up round in which every player has already played every other
+     * is paired as the table always paired it, with every player alone in a
+     * match of their own, in standings order.
+     */
+    @Test
+    public void testExhaustedFieldGetsByes() throws TournamentStateException {
+        TestEvent event = createRoundRobin();
+        List<List<TestParticipant>> expected = new ArrayList<>();
+        
+        for(TestParticipant participant : event.getAllParticipantsStandings()) {
+            expected.add(Collections.singletonList(participant));
+        }
+        
+        event.createNewEventRound();
+        
+        List<List<TestParticipant>> paired = new ArrayList<>();
+        
+        for(TournamentMatch<TestParticipant> match 
+                : event.getCurrentEventRound().getRoundMatches()) {
+            paired.add(match.getMatchParticipants());
+        }
+        
+        assertEquals(expected, paired);
+    }
+    
+    /**
+     * Once the player at the top of the table has had a bye, the next round
+     * cannot be paired, where the table used to fail with a 
+     * NullPointerException.
+     */
+    @Test(expected = RoundStateException.class)
+    public void testNoValidPairing() throws TournamentStateException {
+        TestEvent event = createRoundRobin();
+        
+        event.playRound();
+        event.createNewEventRound();
+    }
+    
+    /**
+     * Plays a head-up event of four participants until every participant
+     * has played every other.
+     * 
+     * @return  the event.
+     */
+    private static TestEvent createRoundRobin() throws TournamentStateException {
+        TestEvent event = new TestEvent(SegmentMultiplayerOption.HEADSUP, 18);
+        
+        event.setPairingAlgorithm(SegmentPairingAlgorithm.GREEDY);
+        event.addParticipants(4);
+        event.createRegulationPlaySegment();
+        
+        for(int i = 0; i < 3; i++) {
+            event.playRound();
+        }
+        
+        return event;
+    }
+    
+    /**
+     * Plays a few rounds of a new event.
+     * 
+     * @param   multiplayerOption
+     *          the SegmentMultiplayerOption of the event.
+     * 
+     * @param   algorithm
+     *          the SegmentPairingAlgorithm pairing the rounds.
+     * 
+     * @return  the description of the event.
+     */
+    private static String playEvent(SegmentMultiplayerOption multiplayerOption,
+            SegmentPairingAlgorithm algorithm) 
+            throws TournamentStateException {
+        TestEvent event = new TestEvent(multiplayerOption, 19);
+        
+        event.setPairingAlgorithm(algorithm);
+        event.addParticipants(24);
+        event.createRegulationPlaySegment();
+        
+        for(int i = 0; i < 4; i++) {
+            event.playRound();
+        }
+        
+        return event.describe();
+    }
+}
@@ -0,0 +1,116 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import net.offsetleft.tournamentcoordinator.exceptions.TournamentStateException;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks that events written by TournamentSnapshotWriter are read back by
+ * TournamentSnapshotReader in the state they were written in.
+ * 
+ * @author      agent
+ */
+public class TournamentSnapshotTest {
+    
+    /**
+     * A head-up event in regulation play, with a participant dropped and one
+     * removed, survives a round trip.
+     */
+    @Test
+    public void testHeadsUpRoundTrip() throws IOException, TournamentStateException {
+        TestEvent event = createEvent(SegmentMultiplayerOption.HEADSUP);
+        
+        assertRoundTrip(event);
+    }
+    
+    /**
+     * A multi-player event survives a round trip.
+     */
+    @Test
+    public void testMultiplayerRoundTrip() throws IOException, TournamentStateException {
+        TestEvent event = createEvent(SegmentMultiplayerOption.MULTIPLAYER);
+        
+        assertRoundTrip(event);
+    }
+    
+    /**
+     * A single elimination playoff whose cut is not a power of two survives 
+     * a round trip, and the loaded event pairs the next playoff round from
+     * the same bracket as the saved one.
+     */
+    @Test
+    public void testPlayoffRoundTrip() throws IOException, TournamentStateException {
+        TestEvent event = createEvent(SegmentMultiplayerOption.HEADSUP);
+        
+        event.createPlayoffPlaySegment(6, SegmentEliminationStyle.SINGLE, 
+                SegmentPairingSystem.SWISS);
+        event.playRound();
+        
+        TestEvent loaded = assertRoundTrip(event);
+        
+        event.playRound();
+        loaded.createNewEventRound();
+        
+        assertEquals(
+                event.getCurrentEventRound().getRoundParticipants().toString(),
+                loaded.getCurrentEventRound().getRoundParticipants().toString());
+    }
+    
+    /**
+     * Plays a few rounds of a new event, dropping and removing a
+     * participant along the way.
+     * 
+     * @param   multiplayerOption
+     *          the SegmentMultiplayerOption of the event.
+     * 
+     * @return  the event.
+     */
+    private static TestEvent createEvent(
+            SegmentMultiplayerOption multiplayerOption) 
+            throws TournamentStateException {
+        TestEvent event = new TestEvent(multiplayerOption, 14);
+        
+        event.addParticipants(30);
+        event.createRegulationPlaySegment();
+        event.playRound();
+        event.deactivateParticipant(event.getAllParticipants().get(3));
+        
+        // A removed participant is dropped first, so it is not paired again.
+        TestParticipant removed = event.getAllParticipants().get(7);
+        
+        event.deactivateParticipant(removed);
+        event.removeParticipant(removed);
+        event.playRound();
+        event.playRound();
+        
+        return event;
+    }
+    
+    /**
+     * Writes an event, reads it into a new event and checks that both are in
+     * the same state.
+     * 
+     * @param   event
+     *          the event to write.
+     * 
+     * @return  the event read back.
+     */
+    private static TestEvent assertRoundTrip(TestEvent event) 
+            throws IOException, TournamentStateException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        
+        new TournamentSnapshotWriter(output).write(event);
+        
+        TestEvent loaded = new TestEvent(event.getMultiplayerOption(), 0);
+        
+        new TournamentSnapshotReader(new ByteArrayInputStream(
+                output.toByteArray())).read(loaded, TestParticipant::new);
+        
+        assertEquals(event.describe(), loaded.describe());
+        
+        return loaded;
+    }
+}
@@ -0,0 +1,160 @@
+package net.offsetleft.tournamentcoordinator;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Checks WeightedMatching against every matching of small random graphs.
+ * 
+ * @author      agent
+ */
+public class WeightedMatchingTest {
+    
+    private static final int GRAPH_COUNT = 2000;
+    
+    /**
+     * Random graphs of up to nine vertices, with and without ties between
+     * the weights, are matched with the greatest number of edges and, among 
+     * those, the greatest weight.
+     */
+    @Test
+    public void testMatchesBruteForceOnSmallGraphs() {
+        Random random = new Random(8);
+        
+        for(int g = 0; g < GRAPH_COUNT; g++) {
+            int vertexCount = 1 + random.nextInt(9);
+            int maxWeight = (g % 2 == 0) ? 3 : 1000;
+            long[][] weights = new long[vertexCount][vertexCount];
+            boolean[][] joined = new boolean[vertexCount][vertexCount];
+            int edgeCount = 0;
+            
+            for(int v = 0; v < vertexCount; v++) {
+                for(int u = v + 1; u < vertexCount; u++) {
+                    if(random.nextInt(3) > 0) {
+                        joined[v][u] = joined[u][v] = true;
+                        weights[v][u] = weights[u][v] = random.nextInt(maxWeight + 1);
+                        edgeCount++;
+                    }
+                }
+            }
+            
+            int[] edgeEnds = new int[edgeCount * 2];
+            long[] edgeWeights = new long[edgeCount];
+            int k = 0;
+            
+            for(int v = 0; v < vertexCount; v++) {
+                for(int u = v + 1; u < vertexCount; u++) {
+                    if(joined[v][u]) {
+                        edgeEnds[2 * k] = v;
+                        edgeEnds[2 * k + 1] = u;
+                        edgeWeights[k++] = weights[v][u];
+                    }
+                }
+            }
+            
+            int[] mate = WeightedMatching.maximumWeightMatching(
+                    vertexCount, edgeEnds, edgeWeights);
+            
+            assertEquals(vertexCount, mate.length);
+            
+            int edges = 0;
+            long weight = 0;
+            
+            for(int v = 0; v < vertexCount; v++) {
+                if(mate[v] < 0) {
+                    continue;
+                }
+                
+                assertTrue("graph " + g + ": vertex " + v + " is matched "
+                        + "without an edge", joined[v][mate[v]]);
+                assertEquals("graph " + g + ": matching is not symmetric", 
+                        v, mate[mate[v]]);
+                
+                if(v < mate[v]) {
+                    edges++;
+                    weight += weights[v][mate[v]];
+                }
+            }
+            
+            long[] best = bestMatching(0, new boolean[vertexCount], 
+                    joined, weights);
+            
+            assertEquals("graph " + g + ": edge count", best[0], edges);
+            assertEquals("graph " + g + ": weight", best[1], weight);
+        }
+    }
+    
+    /**
+     * Two disjoint triangles whose heaviest edges cannot both be used with
+     * the edge joining them, forcing a blossom to be formed and expanded.
+     */
+    @Test
+    public void testBlossom() {
+        int[] edgeEnds = {0, 1, 1, 2, 0, 2, 2, 3, 3, 4, 4, 5, 3, 5};
+        long[] edgeWeights = {8, 9, 10, 7, 8, 9, 10};
+        
+        int[] mate = WeightedMatching.maximumWeightMatching(
+                6, edgeEnds, edgeWeights);
+        
+        assertEquals(1, mate[0]);
+        assertEquals(3, mate[2]);
+        assertEquals(5, mate[4]);
+    }
+    
+    /**
+     * Finds the greatest number of edges of a matching and the greatest 
+     * weight of a matching with that many edges by trying every matching.
+     * 
+     * @param   v
+     *          the first vertex that has not been decided yet.
+     * 
+     * @param   matched
+     *          the vertices matched so far.
+     * 
+     * @param   joined
+     *          the edges of the graph.
+     * 
+     * @param   weights
+     *          the weights of the edges.
+     * 
+     * @return  the edge count and the weight.
+     */
+    private static long[] bestMatching(int v, boolean[] matched, 
+            boolean[][] joined, long[][] weights) {
+        while(v < matched.length && matched[v]) {
+            v++;
+        }
+        
+        if(v == matched.length) {
+            return new long[] {0, 0};
+        }
+        
+        matched[v] = true;
+        
+        long[] best = bestMatching(v + 1, matched, joined, weights);
+        
+        for(int u = v + 1; u < matched.length; u++) {
+            if(matched[u] || !joined[v][u]) {
+                continue;
+            }
+            
+            matched[u] = true;
+            
+            long[] rest = bestMatching(v + 1, matched, joined, weights);
+            long edges = rest[0] + 1;
+            long weight = rest[1] + weights[v][u];
+            
+            if(edges > best[0] || (edges == best[0] && weight > best[1])) {
+                best = new long[] {edges, weight};
+            }
+            
+            matched[u] = false;
+        }
+        
+        matched[v] = false;
+        
+        return best;
+    }
+}